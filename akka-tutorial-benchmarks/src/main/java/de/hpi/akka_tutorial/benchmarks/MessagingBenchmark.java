@@ -0,0 +1,272 @@
+package de.hpi.akka_tutorial.benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Deploy;
+import akka.actor.ExtendedActorSystem;
+import akka.actor.Props;
+import akka.dispatch.Dispatchers;
+import akka.remote.RemoteScope;
+import de.hpi.akka_tutorial.metrics.Histogram;
+import de.hpi.akka_tutorial.util.AkkaUtils;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+/**
+ * Measures the cost of messaging between actors for the different dispatchers and mailboxes that the master, the workers
+ * and the listener could run on:
+ * <ul>
+ * <li>{@link #pingPong()}: the round trip between two actors, as between the master and a worker; the percentiles of the
+ * round trips are printed after each iteration</li>
+ * <li>{@link #chain()}: a single hop along a long chain of actors, which excludes the time to set up the chain</li>
+ * <li>{@link #fanOutFanIn()}: the throughput of one actor that keeps many actors busy and collects their replies, as the
+ * master does with its workers and the listener</li>
+ * </ul>
+ * With the {@code remote} transport, the partners of the driving actor live in a second actor system that is connected
+ * over loopback remoting, so that every message is serialized and sent through the network stack.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessagingBenchmark {
+
+	// The number of round trips per ping-pong operation
+	private static final int ROUND_TRIPS = 1000;
+
+	// The number of actors in the chain
+	private static final int CHAIN_LENGTH = 1000;
+
+	// The number of actors that the driver fans out to and the number of messages that it keeps in flight
+	private static final int FAN_OUT = 16, FAN_OUT_WINDOW = 256;
+
+	// The number of messages per fan-out/fan-in operation
+	private static final int FAN_OUT_MESSAGES = 10_000;
+
+	/**
+	 * Sends a number of timestamps to its targets, round robin and with a bounded number of them in flight, and counts
+	 * down a latch once all of them came back.
+	 */
+	public static class Driver extends AbstractActor {
+
+		/**
+		 * Asks the driver to run a number of messages past its targets.
+		 */
+		public static class RunMessage {
+
+			private final ActorRef[] targets;
+
+			private final int numMessages, window;
+
+			private final Histogram roundTrips;
+
+			private final CountDownLatch latch;
+
+			public RunMessage(ActorRef[] targets, int numMessages, int window, Histogram roundTrips, CountDownLatch latch) {
+				this.targets = targets;
+				this.numMessages = numMessages;
+				this.window = window;
+				this.roundTrips = roundTrips;
+				this.latch = latch;
+			}
+		}
+
+		private RunMessage run;
+
+		private int numSent, numReceived;
+
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder()
+					.match(RunMessage.class, this::handle)
+					.match(Long.class, this::handle)
+					.build();
+		}
+
+		private void handle(RunMessage message) {
+			this.run = message;
+			this.numSent = 0;
+			this.numReceived = 0;
+
+			// Fill the window
+			while (this.numSent < Math.min(message.window, message.numMessages))
+				this.send();
+		}
+
+		private void handle(Long sendNanos) {
+			if (this.run.roundTrips != null)
+				this.run.roundTrips.record(System.nanoTime() - sendNanos);
+
+			// Keep the window full until all messages are sent and complete the run once all of them came back
+			this.numReceived++;
+			if (this.numSent < this.run.numMessages)
+				this.send();
+			else if (this.numReceived == this.run.numMessages)
+				this.run.latch.countDown();
+		}
+
+		private void send() {
+			this.run.targets[this.numSent++ % this.run.targets.length].tell(System.nanoTime(), this.self());
+		}
+	}
+
+	/**
+	 * Returns every message to its sender.
+	 */
+	public static class Echo extends AbstractActor {
+
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder()
+					.matchAny(message -> this.sender().tell(message, this.self()))
+					.build();
+		}
+	}
+
+	/**
+	 * Passes every message on to the next actor of the chain, which it receives first.
+	 */
+	public static class Hop extends AbstractActor {
+
+		private ActorRef next;
+
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder()
+					.match(ActorRef.class, next -> this.next = next)
+					.matchAny(message -> this.next.tell(message, this.self()))
+					.build();
+		}
+	}
+
+	// An affinity pool executor is not available in this Akka version
+	@Param({"default", "pinned", "thread-pool"})
+	public String dispatcher;
+
+	@Param({"unbounded", "single-consumer", "bounded"})
+	public String mailbox;
+
+	@Param({"local", "remote"})
+	public String transport;
+
+	private ActorSystem actorSystem, remoteActorSystem;
+
+	private ActorRef driver, echo, firstHop;
+
+	private ActorRef[] fanOut;
+
+	private Histogram roundTrips;
+
+	@Setup
+	public void setUp() {
+
+		// Start the actor systems
+		final Config config = ConfigFactory.parseResources("benchmarks/messaging.conf");
+		Props remoteProps = this.props(Echo.class);
+		if (this.transport.equals("remote")) {
+			this.actorSystem = ActorSystem.create("MessagingBenchmark", config.withFallback(AkkaUtils.createRemoteAkkaConfig("127.0.0.1", 0)));
+			this.remoteActorSystem = ActorSystem.create("MessagingBenchmarkRemote", config.withFallback(AkkaUtils.createRemoteAkkaConfig("127.0.0.1", 0)));
+			remoteProps = remoteProps.withDeploy(new Deploy(new RemoteScope(((ExtendedActorSystem) this.remoteActorSystem).provider().getDefaultAddress())));
+		} else {
+			this.actorSystem = ActorSystem.create("MessagingBenchmark", config.withFallback(ConfigFactory.load()));
+		}
+		final Deploy remoteDeploy = remoteProps.deploy();
+
+		// The driver always lives in the local actor system, its partners in the remote one if any
+		this.driver = this.actorSystem.actorOf(this.props(Driver.class));
+		this.echo = this.actorSystem.actorOf(remoteProps);
+		this.fanOut = new ActorRef[FAN_OUT];
+		for (int i = 0; i < FAN_OUT; i++)
+			this.fanOut[i] = this.actorSystem.actorOf(remoteProps);
+
+		// Build the chain back to front, so that every hop crosses between the actor systems with the remote transport
+		ActorRef next = this.driver;
+		for (int i = CHAIN_LENGTH - 1; i >= 0; i--) {
+			final Props hopProps = i % 2 == 0 ? this.props(Hop.class).withDeploy(remoteDeploy) : this.props(Hop.class);
+			final ActorRef hop = this.actorSystem.actorOf(hopProps);
+			hop.tell(next, ActorRef.noSender());
+			next = hop;
+		}
+		this.firstHop = next;
+	}
+
+	private Props props(Class<? extends AbstractActor> actorClass) {
+		final String dispatcherId = this.dispatcher.equals("default") ? Dispatchers.DefaultDispatcherId() : "benchmarks." + this.dispatcher + "-dispatcher";
+		return Props.create(actorClass).withDispatcher(dispatcherId).withMailbox("benchmarks." + this.mailbox + "-mailbox");
+	}
+
+	@Setup(Level.Iteration)
+	public void startIteration() {
+		this.roundTrips = new Histogram();
+	}
+
+	@TearDown(Level.Iteration)
+	public void finishIteration() {
+		if (this.roundTrips.count() > 0)
+			System.out.println(String.format("round trips [us]: p50 = %.1f, p90 = %.1f, p99 = %.1f, p99.9 = %.1f, max = %.1f",
+					this.roundTrips.percentile(50) / 1e3, this.roundTrips.percentile(90) / 1e3, this.roundTrips.percentile(99) / 1e3,
+					this.roundTrips.percentile(99.9) / 1e3, this.roundTrips.max() / 1e3));
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		for (ActorSystem actorSystem : new ActorSystem[] {this.actorSystem, this.remoteActorSystem}) {
+			if (actorSystem != null) {
+				actorSystem.terminate();
+				Await.ready(actorSystem.whenTerminated(), Duration.Inf());
+			}
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@OperationsPerInvocation(ROUND_TRIPS)
+	public void pingPong() throws InterruptedException {
+		this.run(new ActorRef[] {this.echo}, ROUND_TRIPS, 1, this.roundTrips);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@OperationsPerInvocation(CHAIN_LENGTH)
+	public void chain() throws InterruptedException {
+		this.run(new ActorRef[] {this.firstHop}, 1, 1, null);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@OperationsPerInvocation(FAN_OUT_MESSAGES)
+	public void fanOutFanIn() throws InterruptedException {
+		this.run(this.fanOut, FAN_OUT_MESSAGES, FAN_OUT_WINDOW, null);
+	}
+
+	private void run(ActorRef[] targets, int numMessages, int window, Histogram roundTrips) throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		this.driver.tell(new Driver.RunMessage(targets, numMessages, window, roundTrips, latch), ActorRef.noSender());
+		latch.await();
+	}
+}
@@ -0,0 +1,69 @@
+package de.hpi.akka_tutorial.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.akka_tutorial.primes.MillerRabinEngine;
+import de.hpi.akka_tutorial.primes.SegmentedSieveEngine;
+import de.hpi.akka_tutorial.primes.TrialDivisionEngine;
+
+/**
+ * Measures how long the prime engines take to check a window of numbers at different magnitudes. The workers pick the
+ * engine by the size and the magnitude of their ranges, so these numbers tell where the engines should take over from
+ * each other.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimeEngineBenchmark {
+
+	// The number of numbers that the single-number tests check per operation
+	private static final int WINDOW_SIZE = 256;
+
+	// The number of numbers that the sieve checks per operation
+	private static final int SIEVE_RANGE_SIZE = 1 << 20;
+
+	// The first number of the window; the sieve does not reach beyond 2^50
+	@Param({"1000", "1000000", "1000000000", "1000000000000", "1000000000000000"})
+	public long magnitude;
+
+	private final SegmentedSieveEngine sieveEngine = new SegmentedSieveEngine();
+
+	@Benchmark
+	public int trialDivision() {
+		int numPrimes = 0;
+		for (long number = this.magnitude; number < this.magnitude + WINDOW_SIZE; number++)
+			if (TrialDivisionEngine.isPrime(number))
+				numPrimes++;
+		return numPrimes;
+	}
+
+	@Benchmark
+	public int millerRabin() {
+		int numPrimes = 0;
+		for (long number = this.magnitude; number < this.magnitude + WINDOW_SIZE; number++)
+			if (MillerRabinEngine.isPrime(number))
+				numPrimes++;
+		return numPrimes;
+	}
+
+	@Benchmark
+	public int sieve() {
+		final int[] numPrimes = {0};
+		this.sieveEngine.discover(this.magnitude, this.magnitude + SIEVE_RANGE_SIZE - 1, prime -> numPrimes[0]++);
+		return numPrimes[0];
+	}
+}
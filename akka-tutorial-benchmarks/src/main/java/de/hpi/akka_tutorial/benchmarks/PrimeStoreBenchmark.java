@@ -0,0 +1,111 @@
+package de.hpi.akka_tutorial.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+import de.hpi.akka_tutorial.primes.SegmentedSieveEngine;
+import de.hpi.akka_tutorial.primes.store.BitmapPrimeStore;
+import de.hpi.akka_tutorial.primes.store.PrimeStore;
+import de.hpi.akka_tutorial.primes.store.TreeSetPrimeStore;
+
+/**
+ * Measures the work that the listener does per message: inserting the batches of primes that the master forwards and
+ * answering the queries of the interactive loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimeStoreBenchmark {
+
+	// The store holds the primes up to this number
+	private static final long MAX_NUMBER = 10_000_000;
+
+	// The number of primes per batch, as sent by the workers
+	private static final int BATCH_SIZE = 1000;
+
+	// The number of prepared queries, which are posed round robin
+	private static final int NUM_QUERIES = 1024;
+
+	@Param({"bitmap", "tree-set"})
+	public String store;
+
+	private PrimeStore.Factory primeStoreFactory;
+
+	private final List<PrimeBatch> batches = new ArrayList<>();
+
+	private PrimeStore primes;
+
+	private final long[] rangeMins = new long[NUM_QUERIES], rangeMaxs = new long[NUM_QUERIES], ns = new long[NUM_QUERIES];
+
+	private int nextQuery = 0;
+
+	@Setup
+	public void setUp() {
+		this.primeStoreFactory = this.store.equals("bitmap") ? new BitmapPrimeStore.Factory() : new TreeSetPrimeStore.Factory();
+
+		// Cut the primes into batches as the workers would
+		final PrimeBatch.Builder batchBuilder = new PrimeBatch.Builder(1, BATCH_SIZE);
+		new SegmentedSieveEngine().discover(1, MAX_NUMBER, prime -> {
+			if (batchBuilder.size() >= BATCH_SIZE)
+				this.batches.add(batchBuilder.build(prime - 1));
+			batchBuilder.add(prime);
+		});
+		this.batches.add(batchBuilder.build(MAX_NUMBER));
+
+		// Fill the store for the queries
+		this.primes = this.insert();
+
+		// Prepare random queries
+		final Random random = new Random(42);
+		for (int i = 0; i < NUM_QUERIES; i++) {
+			final long rangeMin = 1 + (long) (random.nextDouble() * MAX_NUMBER);
+			this.rangeMins[i] = rangeMin;
+			this.rangeMaxs[i] = rangeMin + (long) (random.nextDouble() * (MAX_NUMBER - rangeMin));
+			this.ns[i] = 1 + (long) (random.nextDouble() * this.primes.size());
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public PrimeStore insert() {
+		final PrimeStore primes = this.primeStoreFactory.create();
+		for (PrimeBatch batch : this.batches)
+			primes.add(batch);
+		return primes;
+	}
+
+	@Benchmark
+	public long count() {
+		final int query = this.nextQuery++ & (NUM_QUERIES - 1);
+		return this.primes.count(this.rangeMins[query], this.rangeMaxs[query]);
+	}
+
+	@Benchmark
+	public Object nth() {
+		return this.primes.nth(this.ns[this.nextQuery++ & (NUM_QUERIES - 1)]);
+	}
+
+	@Benchmark
+	public boolean contains() {
+		return this.primes.contains(this.rangeMins[this.nextQuery++ & (NUM_QUERIES - 1)]);
+	}
+}
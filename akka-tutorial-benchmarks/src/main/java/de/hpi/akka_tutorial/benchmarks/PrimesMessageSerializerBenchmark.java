@@ -0,0 +1,78 @@
+package de.hpi.akka_tutorial.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+import de.hpi.akka_tutorial.primes.SegmentedSieveEngine;
+import de.hpi.akka_tutorial.remote.actors.Master;
+import de.hpi.akka_tutorial.remote.serialization.PrimesMessageSerializer;
+
+/**
+ * Measures the serialization of the {@link Master.PrimesMessage}s that carry the bulk of the remote traffic from the
+ * workers to the master. The messages are bound to the {@link PrimesMessageSerializer} rather than to Kryo, so this is
+ * the serializer that remoting uses for them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimesMessageSerializerBenchmark {
+
+	// Workers send at most this many primes per message
+	private static final int NUM_PRIMES = 1000;
+
+	// The magnitude of the primes, which determines the gaps between them and thereby the size of their encoding
+	@Param({"1000000", "1000000000000"})
+	public long magnitude;
+
+	private final PrimesMessageSerializer serializer = new PrimesMessageSerializer();
+
+	private Master.PrimesMessage message;
+
+	private byte[] bytes;
+
+	@Setup
+	public void setUp() {
+
+		// Collect the first primes from the magnitude on
+		final PrimeBatch.Builder batchBuilder = new PrimeBatch.Builder(this.magnitude, NUM_PRIMES);
+		final long[] rangeMax = {this.magnitude};
+		new SegmentedSieveEngine().discover(this.magnitude, this.magnitude + 100L * NUM_PRIMES * (long) Math.log(this.magnitude), prime -> {
+			if (batchBuilder.size() < NUM_PRIMES) {
+				batchBuilder.add(prime);
+				rangeMax[0] = prime;
+			}
+		});
+		this.message = new Master.PrimesMessage(42, 7, 3, batchBuilder.build(rangeMax[0]), false, 123_456_789);
+		this.bytes = this.serializer.toBinary(this.message);
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return this.serializer.toBinary(this.message);
+	}
+
+	@Benchmark
+	public Object deserialize() {
+		return this.serializer.fromBinaryJava(this.bytes, Master.PrimesMessage.class);
+	}
+
+	@Benchmark
+	public Object roundTrip() {
+		return this.serializer.fromBinaryJava(this.serializer.toBinary(this.message), Master.PrimesMessage.class);
+	}
+}
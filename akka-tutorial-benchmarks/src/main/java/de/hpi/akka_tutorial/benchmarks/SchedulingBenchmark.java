@@ -0,0 +1,94 @@
+package de.hpi.akka_tutorial.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import de.hpi.akka_tutorial.remote.actors.scheduling.CostModel;
+import de.hpi.akka_tutorial.remote.actors.scheduling.ReactiveSchedulingStrategy;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+/**
+ * Measures the decisions of the {@link ReactiveSchedulingStrategy}, which the master makes for every completed subquery:
+ * Each operation completes the oldest subquery of the next worker, so that the strategy assigns a new subquery to it. The
+ * workers discard the subqueries and report the target duration as compute time, so that the subqueries keep their size
+ * and the query never ends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulingBenchmark {
+
+	/**
+	 * A stand-in for workers and master that discards all messages.
+	 */
+	public static class Sink extends AbstractActor {
+
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder().matchAny(message -> {}).build();
+		}
+	}
+
+	@Param({"10", "1000", "10000"})
+	public int numWorkers;
+
+	private ActorSystem actorSystem;
+
+	private ActorRef[] workers;
+
+	private ReactiveSchedulingStrategy strategy;
+
+	private int nextWorker = 0;
+
+	@Setup
+	public void setUp() {
+		this.actorSystem = ActorSystem.create("SchedulingBenchmark");
+		this.strategy = new ReactiveSchedulingStrategy.Factory().create(this.actorSystem.actorOf(Props.create(Sink.class)));
+		this.workers = new ActorRef[this.numWorkers];
+		for (int i = 0; i < this.numWorkers; i++) {
+			this.workers[i] = this.actorSystem.actorOf(Props.create(Sink.class));
+			this.strategy.addWorker(this.workers[i]);
+		}
+		this.strategy.schedule(0, 1, Long.MAX_VALUE / 2);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.actorSystem.terminate();
+		Await.ready(this.actorSystem.whenTerminated(), Duration.Inf());
+	}
+
+	@Benchmark
+	public ReactiveSchedulingStrategy finishAndAssign() {
+		final ActorRef worker = this.workers[this.nextWorker];
+		this.nextWorker = (this.nextWorker + 1) % this.numWorkers;
+		this.strategy.finished(0, worker, CostModel.DEFAULT_TARGET_NANOS);
+		return this.strategy;
+	}
+
+	@Benchmark
+	public ReactiveSchedulingStrategy tick() {
+		this.strategy.tick();
+		return this.strategy;
+	}
+}
@@ -2,15 +2,22 @@ package de.hpi.akka_tutorial;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
+import de.hpi.akka_tutorial.primes.store.BitmapPrimeStore;
+import de.hpi.akka_tutorial.primes.store.PrimeStore;
+import de.hpi.akka_tutorial.primes.store.TreeSetPrimeStore;
 import de.hpi.akka_tutorial.remote.Calculator;
 import de.hpi.akka_tutorial.remote.actors.scheduling.ReactiveSchedulingStrategy;
 import de.hpi.akka_tutorial.remote.actors.scheduling.RoundRobinSchedulingStrategy;
 import de.hpi.akka_tutorial.remote.actors.scheduling.SchedulingStrategy;
+import de.hpi.akka_tutorial.remote.actors.scheduling.WeightedSchedulingStrategy;
+import de.hpi.akka_tutorial.remote.actors.scheduling.WorkStealingSchedulingStrategy;
 
 public class Main {
 
@@ -67,13 +74,38 @@ public class Main {
             case "round-robin":
                 schedulingStrategyFactory = new RoundRobinSchedulingStrategy.Factory();
                 break;
+            case "work-stealing":
+                schedulingStrategyFactory = new WorkStealingSchedulingStrategy.Factory();
+                break;
+            case "weighted":
+                schedulingStrategyFactory = new WeightedSchedulingStrategy.Factory();
+                break;
             case "reactive":
-                schedulingStrategyFactory = new ReactiveSchedulingStrategy.Factory();
+                if (masterCommand.prefetchDepth < 1)
+                    throw new ParameterException(String.format("Invalid prefetch depth: %d", masterCommand.prefetchDepth));
+                if (!(masterCommand.maxClientShare > 0 && masterCommand.maxClientShare <= 1))
+                    throw new ParameterException(String.format("Invalid client quota: %s", masterCommand.maxClientShare));
+                if (masterCommand.minLeaseMillis < 1)
+                    throw new ParameterException(String.format("Invalid lease: %d", masterCommand.minLeaseMillis));
+                schedulingStrategyFactory = new ReactiveSchedulingStrategy.Factory(
+                        masterCommand.prefetchDepth, masterCommand.maxClientShare, masterCommand.minLeaseMillis);
                 break;
             default:
                 throw new ParameterException(String.format("Unknown scheduling strategy: %s", masterCommand.schedulingStrategy));
         }
-        Calculator.runMaster(masterCommand.host, masterCommand.port, schedulingStrategyFactory, masterCommand.numLocalWorkers);
+        PrimeStore.Factory primeStoreFactory;
+        switch (masterCommand.primeStore) {
+            case "bitmap":
+                primeStoreFactory = new BitmapPrimeStore.Factory();
+                break;
+            case "tree-set":
+                primeStoreFactory = new TreeSetPrimeStore.Factory();
+                break;
+            default:
+                throw new ParameterException(String.format("Unknown prime store: %s", masterCommand.primeStore));
+        }
+        Path primesFile = masterCommand.primesFile == null ? null : Paths.get(masterCommand.primesFile);
+        Calculator.runMaster(masterCommand.host, masterCommand.port, masterCommand.metricsPort, schedulingStrategyFactory, primeStoreFactory, primesFile, masterCommand.numLocalWorkers);
     }
 
     /**
@@ -81,8 +113,10 @@ public class Main {
      *
      * @param slaveCommand defines the parameters of the slave
      */
-    private static void startSlave(SlaveCommand slaveCommand) {
-        Calculator.runSlave(slaveCommand.host, slaveCommand.port, slaveCommand.getMasterHost(), slaveCommand.getMasterPort());
+    private static void startSlave(SlaveCommand slaveCommand) throws ParameterException {
+        if (slaveCommand.numWorkers < 1)
+            throw new ParameterException(String.format("Invalid number of workers: %d", slaveCommand.numWorkers));
+        Calculator.runSlave(slaveCommand.host, slaveCommand.port, slaveCommand.metricsPort, slaveCommand.getMasterHost(), slaveCommand.getMasterPort(), slaveCommand.numWorkers);
     }
 
     /**
@@ -101,14 +135,44 @@ public class Main {
         /**
          * Defines the number of workers that this actor system should spawn.
          */
-        @Parameter(names = {"-w", "--workers"}, description = "number of workers to start locally")
+        @Parameter(names = {"-w", "--workers"}, description = "number of workers to start locally; fewer workers than cores split the cores among them")
         int numLocalWorkers = 0;
 
         /**
          * Defines the scheduling strategy to be used in the master.
          */
-        @Parameter(names = {"-s", "--scheduler"}, description = "a scheduling strategy (round-robin or reactive)")
+        @Parameter(names = {"-s", "--scheduler"}, description = "a scheduling strategy (round-robin, weighted, work-stealing or reactive)")
         String schedulingStrategy = "reactive";
+
+        /**
+         * Defines how many subqueries the reactive scheduling strategy keeps in flight per worker.
+         */
+        @Parameter(names = {"--prefetch"}, description = "number of subqueries in flight per worker (reactive scheduler only)")
+        int prefetchDepth = ReactiveSchedulingStrategy.DEFAULT_PREFETCH_DEPTH;
+
+        /**
+         * Defines the share of the worker slots that the reactive scheduling strategy grants a single client while other clients wait.
+         */
+        @Parameter(names = {"--client-quota"}, description = "share of the worker slots that a single client may occupy while others wait (reactive scheduler only)")
+        double maxClientShare = ReactiveSchedulingStrategy.DEFAULT_MAX_CLIENT_SHARE;
+
+        /**
+         * Defines how long a worker may work on a subquery without reporting progress before the reactive scheduling strategy reschedules it.
+         */
+        @Parameter(names = {"--lease"}, description = "minimum time in ms that a worker may spend on a subquery without progress before it is rescheduled (reactive scheduler only)")
+        long minLeaseMillis = ReactiveSchedulingStrategy.DEFAULT_MIN_LEASE_MILLIS;
+
+        /**
+         * Defines the data structure that the listener collects the primes in.
+         */
+        @Parameter(names = {"--store"}, description = "a prime store (bitmap or tree-set)")
+        String primeStore = "bitmap";
+
+        /**
+         * Defines the file to reload primes from and to persist new primes to.
+         */
+        @Parameter(names = {"--primes-file"}, description = "file to reload and persist the primes (none by default)")
+        String primesFile = null;
     }
 
     /**
@@ -130,6 +194,12 @@ public class Main {
         @Parameter(names = {"-m", "--master"}, description = "host[:port] of the master", required = true)
         String master;
 
+        /**
+         * Defines the number of workers that the master should deploy to this actor system.
+         */
+        @Parameter(names = {"-w", "--workers"}, description = "number of workers to host (defaults to the number of cores); fewer workers than cores split the cores among them")
+        int numWorkers = Runtime.getRuntime().availableProcessors();
+
         String getMasterHost() {
             int colonIndex = this.master.lastIndexOf(':');
             if (colonIndex == -1) 
@@ -179,6 +249,12 @@ public class Main {
         @Parameter(names = {"-p", "--port"}, description = "port to bind against")
         int port = this.getDefaultPort();
 
+        /**
+         * Defines the local port of the HTTP endpoint that exposes the metrics.
+         */
+        @Parameter(names = {"--metrics-port"}, description = "port on localhost to serve the metrics via HTTP on (none by default; JMX is always available)")
+        int metricsPort = 0;
+
         /**
          * Provide the default port.
          *
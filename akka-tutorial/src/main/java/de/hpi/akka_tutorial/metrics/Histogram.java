@@ -0,0 +1,87 @@
+package de.hpi.akka_tutorial.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds or message sizes in bytes, in the fashion of
+ * HdrHistogram: Each power of two is split into a fixed number of linear sub-buckets, so that the histogram covers all
+ * {@code long} values with a bounded relative error in a few kilobytes. Values can be recorded by any thread without
+ * locking.
+ */
+public class Histogram {
+
+	// Each power of two is split into this many sub-buckets, which bounds the relative error by 1/32
+	private static final int SUB_BUCKET_BITS = 5, NUM_SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	// The number of values per bucket
+	private final AtomicLongArray counts = new AtomicLongArray((Long.SIZE - SUB_BUCKET_BITS) * NUM_SUB_BUCKETS);
+
+	private final LongAdder count = new LongAdder(), sum = new LongAdder();
+
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a value.
+	 *
+	 * @param value the value; negative values are recorded as {@code 0}
+	 */
+	public void record(long value) {
+		value = Math.max(value, 0);
+		this.counts.incrementAndGet(bucketIndex(value));
+		this.count.increment();
+		this.sum.add(value);
+		this.max.accumulateAndGet(value, Math::max);
+	}
+
+	public long count() {
+		return this.count.sum();
+	}
+
+	public long max() {
+		return this.max.get();
+	}
+
+	public double mean() {
+		final long count = this.count();
+		return count == 0 ? 0 : (double) this.sum.sum() / count;
+	}
+
+	/**
+	 * Provide the value below or at which the given percentage of the recorded values lie.
+	 *
+	 * @param percentile the percentage in {@code [0, 100]}
+	 * @return the largest value that is equivalent to the percentile within the histogram's precision or {@code 0} if no
+	 *         values have been recorded
+	 */
+	public long percentile(double percentile) {
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count()));
+		long numValues = 0;
+		for (int index = 0; index < this.counts.length(); index++) {
+			numValues += this.counts.get(index);
+			if (numValues >= rank)
+				return Math.min(highestEquivalentValue(index), this.max());
+		}
+		return this.max();
+	}
+
+	static int bucketIndex(long value) {
+
+		// Small values have buckets of their own
+		if (value < 2 * NUM_SUB_BUCKETS)
+			return (int) value;
+
+		// Larger values keep their leading bits only
+		final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * NUM_SUB_BUCKETS + (int) (value >>> shift) - NUM_SUB_BUCKETS;
+	}
+
+	static long highestEquivalentValue(int index) {
+		if (index < 2 * NUM_SUB_BUCKETS)
+			return index;
+		final int shift = index / NUM_SUB_BUCKETS - 1;
+		final long leadingBits = index % NUM_SUB_BUCKETS + NUM_SUB_BUCKETS;
+		return ((leadingBits + 1) << shift) - 1;
+	}
+}
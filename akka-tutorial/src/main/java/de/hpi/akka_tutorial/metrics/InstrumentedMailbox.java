@@ -0,0 +1,102 @@
+package de.hpi.akka_tutorial.metrics;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.typesafe.config.Config;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.ProducesMessageQueue;
+import akka.dispatch.UnboundedMessageQueueSemantics;
+import scala.Option;
+
+/**
+ * An unbounded mailbox that counts the messages that it holds and exposes the count as a gauge of the default
+ * {@link Metrics}, so that the depth of an actor's mailbox can be monitored without reaching into Akka's internals. The
+ * name of the gauge is configured with the {@code gauge} key of the mailbox configuration, e.g.:
+ *
+ * <pre>
+ * master-mailbox {
+ *   mailbox-type = "de.hpi.akka_tutorial.metrics.InstrumentedMailbox"
+ *   gauge = "master_mailbox_depth"
+ * }
+ * </pre>
+ */
+public class InstrumentedMailbox implements MailboxType, ProducesMessageQueue<InstrumentedMailbox.MessageQueue> {
+
+	/**
+	 * The message queue of an {@link InstrumentedMailbox}.
+	 */
+	public static class MessageQueue implements akka.dispatch.MessageQueue, UnboundedMessageQueueSemantics {
+
+		private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+
+		// Counts the messages, because the size of the queue is expensive to compute
+		private final AtomicInteger numMessages = new AtomicInteger();
+
+		private final String gauge;
+
+		MessageQueue(final String gauge) {
+			this.gauge = gauge;
+		}
+
+		@Override
+		public void enqueue(ActorRef receiver, Envelope handle) {
+
+			// Count before enqueuing, so that a concurrent dequeue never drives the count below zero
+			this.numMessages.incrementAndGet();
+			this.queue.offer(handle);
+		}
+
+		@Override
+		public Envelope dequeue() {
+			final Envelope handle = this.queue.poll();
+			if (handle != null)
+				this.numMessages.decrementAndGet();
+			return handle;
+		}
+
+		@Override
+		public int numberOfMessages() {
+			return this.numMessages.get();
+		}
+
+		@Override
+		public boolean hasMessages() {
+			return !this.queue.isEmpty();
+		}
+
+		@Override
+		public void cleanUp(ActorRef owner, akka.dispatch.MessageQueue deadLetters) {
+
+			// Hand the remaining messages to the dead letters and stop exposing the depth of the mailbox
+			Envelope handle;
+			while ((handle = this.dequeue()) != null)
+				deadLetters.enqueue(owner, handle);
+			Metrics.getDefault().remove(this.gauge);
+		}
+	}
+
+	private final String gauge;
+
+	/**
+	 * Construct a new {@link InstrumentedMailbox} object. Akka calls this constructor by reflection.
+	 *
+	 * @param settings the settings of the actor system
+	 * @param config   the configuration of the mailbox
+	 */
+	public InstrumentedMailbox(final ActorSystem.Settings settings, final Config config) {
+		this.gauge = config.getString("gauge");
+	}
+
+	@Override
+	public akka.dispatch.MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+		final MessageQueue queue = new MessageQueue(this.gauge);
+		Metrics.getDefault().gauge(this.gauge, queue::numberOfMessages);
+		return queue;
+	}
+}
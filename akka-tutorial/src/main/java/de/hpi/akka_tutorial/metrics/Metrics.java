@@ -0,0 +1,294 @@
+package de.hpi.akka_tutorial.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * The metrics registry collects the histograms, counters, and gauges of the actors in this JVM. It exposes a snapshot of
+ * all metrics as the attributes of a JMX MBean and as plain text lines of the form {@code <name> <value>} via HTTP on
+ * the loopback interface, so that monitoring tools can scrape them. Names follow the Prometheus conventions, e.g.,
+ * {@code worker_subquery_nanos{worker="..."}}.
+ */
+public class Metrics {
+
+	// The name of the MBean that exposes the metrics
+	public static final String OBJECT_NAME = "de.hpi.akka_tutorial:type=Metrics";
+
+	// The path of the HTTP scrape endpoint
+	public static final String HTTP_PATH = "/metrics";
+
+	// The percentiles that are exposed for each histogram
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	private static final Metrics DEFAULT = new Metrics();
+
+	/**
+	 * Provide the metrics registry of this JVM.
+	 *
+	 * @return the registry
+	 */
+	public static Metrics getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Create the name of a metric that is specific to some entity, such as a worker.
+	 *
+	 * @param name       the name of the metric
+	 * @param labelName  the kind of the entity, e.g., {@code worker}
+	 * @param labelValue the entity
+	 * @return the name of the metric for the entity
+	 */
+	public static String name(String name, String labelName, String labelValue) {
+		return String.format("%s{%s=\"%s\"}", name, labelName, labelValue.replace("\\", "\\\\").replace("\"", "\\\""));
+	}
+
+	// The metrics by their names
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+	private final ConcurrentMap<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+	private final ConcurrentMap<String, DoubleSupplier> gauges = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Construct a new {@link Metrics} object, which already measures the heap, the garbage collections, and the
+	 * allocation rate of the JVM.
+	 */
+	public Metrics() {
+		this.gauge("jvm_heap_used_bytes", () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+		this.gauge("jvm_gc_count", () -> ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum());
+		this.gauge("jvm_gc_millis", () -> ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum());
+		this.gauge("jvm_allocation_bytes_per_second", new AllocationRate());
+	}
+
+	/**
+	 * Measures the bytes that the threads of this JVM allocate per second between two readings, i.e., the rate at which
+	 * the garbage collector gets work.
+	 */
+	private static class AllocationRate implements DoubleSupplier {
+
+		private long lastNanos = System.nanoTime(), lastAllocatedBytes = allocatedBytes();
+
+		private static long allocatedBytes() {
+			if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+				return 0;
+			final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			if (!threadMXBean.isThreadAllocatedMemorySupported() || !threadMXBean.isThreadAllocatedMemoryEnabled())
+				return 0;
+			long allocatedBytes = 0;
+			for (long threadAllocatedBytes : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds()))
+				allocatedBytes += Math.max(threadAllocatedBytes, 0);
+			return allocatedBytes;
+		}
+
+		@Override
+		public synchronized double getAsDouble() {
+			final long nanos = System.nanoTime(), allocatedBytes = allocatedBytes();
+
+			// Threads that terminated take their allocations with them, so the sum may shrink
+			final double rate = nanos > this.lastNanos ? Math.max(0, allocatedBytes - this.lastAllocatedBytes) * 1e9 / (nanos - this.lastNanos) : 0;
+			this.lastNanos = nanos;
+			this.lastAllocatedBytes = allocatedBytes;
+			return rate;
+		}
+	}
+
+	/**
+	 * Provide the histogram with the given name and create it if necessary.
+	 *
+	 * @param name the name of the histogram
+	 * @return the histogram
+	 */
+	public Histogram histogram(String name) {
+		return this.histograms.computeIfAbsent(name, key -> new Histogram());
+	}
+
+	/**
+	 * Provide the counter with the given name and create it if necessary.
+	 *
+	 * @param name the name of the counter
+	 * @return the counter
+	 */
+	public LongAdder counter(String name) {
+		return this.counters.computeIfAbsent(name, key -> new LongAdder());
+	}
+
+	/**
+	 * Register a gauge, which is read whenever the metrics are exposed, and replace any gauge of the same name. The gauge
+	 * must be safe to read from any thread.
+	 *
+	 * @param name  the name of the gauge
+	 * @param gauge provides the current value
+	 */
+	public void gauge(String name, DoubleSupplier gauge) {
+		this.gauges.put(name, gauge);
+	}
+
+	/**
+	 * Drop a metric, e.g., because the entity that it measures is gone.
+	 *
+	 * @param name the name of the metric
+	 */
+	public void remove(String name) {
+		this.histograms.remove(name);
+		this.counters.remove(name);
+		this.gauges.remove(name);
+	}
+
+	/**
+	 * Read all metrics. Histograms are expanded into their count, mean, maximum, and percentiles.
+	 *
+	 * @return the values of the metrics by their names
+	 */
+	public SortedMap<String, Double> snapshot() {
+		final SortedMap<String, Double> snapshot = new TreeMap<>();
+		this.counters.forEach((name, counter) -> snapshot.put(name, (double) counter.sum()));
+		this.gauges.forEach((name, gauge) -> snapshot.put(name, gauge.getAsDouble()));
+		this.histograms.forEach((name, histogram) -> {
+			snapshot.put(suffixed(name, "count"), (double) histogram.count());
+			snapshot.put(suffixed(name, "mean"), histogram.mean());
+			snapshot.put(suffixed(name, "max"), (double) histogram.max());
+			for (double percentile : PERCENTILES)
+				snapshot.put(suffixed(name, "p" + String.valueOf(percentile).replace(".0", "").replace('.', '_')), (double) histogram.percentile(percentile));
+		});
+		return snapshot;
+	}
+
+	private static String suffixed(String name, String suffix) {
+
+		// Put the suffix in front of the labels, if any
+		final int labelsIndex = name.indexOf('{');
+		return labelsIndex < 0 ? name + "_" + suffix : name.substring(0, labelsIndex) + "_" + suffix + name.substring(labelsIndex);
+	}
+
+	/**
+	 * Format all metrics as plain text with one metric per line.
+	 *
+	 * @return the text
+	 */
+	public String toText() {
+		final StringBuilder text = new StringBuilder();
+		for (Map.Entry<String, Double> metric : this.snapshot().entrySet()) {
+			final double value = metric.getValue();
+			text.append(metric.getKey()).append(' ');
+			if (value == Math.rint(value) && !Double.isInfinite(value))
+				text.append((long) value);
+			else
+				text.append(value);
+			text.append('\n');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Expose the metrics as the attributes of an MBean on the platform MBean server unless that has happened before.
+	 *
+	 * @throws JMException if the MBean cannot be registered
+	 */
+	public void registerMBean() throws JMException {
+		final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		final ObjectName objectName = new ObjectName(OBJECT_NAME);
+		if (!mBeanServer.isRegistered(objectName))
+			mBeanServer.registerMBean(new MetricsMBean(), objectName);
+	}
+
+	/**
+	 * Expose the metrics via HTTP on the loopback interface.
+	 *
+	 * @param port the port to listen on
+	 * @return the started server, which the caller should stop eventually
+	 * @throws IOException if the server cannot be started
+	 */
+	public HttpServer startHttpServer(int port) throws IOException {
+		final HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		httpServer.createContext(HTTP_PATH, exchange -> {
+			final byte[] body = this.toText().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream responseBody = exchange.getResponseBody()) {
+				responseBody.write(body);
+			}
+		});
+
+		// Serve the scrapes with a single daemon thread, so that the server does not keep the JVM alive
+		httpServer.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, "metrics-http");
+			thread.setDaemon(true);
+			return thread;
+		}));
+		httpServer.start();
+		return httpServer;
+	}
+
+	/**
+	 * Exposes a snapshot of the metrics as read-only attributes.
+	 */
+	private class MetricsMBean implements DynamicMBean {
+
+		@Override
+		public Object getAttribute(String attribute) throws AttributeNotFoundException {
+			final Double value = Metrics.this.snapshot().get(attribute);
+			if (value == null)
+				throw new AttributeNotFoundException(attribute);
+			return value;
+		}
+
+		@Override
+		public AttributeList getAttributes(String[] attributes) {
+			final SortedMap<String, Double> snapshot = Metrics.this.snapshot();
+			final AttributeList attributeList = new AttributeList();
+			for (String attribute : attributes)
+				if (snapshot.containsKey(attribute))
+					attributeList.add(new Attribute(attribute, snapshot.get(attribute)));
+			return attributeList;
+		}
+
+		@Override
+		public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+			throw new AttributeNotFoundException(String.format("%s is read-only.", attribute.getName()));
+		}
+
+		@Override
+		public AttributeList setAttributes(AttributeList attributes) {
+			return new AttributeList();
+		}
+
+		@Override
+		public Object invoke(String actionName, Object[] params, String[] signature) {
+			throw new UnsupportedOperationException(actionName);
+		}
+
+		@Override
+		public MBeanInfo getMBeanInfo() {
+
+			// The metrics come and go with the workers, so describe the ones that exist right now
+			final MBeanAttributeInfo[] attributeInfos = Metrics.this.snapshot().keySet().stream()
+					.map(name -> new MBeanAttributeInfo(name, Double.class.getName(), name, true, false, false))
+					.toArray(MBeanAttributeInfo[]::new);
+			return new MBeanInfo(Metrics.class.getName(), "Metrics of the prime calculation", attributeInfos, null, null, null);
+		}
+	}
+}
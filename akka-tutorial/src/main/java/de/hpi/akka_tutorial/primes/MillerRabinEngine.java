@@ -0,0 +1,165 @@
+package de.hpi.akka_tutorial.primes;
+
+import java.util.function.LongConsumer;
+
+/**
+ * This engine tests every candidate of a range with a deterministic Miller-Rabin test. The fixed witness set below is
+ * known to classify all 64 bit numbers correctly, and the modular arithmetic runs in Montgomery form so that no division
+ * is needed inside the exponentiation. It is the engine of choice for narrow ranges of large numbers, where neither a
+ * sieve nor trial division can amortize their cost per number.
+ */
+public class MillerRabinEngine implements PrimeEngine {
+
+	// Numbers below this bound are checked by trial division, which is faster for them
+	private static final long TRIAL_DIVISION_BOUND = 1L << 16;
+
+	// Witnesses that make the test deterministic for all n < 2^64 (Jim Sinclair's set)
+	private static final long[] WITNESSES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+
+	// Small primes whose multiples are rejected before running the actual test
+	private static final int[] SMALL_PRIMES = {3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37, 41, 43, 47, 53, 59, 61};
+
+	@Override
+	public void discover(long rangeMin, long rangeMax, LongConsumer sink) {
+		for (long i = rangeMin; i <= rangeMax; i++) {
+			if (isPrime(i))
+				sink.accept(i);
+
+			// Avoid an overflow if the range ends at the largest long value
+			if (i == Long.MAX_VALUE)
+				break;
+		}
+	}
+
+	/**
+	 * Test a single number for primality.
+	 *
+	 * @param n the number to test
+	 * @return whether {@code n} is considered a prime
+	 */
+	public static boolean isPrime(long n) {
+
+		// Small numbers (and the special cases) are handled by trial division
+		if (n < TRIAL_DIVISION_BOUND)
+			return TrialDivisionEngine.isPrime(n);
+
+		// Check if n is an even number
+		if ((n & 1) == 0)
+			return false;
+
+		// Reject multiples of small primes quickly
+		for (int p : SMALL_PRIMES)
+			if (n % p == 0)
+				return false;
+
+		// Decompose n - 1 = d * 2^s with an odd d
+		final long nMinusOne = n - 1;
+		final int s = Long.numberOfTrailingZeros(nMinusOne);
+		final long d = nMinusOne >>> s;
+
+		// Prepare the Montgomery arithmetic for the modulus n
+		final Montgomery montgomery = new Montgomery(n);
+		final long one = montgomery.one;
+		final long minusOne = n - one;
+
+		// Run the strong probable prime test for each witness
+		witnessLoop:
+		for (long witness : WITNESSES) {
+			final long a = witness % n;
+			if (a == 0)
+				continue;
+
+			long x = montgomery.pow(montgomery.toMontgomery(a), d);
+			if (x == one || x == minusOne)
+				continue;
+			for (int r = 1; r < s; r++) {
+				x = montgomery.multiply(x, x);
+				if (x == minusOne)
+					continue witnessLoop;
+				if (x == one)
+					return false;
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Montgomery arithmetic for an odd modulus {@code n < 2^63} with {@code R = 2^64}.
+	 */
+	private static final class Montgomery {
+
+		private final long n;
+
+		// -n^-1 mod 2^64
+		private final long nPrime;
+
+		// R mod n, i.e., the Montgomery form of 1
+		private final long one;
+
+		// R^2 mod n, used to convert numbers into the Montgomery form
+		private final long rSquared;
+
+		Montgomery(long n) {
+			this.n = n;
+
+			// Newton's iteration doubles the number of correct low bits of the inverse with each step
+			long inverse = n;
+			for (int i = 0; i < 5; i++)
+				inverse *= 2 - n * inverse;
+			this.nPrime = -inverse;
+
+			this.one = Long.remainderUnsigned(-1L, n) + 1;
+			long r = this.one;
+			for (int i = 0; i < Long.SIZE; i++)
+				r = this.addModN(r, r);
+			this.rSquared = r;
+		}
+
+		long toMontgomery(long a) {
+			return this.multiply(a, this.rSquared);
+		}
+
+		/**
+		 * Calculate {@code a * b * R^-1 mod n} for {@code a, b < n}.
+		 */
+		long multiply(long a, long b) {
+			final long low = a * b;
+			final long high = unsignedMultiplyHigh(a, b);
+			final long m = low * this.nPrime;
+			final long mnHigh = unsignedMultiplyHigh(m, this.n);
+
+			// low + m * n is divisible by 2^64; its lower half carries over iff low is not zero
+			final long result = high + mnHigh + (low != 0 ? 1 : 0);
+			return Long.compareUnsigned(result, this.n) >= 0 ? result - this.n : result;
+		}
+
+		long pow(long base, long exponent) {
+			long result = this.one;
+			while (exponent != 0) {
+				if ((exponent & 1) != 0)
+					result = this.multiply(result, base);
+				base = this.multiply(base, base);
+				exponent >>>= 1;
+			}
+			return result;
+		}
+
+		private long addModN(long a, long b) {
+			final long sum = a + b;
+			return Long.compareUnsigned(sum, this.n) >= 0 ? sum - this.n : sum;
+		}
+	}
+
+	/**
+	 * Calculate the upper 64 bits of the unsigned 128 bit product {@code x * y}.
+	 */
+	static long unsignedMultiplyHigh(long x, long y) {
+		final long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32;
+		final long y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+		final long w0 = x0 * y0;
+		final long t = x1 * y0 + (w0 >>> 32);
+		final long w1 = (t & 0xFFFFFFFFL) + x0 * y1;
+		return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+	}
+}
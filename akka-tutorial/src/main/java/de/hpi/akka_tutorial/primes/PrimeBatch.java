@@ -0,0 +1,242 @@
+package de.hpi.akka_tutorial.primes;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+import de.hpi.akka_tutorial.util.Varint;
+
+/**
+ * An immutable batch of primes that contains all primes of a range of numbers in ascending order. The primes are kept
+ * in a primitive array; on the wire, they are delta-encoded as varints (see {@link #encode(ByteBuffer)}).
+ */
+public final class PrimeBatch implements Serializable {
+
+	private static final long serialVersionUID = -2302816489587373744L;
+
+	private static final long[] NO_PRIMES = new long[0];
+
+	// The range of numbers that was checked to obtain this batch (both inclusive)
+	private long rangeMin, rangeMax;
+
+	// The primes in ascending order
+	private long[] primes;
+
+	/**
+	 * Construct a new {@link PrimeBatch} object.
+	 *
+	 * @param rangeMin first number of the range that was checked for primes (inclusive)
+	 * @param rangeMax last number of the range that was checked for primes (inclusive)
+	 * @param primes   all primes in the range in ascending order; the array is copied
+	 */
+	public PrimeBatch(final long rangeMin, final long rangeMax, final long... primes) {
+		this(rangeMin, rangeMax, primes.length == 0 ? NO_PRIMES : primes.clone(), true);
+	}
+
+	private PrimeBatch(final long rangeMin, final long rangeMax, final long[] primes, boolean validate) {
+		this.rangeMin = rangeMin;
+		this.rangeMax = rangeMax;
+		this.primes = primes;
+		if (validate) {
+			for (int i = 0; i < primes.length; i++)
+				if (primes[i] < rangeMin || primes[i] > rangeMax || (i > 0 && primes[i] <= primes[i - 1]))
+					throw new IllegalArgumentException(String.format("Illegal prime %,d at position %d of [%,d..%,d].", primes[i], i, rangeMin, rangeMax));
+		}
+	}
+
+	/**
+	 * For serialization/deserialization only.
+	 */
+	@SuppressWarnings("unused")
+	private PrimeBatch() {
+	}
+
+	public long getRangeMin() {
+		return this.rangeMin;
+	}
+
+	public long getRangeMax() {
+		return this.rangeMax;
+	}
+
+	public int size() {
+		return this.primes.length;
+	}
+
+	public boolean isEmpty() {
+		return this.primes.length == 0;
+	}
+
+	/**
+	 * Provide the prime at the given position.
+	 *
+	 * @param index the position of the prime in this batch
+	 * @return the prime
+	 */
+	public long get(int index) {
+		return this.primes[index];
+	}
+
+	public void forEach(LongConsumer consumer) {
+		for (long prime : this.primes)
+			consumer.accept(prime);
+	}
+
+	public LongStream stream() {
+		return Arrays.stream(this.primes);
+	}
+
+	public long[] toArray() {
+		return this.primes.clone();
+	}
+
+	/**
+	 * Cut out the primes of a part of this batch's range.
+	 *
+	 * @param sliceMin first number of the part (inclusive); it must not be below the range of this batch
+	 * @param sliceMax last number of the part (inclusive); it must not be above the range of this batch
+	 * @return a batch of the primes in the part
+	 */
+	public PrimeBatch slice(final long sliceMin, final long sliceMax) {
+		if (sliceMin < this.rangeMin || sliceMax > this.rangeMax)
+			throw new IllegalArgumentException(String.format("[%,d..%,d] is not part of [%,d..%,d].", sliceMin, sliceMax, this.rangeMin, this.rangeMax));
+
+		// Find the primes by binary search, which yields the insertion point of numbers that are not in the batch
+		int fromIndex = Arrays.binarySearch(this.primes, sliceMin);
+		if (fromIndex < 0)
+			fromIndex = -fromIndex - 1;
+		int toIndex = Arrays.binarySearch(this.primes, sliceMax);
+		toIndex = toIndex < 0 ? -toIndex - 1 : toIndex + 1;
+		final long[] primes = fromIndex >= toIndex ? NO_PRIMES : Arrays.copyOfRange(this.primes, fromIndex, toIndex);
+		return new PrimeBatch(sliceMin, sliceMax, primes, false);
+	}
+
+	/**
+	 * Calculate the number of bytes that {@link #encode(ByteBuffer)} writes for this batch.
+	 *
+	 * @return the number of bytes
+	 */
+	public int encodedSize() {
+		int size = Varint.sizeOf(Varint.zigZag(this.rangeMin))
+				+ Varint.sizeOf(this.rangeMax - this.rangeMin)
+				+ Varint.sizeOf(this.primes.length);
+		long previous = this.rangeMin;
+		for (long prime : this.primes) {
+			size += Varint.sizeOf(prime - previous);
+			previous = prime;
+		}
+		return size;
+	}
+
+	/**
+	 * Write this batch into a buffer. Each prime is stored as varint of its distance to its predecessor, which usually
+	 * takes a single byte instead of the eight bytes of a {@code long}.
+	 *
+	 * @param buffer the buffer to write to; it must have at least {@link #encodedSize()} remaining bytes
+	 */
+	public void encode(ByteBuffer buffer) {
+		Varint.write(buffer, Varint.zigZag(this.rangeMin));
+		Varint.write(buffer, this.rangeMax - this.rangeMin);
+		Varint.write(buffer, this.primes.length);
+		long previous = this.rangeMin;
+		for (long prime : this.primes) {
+			Varint.write(buffer, prime - previous);
+			previous = prime;
+		}
+	}
+
+	/**
+	 * Read a batch that was written by {@link #encode(ByteBuffer)}.
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the decoded batch
+	 */
+	public static PrimeBatch decode(ByteBuffer buffer) {
+		final long rangeMin = Varint.unZigZag(Varint.read(buffer));
+		final long rangeMax = rangeMin + Varint.read(buffer);
+		final long size = Varint.read(buffer);
+
+		// Each prime takes at least one byte, which bounds the number of primes before anything is allocated
+		if (size < 0 || size > buffer.remaining())
+			throw new IllegalArgumentException(String.format("The batch claims %d primes, but only %d bytes remain.", size, buffer.remaining()));
+		final long[] primes = size == 0 ? NO_PRIMES : new long[(int) size];
+		long previous = rangeMin;
+		for (int i = 0; i < size; i++) {
+			previous += Varint.read(buffer);
+			primes[i] = previous;
+		}
+		return new PrimeBatch(rangeMin, rangeMax, primes, false);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+		final PrimeBatch that = (PrimeBatch) o;
+		return this.rangeMin == that.rangeMin &&
+				this.rangeMax == that.rangeMax &&
+				Arrays.equals(this.primes, that.primes);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * Long.hashCode(this.rangeMin) + Long.hashCode(this.rangeMax)) + Arrays.hashCode(this.primes);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%,d..%,d: %,d primes]", this.getClass().getSimpleName(), this.rangeMin, this.rangeMax, this.primes.length);
+	}
+
+	/**
+	 * Collects primes in ascending order and cuts them into consecutive {@link PrimeBatch}es.
+	 */
+	public static class Builder {
+
+		// The buffer for the primes of the current batch
+		private long[] buffer;
+
+		private int size = 0;
+
+		// The first number of the range of the current batch
+		private long rangeMin;
+
+		/**
+		 * Construct a new {@link Builder} object.
+		 *
+		 * @param rangeMin the first number of the range of the first batch
+		 * @param capacity the expected number of primes per batch
+		 */
+		public Builder(final long rangeMin, final int capacity) {
+			this.rangeMin = rangeMin;
+			this.buffer = new long[Math.max(1, capacity)];
+		}
+
+		public Builder add(long prime) {
+			if (this.size == this.buffer.length)
+				this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+			this.buffer[this.size++] = prime;
+			return this;
+		}
+
+		public int size() {
+			return this.size;
+		}
+
+		/**
+		 * Create a batch with all primes added so far and start the next batch right after its range.
+		 *
+		 * @param rangeMax the last number of the range that the new batch covers (inclusive)
+		 * @return the new batch
+		 */
+		public PrimeBatch build(long rangeMax) {
+			final PrimeBatch batch = new PrimeBatch(this.rangeMin, rangeMax, this.size == 0 ? NO_PRIMES : Arrays.copyOf(this.buffer, this.size), false);
+			this.rangeMin = rangeMax + 1;
+			this.size = 0;
+			return batch;
+		}
+	}
+}
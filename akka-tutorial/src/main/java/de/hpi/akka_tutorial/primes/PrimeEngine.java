@@ -0,0 +1,19 @@
+package de.hpi.akka_tutorial.primes;
+
+import java.util.function.LongConsumer;
+
+/**
+ * A prime engine discovers all primes in a range of numbers.
+ */
+public interface PrimeEngine {
+
+	/**
+	 * Discover all primes in the given range and pass them to the sink in ascending order.
+	 *
+	 * @param rangeMin first number in the range to be checked as prime (inclusive)
+	 * @param rangeMax last number in the range to be checked as prime (inclusive)
+	 * @param sink     receives the discovered primes
+	 */
+	void discover(long rangeMin, long rangeMax, LongConsumer sink);
+
+}
@@ -0,0 +1,152 @@
+package de.hpi.akka_tutorial.primes;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * This engine runs a segmented Sieve of Eratosthenes over a range. Each segment stores only odd numbers, one bit per
+ * number, and is sized to fit into the L1/L2 cache. The base primes up to the square root of the range's maximum are
+ * computed once and shared by all engines of this JVM.
+ */
+public class SegmentedSieveEngine implements PrimeEngine {
+
+	// The largest number that this engine can sieve; above, the base prime table would become too large
+	public static final long MAX_NUMBER = 1L << 50;
+
+	// The number of 64 bit words per segment, i.e., 32 KB of sieve per segment
+	private static final int SEGMENT_WORDS = 4096;
+
+	// The number of odd numbers represented by one segment
+	private static final int SEGMENT_ODDS = SEGMENT_WORDS * Long.SIZE;
+
+	// The shared table of odd base primes; it only ever grows
+	private static volatile int[] basePrimes = new int[0];
+
+	// The (inclusive) limit up to which the base prime table is complete
+	private static volatile long basePrimeLimit = 0;
+
+	// The sieve of the current segment; a set bit marks an odd composite
+	private final long[] segment = new long[SEGMENT_WORDS];
+
+	@Override
+	public void discover(long rangeMin, long rangeMax, LongConsumer sink) {
+		if (rangeMax > MAX_NUMBER)
+			throw new IllegalArgumentException(String.format("Cannot sieve numbers larger than %,d.", MAX_NUMBER));
+
+		// Numbers below 5 follow the special cases of the trial division, so we treat them the same way
+		long low = rangeMin;
+		for (; low <= rangeMax && low < 5; low++)
+			if (TrialDivisionEngine.isPrime(low))
+				sink.accept(low);
+		if (low > rangeMax)
+			return;
+
+		// Make sure that we know all base primes that can have multiples in the range
+		final int[] primes = basePrimesUpTo(sqrt(rangeMax));
+
+		// Sieve one segment after the other, each starting at an odd number
+		for (long segmentMin = low | 1; segmentMin <= rangeMax; segmentMin += 2L * SEGMENT_ODDS) {
+			final long segmentMax = Math.min(rangeMax, segmentMin + 2L * SEGMENT_ODDS - 2);
+			final int numOdds = (int) ((segmentMax - segmentMin) / 2) + 1;
+			this.sieveSegment(segmentMin, segmentMax, numOdds, primes);
+			this.emitSegment(segmentMin, numOdds, sink);
+		}
+	}
+
+	private void sieveSegment(long segmentMin, long segmentMax, int numOdds, int[] primes) {
+
+		// Reset the segment
+		Arrays.fill(this.segment, 0, (numOdds + Long.SIZE - 1) / Long.SIZE, 0L);
+
+		// Cross off the odd multiples of every base prime
+		for (int p : primes) {
+			final long square = (long) p * p;
+			if (square > segmentMax)
+				break;
+
+			// Find the first odd multiple of p in the segment that is not p itself
+			long start = Math.max(square, (segmentMin + p - 1) / p * p);
+			if ((start & 1) == 0)
+				start += p;
+
+			for (long j = (start - segmentMin) >>> 1; j < numOdds; j += p)
+				this.segment[(int) (j >>> 6)] |= 1L << j;
+		}
+	}
+
+	private void emitSegment(long segmentMin, int numOdds, LongConsumer sink) {
+		final int numWords = (numOdds + Long.SIZE - 1) / Long.SIZE;
+		for (int i = 0; i < numWords; i++) {
+			long candidates = ~this.segment[i];
+
+			// Ignore the bits beyond the end of the segment
+			if (i == numWords - 1 && numOdds % Long.SIZE != 0)
+				candidates &= (1L << numOdds) - 1;
+
+			while (candidates != 0) {
+				final int bit = Long.numberOfTrailingZeros(candidates);
+				sink.accept(segmentMin + 2L * (i * (long) Long.SIZE + bit));
+				candidates &= candidates - 1;
+			}
+		}
+	}
+
+	/**
+	 * Provide all odd primes up to the given limit, extending the shared base prime table if necessary.
+	 *
+	 * @param limit the largest number that must be covered by the table
+	 * @return a table that contains all odd primes up to (at least) the limit in ascending order
+	 */
+	static int[] basePrimesUpTo(long limit) {
+		if (limit <= basePrimeLimit)
+			return basePrimes;
+
+		synchronized (SegmentedSieveEngine.class) {
+			if (limit > basePrimeLimit) {
+				// Grow generously so that ranges with slowly increasing maxima do not re-sieve the table all the time
+				final int newLimit = (int) Math.min(Math.max(limit, 2 * basePrimeLimit), sqrt(MAX_NUMBER));
+				basePrimes = simpleSieve(newLimit);
+				basePrimeLimit = newLimit;
+			}
+			return basePrimes;
+		}
+	}
+
+	private static int[] simpleSieve(int limit) {
+
+		// Sieve the odd numbers 3, 5, ..., limit; a set bit marks an odd composite
+		final int numOdds = Math.max(0, (limit - 1) / 2);
+		final long[] composites = new long[(numOdds + Long.SIZE - 1) / Long.SIZE];
+		for (long p = 3; p * p <= limit; p += 2) {
+			final int index = (int) ((p - 3) / 2);
+			if ((composites[index >>> 6] & (1L << index)) != 0)
+				continue;
+			for (long j = (p * p - 3) / 2; j < numOdds; j += p)
+				composites[(int) (j >>> 6)] |= 1L << j;
+		}
+
+		// Collect the odd primes
+		int[] primes = new int[Math.max(16, (int) (1.3 * limit / Math.max(1, Math.log(limit))))];
+		int numPrimes = 0;
+		for (int index = 0; index < numOdds; index++) {
+			if ((composites[index >>> 6] & (1L << index)) == 0) {
+				if (numPrimes == primes.length)
+					primes = Arrays.copyOf(primes, 2 * primes.length);
+				primes[numPrimes++] = 2 * index + 3;
+			}
+		}
+		return Arrays.copyOf(primes, numPrimes);
+	}
+
+	/**
+	 * Calculate the integer square root, i.e., the largest number whose square does not exceed {@code n}.
+	 */
+	static long sqrt(long n) {
+		long root = (long) Math.sqrt((double) n);
+		while (root * root > n)
+			root--;
+		while ((root + 1) * (root + 1) <= n)
+			root++;
+		return root;
+	}
+}
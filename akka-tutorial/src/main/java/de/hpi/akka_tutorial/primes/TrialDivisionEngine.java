@@ -0,0 +1,45 @@
+package de.hpi.akka_tutorial.primes;
+
+import java.util.function.LongConsumer;
+
+/**
+ * This engine tests every number of a range individually by trial division. It is cheap to set up and hence used for tiny ranges.
+ */
+public class TrialDivisionEngine implements PrimeEngine {
+
+	@Override
+	public void discover(long rangeMin, long rangeMax, LongConsumer sink) {
+		for (long i = rangeMin; i <= rangeMax; i++) {
+			if (isPrime(i))
+				sink.accept(i);
+
+			// Avoid an overflow if the range ends at the largest long value
+			if (i == Long.MAX_VALUE)
+				break;
+		}
+	}
+
+	/**
+	 * Test a single number for primality by trial division.
+	 *
+	 * @param n the number to test
+	 * @return whether {@code n} is considered a prime
+	 */
+	public static boolean isPrime(long n) {
+
+		// Check for the most basic primes
+		if (n == 1 || n == 2 || n == 3)
+			return true;
+
+		// Check if n is an even number
+		if (n % 2 == 0)
+			return false;
+
+		// Check the odds
+		for (long i = 3; i * i <= n; i += 2)
+			if (n % i == 0)
+				return false;
+
+		return true;
+	}
+}
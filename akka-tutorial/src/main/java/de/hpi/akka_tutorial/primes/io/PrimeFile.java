@@ -0,0 +1,27 @@
+package de.hpi.akka_tutorial.primes.io;
+
+/**
+ * Constants of the binary prime file format. A prime file starts with a header of two {@code int}s, the magic number
+ * and the format version, and continues with a sequence of records. Each record is an {@code int} length followed by
+ * that many bytes of a {@link de.hpi.akka_tutorial.primes.PrimeBatch} in its encoded form. A record thus also states
+ * which range of numbers was checked, and a file that was cut off during a write can be read up to its last complete
+ * record. Records are at most {@link #MAX_RECORD_SIZE} bytes long.
+ */
+final class PrimeFile {
+
+	// The first bytes of every prime file: "PRIM"
+	static final int MAGIC = 0x5052494D;
+
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+	// The size of the length field of each record
+	static final int RECORD_HEADER_SIZE = Integer.BYTES;
+
+	// The maximum length of a record, so that a corrupt length can be told apart from a record that was cut off
+	static final int MAX_RECORD_SIZE = 4 << 20;
+
+	private PrimeFile() {
+	}
+}
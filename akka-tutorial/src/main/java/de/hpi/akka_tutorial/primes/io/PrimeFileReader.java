@@ -0,0 +1,83 @@
+package de.hpi.akka_tutorial.primes.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+
+/**
+ * Reads the {@link PrimeBatch}es of a prime file (see {@link PrimeFile}). The file is memory-mapped window by window,
+ * so that reloading it does not copy its content through the heap.
+ */
+public class PrimeFileReader {
+
+	// The maximum number of bytes to map at once
+	private static final long WINDOW_SIZE = 1L << 30;
+
+	/**
+	 * Read all complete records of a prime file. Only the final record may be incomplete, e.g., because the writer was
+	 * interrupted; it is skipped.
+	 *
+	 * @param path     the prime file
+	 * @param consumer receives the batches of the file in the order in which they were written
+	 * @return the number of bytes up to the end of the last complete record
+	 * @throws IOException if the file cannot be read, is not a prime file, or contains a corrupt record
+	 */
+	public static long read(Path path, Consumer<PrimeBatch> consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final long fileSize = channel.size();
+			if (fileSize == 0)
+				return 0;
+			if (fileSize < PrimeFile.HEADER_SIZE)
+				throw new IOException(String.format("%s is too short to be a prime file.", path));
+
+			// Check the header
+			final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, PrimeFile.HEADER_SIZE);
+			if (header.getInt() != PrimeFile.MAGIC || header.getInt() != PrimeFile.VERSION)
+				throw new IOException(String.format("%s is not a prime file of version %d.", path, PrimeFile.VERSION));
+
+			// Map one window after the other, each starting at a record boundary
+			long position = PrimeFile.HEADER_SIZE;
+			while (position < fileSize) {
+				final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position));
+				final int windowStart = window.position();
+				while (window.remaining() >= PrimeFile.RECORD_HEADER_SIZE) {
+					final int recordStart = window.position();
+					final int recordSize = window.getInt();
+					if (recordSize < 0 || recordSize > PrimeFile.MAX_RECORD_SIZE)
+						throw new IOException(String.format("%s has a corrupt record length of %d at offset %d.", path, recordSize, position + recordStart));
+
+					// A record that crosses the end of the window continues in the next window or, at the end of the file, is incomplete
+					if (recordSize > window.remaining()) {
+						window.position(recordStart);
+						break;
+					}
+
+					// Decode the record from a view so that a corrupt record cannot read beyond its end
+					final ByteBuffer record = window.slice();
+					record.limit(recordSize);
+					final PrimeBatch batch;
+					try {
+						batch = PrimeBatch.decode(record);
+					} catch (RuntimeException e) {
+						throw new IOException(String.format("%s has a corrupt record at offset %d.", path, position + recordStart), e);
+					}
+					consumer.accept(batch);
+					window.position(window.position() + recordSize);
+				}
+
+				// Stop if not even a single record fit into the window, which is as large as the rest of the file or larger than any record, i.e., the file ends with an incomplete record
+				final int consumed = window.position() - windowStart;
+				if (consumed == 0)
+					break;
+				position += consumed;
+			}
+			return position;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package de.hpi.akka_tutorial.primes.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+
+/**
+ * Appends {@link PrimeBatch}es to a prime file (see {@link PrimeFile}). The records are collected in a large direct
+ * buffer and written to the file channel whenever the buffer is full or on {@link #flush()}.
+ */
+public class PrimeFileWriter implements Closeable {
+
+	// The size of the write buffer, which holds at least one record of the maximum size
+	private static final int BUFFER_SIZE = PrimeFile.RECORD_HEADER_SIZE + PrimeFile.MAX_RECORD_SIZE;
+
+	private final FileChannel channel;
+
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/**
+	 * Open a prime file for appending. A new file is created if necessary; an incomplete record at the end of an
+	 * existing file is discarded, while a corrupt record anywhere fails the opening, so that no later record is lost.
+	 *
+	 * @param path the prime file
+	 * @throws IOException if the file cannot be opened, is not a prime file, or contains a corrupt record
+	 */
+	public PrimeFileWriter(Path path) throws IOException {
+		final long validSize = path.toFile().exists() ? PrimeFileReader.read(path, batch -> { }) : 0;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		if (validSize == 0) {
+			this.channel.truncate(0);
+			this.buffer.putInt(PrimeFile.MAGIC).putInt(PrimeFile.VERSION);
+		} else {
+			this.channel.truncate(validSize);
+			this.channel.position(validSize);
+		}
+	}
+
+	/**
+	 * Append a batch to the file.
+	 *
+	 * @param batch the batch to append
+	 * @throws IOException if the buffer could not be written
+	 * @throws IllegalArgumentException if the encoded batch exceeds the maximum record size
+	 */
+	public void write(PrimeBatch batch) throws IOException {
+		final int recordSize = batch.encodedSize();
+		if (recordSize > PrimeFile.MAX_RECORD_SIZE)
+			throw new IllegalArgumentException(String.format("%s takes %d bytes, but records may take at most %d bytes.", batch, recordSize, PrimeFile.MAX_RECORD_SIZE));
+		if (this.buffer.remaining() < PrimeFile.RECORD_HEADER_SIZE + recordSize)
+			this.flush();
+		this.buffer.putInt(recordSize);
+		batch.encode(this.buffer);
+	}
+
+	/**
+	 * Write all buffered records to the file.
+	 *
+	 * @throws IOException if the buffer could not be written
+	 */
+	public void flush() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining())
+			this.channel.write(this.buffer);
+		this.buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.flush();
+			this.channel.force(false);
+		} finally {
+			this.channel.close();
+		}
+	}
+}
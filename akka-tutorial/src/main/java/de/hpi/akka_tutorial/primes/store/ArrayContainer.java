@@ -0,0 +1,87 @@
+package de.hpi.akka_tutorial.primes.store;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * A {@link Container} for sparse chunks that keeps its offsets in a sorted array.
+ */
+class ArrayContainer extends Container {
+
+	// Beyond this cardinality, a bitmap is smaller than the array
+	static final int MAX_CARDINALITY = CHUNK_SIZE / Character.SIZE;
+
+	// The sorted offsets
+	private char[] offsets = new char[4];
+
+	private int cardinality = 0;
+
+	@Override
+	Container add(int offset) {
+
+		// Primes usually arrive in ascending order, so check for an append first
+		int position;
+		if (this.cardinality == 0 || this.offsets[this.cardinality - 1] < offset) {
+			position = this.cardinality;
+		} else {
+			position = Arrays.binarySearch(this.offsets, 0, this.cardinality, (char) offset);
+			if (position >= 0)
+				return this;
+			position = -position - 1;
+		}
+
+		// Switch to a bitmap once it is the smaller representation
+		if (this.cardinality == MAX_CARDINALITY)
+			return this.toBitmapContainer().add(offset);
+
+		if (this.cardinality == this.offsets.length)
+			this.offsets = Arrays.copyOf(this.offsets, Math.min(MAX_CARDINALITY, 2 * this.offsets.length));
+		System.arraycopy(this.offsets, position, this.offsets, position + 1, this.cardinality - position);
+		this.offsets[position] = (char) offset;
+		this.cardinality++;
+		return this;
+	}
+
+	private BitmapContainer toBitmapContainer() {
+		final BitmapContainer bitmapContainer = new BitmapContainer();
+		for (int i = 0; i < this.cardinality; i++)
+			bitmapContainer.add(this.offsets[i]);
+		return bitmapContainer;
+	}
+
+	@Override
+	boolean contains(int offset) {
+		return Arrays.binarySearch(this.offsets, 0, this.cardinality, (char) offset) >= 0;
+	}
+
+	@Override
+	int cardinality() {
+		return this.cardinality;
+	}
+
+	@Override
+	int rank(int offset) {
+		if (offset < 0)
+			return 0;
+		final int position = Arrays.binarySearch(this.offsets, 0, this.cardinality, (char) offset);
+		return position >= 0 ? position + 1 : -position - 1;
+	}
+
+	@Override
+	int select(int rank) {
+		return this.offsets[rank];
+	}
+
+	@Override
+	boolean forEach(long firstNumber, int fromOffset, LongPredicate consumer) {
+		for (int i = this.rank(fromOffset - 1); i < this.cardinality; i++)
+			if (!consumer.test(firstNumber + 2L * this.offsets[i]))
+				return false;
+		return true;
+	}
+
+	@Override
+	long memoryUsage() {
+		return 2 * OBJECT_OVERHEAD + Character.BYTES * (long) this.offsets.length;
+	}
+}
@@ -0,0 +1,83 @@
+package de.hpi.akka_tutorial.primes.store;
+
+import java.util.function.LongPredicate;
+
+/**
+ * A {@link Container} for dense chunks that keeps one bit per offset.
+ */
+class BitmapContainer extends Container {
+
+	private final long[] words = new long[CHUNK_SIZE / Long.SIZE];
+
+	private int cardinality = 0;
+
+	@Override
+	Container add(int offset) {
+		final long mask = 1L << offset;
+		final int index = offset >>> 6;
+		if ((this.words[index] & mask) == 0) {
+			this.words[index] |= mask;
+			this.cardinality++;
+		}
+		return this;
+	}
+
+	@Override
+	boolean contains(int offset) {
+		return (this.words[offset >>> 6] & (1L << offset)) != 0;
+	}
+
+	@Override
+	int cardinality() {
+		return this.cardinality;
+	}
+
+	@Override
+	int rank(int offset) {
+		if (offset < 0)
+			return 0;
+		final int index = offset >>> 6;
+		int rank = 0;
+		for (int i = 0; i < index; i++)
+			rank += Long.bitCount(this.words[i]);
+
+		// Count the bits up to (and including) the offset in its word
+		return rank + Long.bitCount(this.words[index] & (-1L >>> (63 - (offset & 63))));
+	}
+
+	@Override
+	int select(int rank) {
+		for (int i = 0; i < this.words.length; i++) {
+			long word = this.words[i];
+			final int count = Long.bitCount(word);
+			if (rank < count) {
+				for (; rank > 0; rank--)
+					word &= word - 1;
+				return i * Long.SIZE + Long.numberOfTrailingZeros(word);
+			}
+			rank -= count;
+		}
+		throw new IndexOutOfBoundsException();
+	}
+
+	@Override
+	boolean forEach(long firstNumber, int fromOffset, LongPredicate consumer) {
+		for (int i = fromOffset >>> 6; i < this.words.length; i++) {
+			long word = this.words[i];
+			if (i == fromOffset >>> 6)
+				word &= -1L << (fromOffset & 63);
+			while (word != 0) {
+				final int bit = Long.numberOfTrailingZeros(word);
+				if (!consumer.test(firstNumber + 2L * (i * Long.SIZE + bit)))
+					return false;
+				word &= word - 1;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	long memoryUsage() {
+		return 2 * OBJECT_OVERHEAD + Long.BYTES * (long) this.words.length;
+	}
+}
@@ -0,0 +1,374 @@
+package de.hpi.akka_tutorial.primes.store;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+
+/**
+ * A {@link PrimeStore} that represents the odd numbers as a compressed bitmap in the style of Roaring bitmaps: The
+ * number line is cut into chunks of 2^16 odd numbers, and each chunk is kept in a sorted array while it is sparse and in
+ * a bitmap once it is dense. A prime thus costs at most two bytes and usually about one bit per odd number in its range,
+ * in contrast to about 50 bytes per prime in a {@code HashSet<Long>}. The few primes that are not positive odd numbers,
+ * i.e., {@code 2}, are stored separately.
+ * <p>
+ * Consecutive chunks are grouped into blocks that count their primes. Together with a prefix sum over these counts,
+ * which is rebuilt lazily after inserts, rank and select queries need a binary search over the blocks plus a scan of a
+ * single block and chunk.
+ */
+public class BitmapPrimeStore implements PrimeStore {
+
+	/**
+	 * {@link PrimeStore.Factory} implementation for the {@link BitmapPrimeStore}.
+	 */
+	public static class Factory implements PrimeStore.Factory {
+
+		@Override
+		public BitmapPrimeStore create() {
+			return new BitmapPrimeStore();
+		}
+	}
+
+	/**
+	 * A block groups consecutive chunks and counts their primes.
+	 */
+	private static final class Block {
+
+		private final Container[] chunks = new Container[BLOCK_SIZE];
+
+		private long cardinality = 0;
+	}
+
+	// The number of bits to shift a number right to obtain its chunk key
+	private static final int CHUNK_SHIFT = 17;
+
+	// The number of bits to shift a chunk key right to obtain its block key
+	private static final int BLOCK_SHIFT = 8;
+
+	// The number of chunks per block
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+	// The estimated bytes per entry of a TreeMap/TreeSet including the boxed key
+	private static final long TREE_ENTRY_OVERHEAD = 64;
+
+	// The blocks of chunks of odd numbers by their key
+	private final TreeMap<Long, Block> blocks = new TreeMap<>();
+
+	// All stored numbers that are not positive odd numbers
+	private final TreeSet<Long> irregulars = new TreeSet<>();
+
+	// The most recently used chunk; consecutive primes usually fall into the same chunk
+	private long lastChunkKey = -1;
+	private Block lastBlock = null;
+	private Container lastChunk = null;
+
+	// The rank index: the sorted block keys, the blocks, and the number of primes in all preceding blocks
+	private long[] indexKeys = new long[0];
+	private Block[] indexBlocks = new Block[0];
+	private long[] indexPrefixSums = {0};
+	private boolean isIndexDirty = false;
+
+	private long size = 0;
+
+	private long max = Long.MIN_VALUE;
+
+	@Override
+	public int add(PrimeBatch batch) {
+		int numAdded = 0;
+		for (int i = 0; i < batch.size(); i++)
+			if (this.add(batch.get(i)))
+				numAdded++;
+		return numAdded;
+	}
+
+	private boolean add(long number) {
+		final boolean isNew;
+		if (isRegular(number)) {
+			final long chunkKey = number >>> CHUNK_SHIFT;
+			final Container chunk = this.getOrCreateChunk(chunkKey);
+			final int cardinality = chunk.cardinality();
+			final Container updatedChunk = chunk.add(offsetOf(number));
+			if (updatedChunk != chunk) {
+				this.lastBlock.chunks[slotOf(chunkKey)] = updatedChunk;
+				this.lastChunk = updatedChunk;
+			}
+			isNew = updatedChunk.cardinality() > cardinality;
+			if (isNew)
+				this.lastBlock.cardinality++;
+		} else {
+			isNew = this.irregulars.add(number);
+		}
+
+		if (isNew) {
+			this.size++;
+			this.max = Math.max(this.max, number);
+			this.isIndexDirty = true;
+		}
+		return isNew;
+	}
+
+	private Container getOrCreateChunk(long chunkKey) {
+		if (this.lastChunk == null || this.lastChunkKey != chunkKey) {
+			Block block = this.blocks.get(chunkKey >>> BLOCK_SHIFT);
+			if (block == null) {
+				block = new Block();
+				this.blocks.put(chunkKey >>> BLOCK_SHIFT, block);
+			}
+			if (block.chunks[slotOf(chunkKey)] == null)
+				block.chunks[slotOf(chunkKey)] = new ArrayContainer();
+			this.lastChunkKey = chunkKey;
+			this.lastBlock = block;
+			this.lastChunk = block.chunks[slotOf(chunkKey)];
+		}
+		return this.lastChunk;
+	}
+
+	@Override
+	public boolean contains(long number) {
+		if (!isRegular(number))
+			return this.irregulars.contains(number);
+		final long chunkKey = number >>> CHUNK_SHIFT;
+		final Block block = this.blocks.get(chunkKey >>> BLOCK_SHIFT);
+		final Container chunk = block == null ? null : block.chunks[slotOf(chunkKey)];
+		return chunk != null && chunk.contains(offsetOf(number));
+	}
+
+	@Override
+	public long size() {
+		return this.size;
+	}
+
+	@Override
+	public OptionalLong max() {
+		return this.size == 0 ? OptionalLong.empty() : OptionalLong.of(this.max);
+	}
+
+	@Override
+	public long count(long rangeMin, long rangeMax) {
+		if (rangeMin > rangeMax)
+			return 0;
+		return this.rank(rangeMax) - this.rankBelow(rangeMin);
+	}
+
+	@Override
+	public OptionalLong nth(long n) {
+		if (n < 1 || n > this.size)
+			return OptionalLong.empty();
+		return OptionalLong.of(this.select(n - 1));
+	}
+
+	@Override
+	public long[] range(long rangeMin, long rangeMax, long offset, int limit) {
+		final long startRank = this.rankBelow(rangeMin) + Math.max(0, offset);
+		final long endRank = Math.min(this.rank(rangeMax), startRank + limit);
+		if (startRank >= endRank)
+			return new long[0];
+
+		// Find the first prime of the page and collect its successors
+		final long[] page = new long[(int) (endRank - startRank)];
+		final int[] pageSize = {0};
+		this.forEach(this.select(startRank), prime -> {
+			page[pageSize[0]++] = prime;
+			return pageSize[0] < page.length;
+		});
+		return page;
+	}
+
+	@Override
+	public OptionalLong maxBelow(long number) {
+		final long rank = this.rankBelow(number);
+		return rank == 0 ? OptionalLong.empty() : OptionalLong.of(this.select(rank - 1));
+	}
+
+	/**
+	 * Count the stored primes that are smaller than or equal to the given number.
+	 */
+	private long rank(long number) {
+		// The irregular numbers are few, so we can afford to count them directly
+		return this.rankRegular(number) + this.irregulars.headSet(number, true).size();
+	}
+
+	/**
+	 * Count the stored primes that are smaller than the given number.
+	 */
+	private long rankBelow(long number) {
+		return number == Long.MIN_VALUE ? 0 : this.rank(number - 1);
+	}
+
+	private long rankRegular(long number) {
+		if (number < 1)
+			return 0;
+		this.ensureIndex();
+
+		// Count the primes in all preceding blocks
+		final long chunkKey = number >>> CHUNK_SHIFT;
+		final int position = Arrays.binarySearch(this.indexKeys, chunkKey >>> BLOCK_SHIFT);
+		if (position < 0)
+			return this.indexPrefixSums[-position - 1];
+		long rank = this.indexPrefixSums[position];
+
+		// Count the primes in all preceding chunks of the block
+		final Block block = this.indexBlocks[position];
+		final int slot = slotOf(chunkKey);
+		for (int i = 0; i < slot; i++)
+			if (block.chunks[i] != null)
+				rank += block.chunks[i].cardinality();
+
+		// Count the primes in the chunk itself: the odd numbers up to the given number have offsets up to (r - 1) / 2,
+		// where r is the position of the number in the chunk
+		final Container chunk = block.chunks[slot];
+		if (chunk != null)
+			rank += chunk.rank((int) ((number & ((1L << CHUNK_SHIFT) - 1)) - 1) >> 1);
+		return rank;
+	}
+
+	/**
+	 * Find the stored prime with the given zero-based rank.
+	 */
+	private long select(long rank) {
+
+		// Find out how many irregular numbers precede the requested prime
+		int numPrecedingIrregulars = 0;
+		for (long irregular : this.irregulars) {
+			final long position = numPrecedingIrregulars + (irregular == Long.MIN_VALUE ? 0 : this.rankRegular(irregular - 1));
+			if (position == rank)
+				return irregular;
+			if (position > rank)
+				break;
+			numPrecedingIrregulars++;
+		}
+		return this.selectRegular(rank - numPrecedingIrregulars);
+	}
+
+	private long selectRegular(long rank) {
+		this.ensureIndex();
+
+		// Find the block via the prefix sums: the last block whose prefix sum does not exceed the rank
+		int low = 0, high = this.indexKeys.length - 1;
+		while (low < high) {
+			final int mid = (low + high + 1) >>> 1;
+			if (this.indexPrefixSums[mid] <= rank)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		long remainingRank = rank - this.indexPrefixSums[low];
+
+		// Find the chunk within the block
+		final Block block = this.indexBlocks[low];
+		for (int slot = 0; slot < BLOCK_SIZE; slot++) {
+			final Container chunk = block.chunks[slot];
+			if (chunk == null)
+				continue;
+			if (remainingRank < chunk.cardinality()) {
+				final long chunkKey = (this.indexKeys[low] << BLOCK_SHIFT) | slot;
+				return firstNumberOf(chunkKey) + 2L * chunk.select((int) remainingRank);
+			}
+			remainingRank -= chunk.cardinality();
+		}
+		throw new IndexOutOfBoundsException(String.format("No prime with rank %,d.", rank));
+	}
+
+	private void ensureIndex() {
+		if (!this.isIndexDirty)
+			return;
+
+		final int numBlocks = this.blocks.size();
+		this.indexKeys = new long[numBlocks];
+		this.indexBlocks = new Block[numBlocks];
+		this.indexPrefixSums = new long[numBlocks + 1];
+		int i = 0;
+		for (Map.Entry<Long, Block> entry : this.blocks.entrySet()) {
+			this.indexKeys[i] = entry.getKey();
+			this.indexBlocks[i] = entry.getValue();
+			this.indexPrefixSums[i + 1] = this.indexPrefixSums[i] + entry.getValue().cardinality;
+			i++;
+		}
+		this.isIndexDirty = false;
+	}
+
+	@Override
+	public void forEach(LongConsumer consumer) {
+		this.forEach(Long.MIN_VALUE, prime -> {
+			consumer.accept(prime);
+			return true;
+		});
+	}
+
+	/**
+	 * Visit the stored primes in ascending order, starting at a given number.
+	 *
+	 * @param from     the smallest number to visit
+	 * @param consumer receives the primes and returns {@code false} to stop the visit
+	 */
+	private void forEach(long from, LongPredicate consumer) {
+
+		// Merge the irregular numbers into the ascending stream of the chunks' numbers; Long.MAX_VALUE is odd and hence
+		// never irregular, which makes it a safe end marker
+		final Iterator<Long> irregularIterator = this.irregulars.tailSet(from, true).iterator();
+		final long[] nextIrregular = {irregularIterator.hasNext() ? irregularIterator.next() : Long.MAX_VALUE};
+		final LongPredicate mergingConsumer = number -> {
+			while (nextIrregular[0] < number) {
+				if (!consumer.test(nextIrregular[0]))
+					return false;
+				nextIrregular[0] = irregularIterator.hasNext() ? irregularIterator.next() : Long.MAX_VALUE;
+			}
+			return consumer.test(number);
+		};
+
+		// Visit the chunks from the one that contains the start number on
+		final long fromChunkKey = from < 1 ? 0 : from >>> CHUNK_SHIFT;
+		for (Map.Entry<Long, Block> entry : this.blocks.tailMap(fromChunkKey >>> BLOCK_SHIFT, true).entrySet()) {
+			final Container[] chunks = entry.getValue().chunks;
+			for (int slot = 0; slot < BLOCK_SIZE; slot++) {
+				final long chunkKey = (entry.getKey() << BLOCK_SHIFT) | slot;
+				if (chunks[slot] == null || chunkKey < fromChunkKey)
+					continue;
+				final int fromOffset = chunkKey == fromChunkKey && from >= 1 ? offsetOf(from | 1) : 0;
+				if (!chunks[slot].forEach(firstNumberOf(chunkKey), fromOffset, mergingConsumer))
+					return;
+			}
+		}
+
+		// Visit the remaining irregular numbers
+		if (nextIrregular[0] == Long.MAX_VALUE || !consumer.test(nextIrregular[0]))
+			return;
+		while (irregularIterator.hasNext())
+			if (!consumer.test(irregularIterator.next()))
+				return;
+	}
+
+	@Override
+	public long memoryUsage() {
+		long memoryUsage = TREE_ENTRY_OVERHEAD * (this.blocks.size() + this.irregulars.size())
+				+ (Container.OBJECT_OVERHEAD + 8L * BLOCK_SIZE) * this.blocks.size()
+				+ 3L * Long.BYTES * this.indexKeys.length;
+		for (Block block : this.blocks.values())
+			for (Container chunk : block.chunks)
+				if (chunk != null)
+					memoryUsage += chunk.memoryUsage();
+		return memoryUsage;
+	}
+
+	private static boolean isRegular(long number) {
+		return number > 0 && (number & 1) == 1;
+	}
+
+	private static int offsetOf(long number) {
+		return (int) ((number & ((1L << CHUNK_SHIFT) - 1)) >>> 1);
+	}
+
+	private static int slotOf(long chunkKey) {
+		return (int) (chunkKey & (BLOCK_SIZE - 1));
+	}
+
+	private static long firstNumberOf(long chunkKey) {
+		return (chunkKey << CHUNK_SHIFT) | 1;
+	}
+}
@@ -0,0 +1,57 @@
+package de.hpi.akka_tutorial.primes.store;
+
+import java.util.function.LongPredicate;
+
+/**
+ * A container stores a set of 16 bit offsets, each of which represents one odd number of a chunk in the
+ * {@link BitmapPrimeStore}. Sparse chunks use a sorted array, dense chunks a bitmap.
+ */
+abstract class Container {
+
+	// The number of offsets per chunk
+	static final int CHUNK_SIZE = 1 << 16;
+
+	// The bytes that we account for the header and reference of each object
+	static final long OBJECT_OVERHEAD = 16;
+
+	/**
+	 * Add an offset to this container.
+	 *
+	 * @param offset the offset to add
+	 * @return the container that now contains the offset; this is either this or a replacement container
+	 */
+	abstract Container add(int offset);
+
+	abstract boolean contains(int offset);
+
+	abstract int cardinality();
+
+	/**
+	 * Count the offsets that are smaller than or equal to the given offset.
+	 *
+	 * @param offset the offset; may be {@code -1}
+	 * @return the number of offsets up to the given offset
+	 */
+	abstract int rank(int offset);
+
+	/**
+	 * Find the offset with the given rank.
+	 *
+	 * @param rank the zero-based position of the offset in ascending order; must be smaller than the cardinality
+	 * @return the offset
+	 */
+	abstract int select(int rank);
+
+	/**
+	 * Visit the numbers of this container in ascending order, starting at a given offset.
+	 *
+	 * @param firstNumber the number that is represented by offset {@code 0}
+	 * @param fromOffset  the smallest offset to visit
+	 * @param consumer    receives the numbers and returns {@code false} to stop the visit
+	 * @return {@code false} if the consumer stopped the visit
+	 */
+	abstract boolean forEach(long firstNumber, int fromOffset, LongPredicate consumer);
+
+	abstract long memoryUsage();
+
+}
@@ -0,0 +1,108 @@
+package de.hpi.akka_tutorial.primes.store;
+
+import java.util.OptionalLong;
+import java.util.function.LongConsumer;
+
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+
+/**
+ * A prime store keeps a set of primes. Inserts are idempotent, i.e., adding a prime that is already known does not
+ * change the store.
+ */
+public interface PrimeStore {
+
+	/**
+	 * A factory for a {@link PrimeStore}.
+	 */
+	interface Factory {
+
+		/**
+		 * Create a new, empty {@link PrimeStore}.
+		 *
+		 * @return the new {@link PrimeStore}
+		 */
+		PrimeStore create();
+
+	}
+
+	/**
+	 * Add all primes of a batch to this store.
+	 *
+	 * @param batch the primes to add
+	 * @return the number of primes that were not yet contained in this store
+	 */
+	int add(PrimeBatch batch);
+
+	/**
+	 * Check whether a number is contained in this store.
+	 *
+	 * @param number the number to look up
+	 * @return {@code true} if the number is a stored prime
+	 */
+	boolean contains(long number);
+
+	/**
+	 * Count the primes in this store.
+	 *
+	 * @return the number of primes
+	 */
+	long size();
+
+	/**
+	 * Find the largest prime in this store.
+	 *
+	 * @return the largest prime or nothing if this store is empty
+	 */
+	OptionalLong max();
+
+	/**
+	 * Count the primes in a range of numbers.
+	 *
+	 * @param rangeMin first number of the range (inclusive)
+	 * @param rangeMax last number of the range (inclusive)
+	 * @return the number of stored primes in the range
+	 */
+	long count(long rangeMin, long rangeMax);
+
+	/**
+	 * Find the n-th smallest prime in this store.
+	 *
+	 * @param n the one-based position of the prime
+	 * @return the prime or nothing if this store contains less than {@code n} primes
+	 */
+	OptionalLong nth(long n);
+
+	/**
+	 * Provide a page of the primes in a range of numbers.
+	 *
+	 * @param rangeMin first number of the range (inclusive)
+	 * @param rangeMax last number of the range (inclusive)
+	 * @param offset   the number of primes in the range to skip
+	 * @param limit    the maximum number of primes to return
+	 * @return the primes of the page in ascending order
+	 */
+	long[] range(long rangeMin, long rangeMax, long offset, int limit);
+
+	/**
+	 * Find the largest prime in this store that is smaller than a given number.
+	 *
+	 * @param number the exclusive upper bound
+	 * @return the prime or nothing if there is no smaller prime in this store
+	 */
+	OptionalLong maxBelow(long number);
+
+	/**
+	 * Visit all primes in this store in ascending order.
+	 *
+	 * @param consumer receives the primes
+	 */
+	void forEach(LongConsumer consumer);
+
+	/**
+	 * Estimate the heap memory occupied by this store.
+	 *
+	 * @return the estimated number of bytes
+	 */
+	long memoryUsage();
+
+}
@@ -0,0 +1,95 @@
+package de.hpi.akka_tutorial.primes.store;
+
+import java.util.OptionalLong;
+import java.util.TreeSet;
+import java.util.function.LongConsumer;
+
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+
+/**
+ * A straightforward {@link PrimeStore} that keeps every prime as boxed {@link Long} in a {@link TreeSet}. It is simple,
+ * but needs tens of bytes per prime and answers count and position queries in linear time; prefer the
+ * {@link BitmapPrimeStore} for large result sets.
+ */
+public class TreeSetPrimeStore implements PrimeStore {
+
+	/**
+	 * {@link PrimeStore.Factory} implementation for the {@link TreeSetPrimeStore}.
+	 */
+	public static class Factory implements PrimeStore.Factory {
+
+		@Override
+		public TreeSetPrimeStore create() {
+			return new TreeSetPrimeStore();
+		}
+	}
+
+	// The estimated bytes per entry of a TreeSet including the boxed prime
+	private static final long ENTRY_SIZE = 64;
+
+	// The set of all stored primes
+	private final TreeSet<Long> primes = new TreeSet<>();
+
+	@Override
+	public int add(PrimeBatch batch) {
+		int numAdded = 0;
+		for (int i = 0; i < batch.size(); i++)
+			if (this.primes.add(batch.get(i)))
+				numAdded++;
+		return numAdded;
+	}
+
+	@Override
+	public boolean contains(long number) {
+		return this.primes.contains(number);
+	}
+
+	@Override
+	public long size() {
+		return this.primes.size();
+	}
+
+	@Override
+	public OptionalLong max() {
+		return this.primes.isEmpty() ? OptionalLong.empty() : OptionalLong.of(this.primes.last());
+	}
+
+	@Override
+	public long count(long rangeMin, long rangeMax) {
+		return rangeMin > rangeMax ? 0 : this.primes.subSet(rangeMin, true, rangeMax, true).size();
+	}
+
+	@Override
+	public OptionalLong nth(long n) {
+		if (n < 1 || n > this.primes.size())
+			return OptionalLong.empty();
+		return OptionalLong.of(this.primes.stream().skip(n - 1).findFirst().get());
+	}
+
+	@Override
+	public long[] range(long rangeMin, long rangeMax, long offset, int limit) {
+		if (rangeMin > rangeMax)
+			return new long[0];
+		return this.primes.subSet(rangeMin, true, rangeMax, true).stream()
+				.skip(Math.max(0, offset))
+				.limit(Math.max(0, limit))
+				.mapToLong(Long::longValue)
+				.toArray();
+	}
+
+	@Override
+	public OptionalLong maxBelow(long number) {
+		final Long prime = this.primes.lower(number);
+		return prime == null ? OptionalLong.empty() : OptionalLong.of(prime);
+	}
+
+	@Override
+	public void forEach(LongConsumer consumer) {
+		this.primes.forEach(consumer::accept);
+	}
+
+	@Override
+	public long memoryUsage() {
+		return ENTRY_SIZE * this.primes.size();
+	}
+}
@@ -1,14 +1,22 @@
 package de.hpi.akka_tutorial.remote;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
 import java.util.concurrent.TimeoutException;
 
+import javax.management.JMException;
+
+import com.sun.net.httpserver.HttpServer;
 import com.typesafe.config.Config;
 
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.actor.Address;
 import akka.actor.PoisonPill;
+import de.hpi.akka_tutorial.metrics.Metrics;
+import de.hpi.akka_tutorial.primes.store.PrimeStore;
+import de.hpi.akka_tutorial.remote.actors.Exporter;
 import de.hpi.akka_tutorial.remote.actors.Listener;
 import de.hpi.akka_tutorial.remote.actors.Master;
 import de.hpi.akka_tutorial.remote.actors.Reaper;
@@ -25,8 +33,14 @@ public class Calculator {
 	private static final String DEFAULT_MASTER_SYSTEM_NAME = "MasterActorSystem";
 	private static final String DEFAULT_SLAVE_SYSTEM_NAME = "SlaveActorSystem";
 
-	public static void runMaster(String host, int port, SchedulingStrategy.Factory schedulingStrategyFactory, int numLocalWorkers) {
+	// The number of primes to show per page if a range query does not specify a limit
+	private static final int DEFAULT_PAGE_SIZE = 100;
+
+	public static void runMaster(String host, int port, int metricsPort, SchedulingStrategy.Factory schedulingStrategyFactory, PrimeStore.Factory primeStoreFactory, Path primesFile, int numLocalWorkers) {
 		
+		// Expose the metrics
+		final HttpServer metricsServer = Calculator.exposeMetrics(metricsPort);
+
 		// Create the ActorSystem
 		final Config config = AkkaUtils.createRemoteAkkaConfig(host, port);
 		final ActorSystem actorSystem = ActorSystem.create(DEFAULT_MASTER_SYSTEM_NAME, config);
@@ -34,8 +48,11 @@ public class Calculator {
 		// Create the Reaper.
 		actorSystem.actorOf(Reaper.props(), Reaper.DEFAULT_NAME);
 
+		// Create the Exporter if the primes should be persisted
+		final ActorRef exporter = primesFile == null ? null : actorSystem.actorOf(Exporter.props(primesFile), Exporter.DEFAULT_NAME);
+
 		// Create the Listener
-		final ActorRef listener = actorSystem.actorOf(Listener.props(), Listener.DEFAULT_NAME);
+		final ActorRef listener = actorSystem.actorOf(Listener.props(primeStoreFactory, primesFile, exporter), Listener.DEFAULT_NAME);
 
 		// Create the Master
 		final ActorRef master = actorSystem.actorOf(Master.props(listener, schedulingStrategyFactory, numLocalWorkers), Master.DEFAULT_NAME);
@@ -50,6 +67,26 @@ public class Calculator {
 
 		// Await termination: The termination should be issued by the reaper
 		Calculator.awaitTermination(actorSystem);
+		if (metricsServer != null)
+			metricsServer.stop(0);
+	}
+
+	private static HttpServer exposeMetrics(int metricsPort) {
+		try {
+			Metrics.getDefault().registerMBean();
+		} catch (JMException e) {
+			System.out.println("Could not expose the metrics via JMX: " + e.getMessage());
+		}
+		if (metricsPort <= 0)
+			return null;
+		try {
+			final HttpServer metricsServer = Metrics.getDefault().startHttpServer(metricsPort);
+			System.out.printf("Serving the metrics on http://localhost:%d%s\n", metricsPort, Metrics.HTTP_PATH);
+			return metricsServer;
+		} catch (IOException e) {
+			System.out.println("Could not serve the metrics via HTTP: " + e.getMessage());
+			return null;
+		}
 	}
 	
 	private static void enterInteractiveLoop(final ActorRef listener, final ActorRef master, final ActorRef shepherd) {
@@ -65,9 +102,14 @@ public class Calculator {
 			
 			// Read input
 			System.out.println("> Enter ...\n"
-					+ "  \"<min>,<max>\" to analyze for primes,\n"
+					+ "  \"<min>,<max>[,<priority>]\" to analyze for primes, preferring higher priorities,\n"
 					+ "  \"all\" to log all calculated primes,\n"
 					+ "  \"max\" to log the largest calculated prime,\n"
+					+ "  \"count <min>,<max>\" to count the calculated primes in a range,\n"
+					+ "  \"nth <n>\" to log the n-th smallest calculated prime,\n"
+					+ "  \"primes <min>,<max>[,<offset>[,<limit>]]\" to log a page of the calculated primes in a range,\n"
+					+ "  \"below <number>\" to log the largest calculated prime below a number,\n"
+					+ "  \"status\" to log the progress of the running queries and the rates and backlogs of the workers,\n"
 					+ "  \"exit\" for a graceful shutdown,\n"
 					+ "  \"kill\" for a hard shutdown:");
 			String line = scanner.nextLine();
@@ -79,6 +121,9 @@ public class Calculator {
 				case "max": 
 					listener.tell(new Listener.LogMaxMessage(), ActorRef.noSender());
 					break;
+				case "status":
+					master.tell(new Master.StatusRequestMessage(), ActorRef.noSender());
+					break;
 				case "exit":
 					Calculator.shutdown(shepherd, master);
 					scanner.close();
@@ -88,7 +133,10 @@ public class Calculator {
 					scanner.close();
 					return;
 				default:
-					Calculator.process(line, master);
+					if (line.contains(" "))
+						Calculator.query(line, listener);
+					else
+						Calculator.process(line, master);
 			}
 		}
 	}
@@ -118,7 +166,7 @@ public class Calculator {
 		
 		// Check for correct range message
 		String[] lineSplit = line.split(",");
-		if (lineSplit.length != 2) {
+		if (lineSplit.length != 2 && lineSplit.length != 3) {
 			System.out.println("Invalid range format: " + line);
 			return;
 		}
@@ -127,14 +175,49 @@ public class Calculator {
 			// Extract start- and endNumber
 			long startNumber = Long.valueOf(lineSplit[0]);
 			long endNumber = Long.valueOf(lineSplit[1]);
+			int priority = lineSplit.length > 2 ? Integer.valueOf(lineSplit[2].trim()) : Master.RangeMessage.DEFAULT_PRIORITY;
 			
 			// Start the calculation
-			master.tell(new Master.RangeMessage(startNumber, endNumber), ActorRef.noSender());
+			master.tell(new Master.RangeMessage(startNumber, endNumber, priority), ActorRef.noSender());
 		} catch (NumberFormatException e) {
 			System.out.println("Invalid number format for range: " + line);
 		}
 	}
 	
+	private static void query(final String line, final ActorRef listener) {
+		
+		// Split the command from its comma-separated arguments
+		String command = line.substring(0, line.indexOf(' '));
+		String[] argumentSplit = line.substring(line.indexOf(' ') + 1).trim().split(",");
+		
+		try {
+			// Parse the arguments
+			long[] arguments = new long[argumentSplit.length];
+			for (int i = 0; i < argumentSplit.length; i++)
+				arguments[i] = Long.valueOf(argumentSplit[i].trim());
+			
+			// Pose the query
+			if (command.equals("count") && arguments.length == 2) {
+				listener.tell(new Listener.CountQueryMessage(arguments[0], arguments[1]), ActorRef.noSender());
+			} else if (command.equals("nth") && arguments.length == 1) {
+				listener.tell(new Listener.NthPrimeQueryMessage(arguments[0]), ActorRef.noSender());
+			} else if (command.equals("primes") && arguments.length >= 2 && arguments.length <= 4) {
+				long offset = arguments.length > 2 ? arguments[2] : 0;
+				int limit = arguments.length > 3 ? Math.toIntExact(arguments[3]) : DEFAULT_PAGE_SIZE;
+				listener.tell(new Listener.RangeQueryMessage(arguments[0], arguments[1], offset, limit), ActorRef.noSender());
+			} else if (command.equals("below") && arguments.length == 1) {
+				listener.tell(new Listener.MaxBelowQueryMessage(arguments[0]), ActorRef.noSender());
+			} else {
+				System.out.println("Invalid query: " + line);
+			}
+		} catch (NumberFormatException e) {
+			System.out.println("Invalid number format for query: " + line);
+		} catch (ArithmeticException e) {
+			// The page size does not fit into an int
+			System.out.println("Invalid query: " + line);
+		}
+	}
+	
 	public static void awaitTermination(final ActorSystem actorSystem) {
 		try {
 			Await.ready(actorSystem.whenTerminated(), Duration.Inf());
@@ -145,7 +228,10 @@ public class Calculator {
 		System.out.println("ActorSystem terminated!");
 	}
 
-	public static void runSlave(String host, int port, String masterHost, int masterPort) {
+	public static void runSlave(String host, int port, int metricsPort, String masterHost, int masterPort, int numWorkers) {
+
+		// Expose the metrics
+		final HttpServer metricsServer = Calculator.exposeMetrics(metricsPort);
 
 		// Create the local ActorSystem
 		final Config config = AkkaUtils.createRemoteAkkaConfig(host, port);
@@ -155,13 +241,15 @@ public class Calculator {
 		actorSystem.actorOf(Reaper.props(), Reaper.DEFAULT_NAME);
 
 		// Create a Slave
-		final ActorRef slave = actorSystem.actorOf(Slave.props(), Slave.DEFAULT_NAME);
+		final ActorRef slave = actorSystem.actorOf(Slave.props(numWorkers), Slave.DEFAULT_NAME);
 
 		// Tell the Slave to register the local ActorSystem
 		slave.tell(new Slave.AddressMessage(new Address("akka.tcp", DEFAULT_MASTER_SYSTEM_NAME, masterHost, masterPort)), ActorRef.noSender());
 		
 		// Await termination: The termination should be issued by the reaper
 		Calculator.awaitTermination(actorSystem);
+		if (metricsServer != null)
+			metricsServer.stop(0);
 	}
 
 }
@@ -0,0 +1,142 @@
+package de.hpi.akka_tutorial.remote.actors;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import akka.actor.AbstractLoggingActor;
+import akka.actor.Cancellable;
+import akka.actor.Props;
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+import de.hpi.akka_tutorial.primes.io.PrimeFileWriter;
+import scala.concurrent.duration.Duration;
+
+/**
+ * The exporter appends the primes collected by the {@link Listener} to a prime file. It runs on a dedicated dispatcher,
+ * so that its blocking file I/O does not stall the other actors.
+ */
+public class Exporter extends AbstractLoggingActor {
+
+	public static final String DEFAULT_NAME = "exporter";
+
+	// The dispatcher for blocking I/O as defined in akka-tutorial/base.conf
+	public static final String DISPATCHER = "akka-tutorial.io-dispatcher";
+
+	/**
+	 * Create the {@link Props} necessary to instantiate new {@link Exporter} actors.
+	 *
+	 * @param path the prime file to append to
+	 * @return the {@link Props}
+	 */
+	public static Props props(final Path path) {
+		return Props.create(Exporter.class, () -> new Exporter(path)).withDispatcher(DISPATCHER);
+	}
+
+	/**
+	 * Asks the {@link Exporter} to write a batch of primes.
+	 */
+	public static class BatchMessage implements Serializable {
+
+		private static final long serialVersionUID = 5806390312645337413L;
+
+		private PrimeBatch primes;
+
+		/**
+		 * Construct a new {@link BatchMessage} object.
+		 * 
+		 * @param primes the batch of primes to write
+		 */
+		public BatchMessage(final PrimeBatch primes) {
+			this.primes = primes;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private BatchMessage() {
+		}
+	}
+
+	/**
+	 * Asks the {@link Exporter} to write its buffered primes to disk.
+	 */
+	public static class FlushMessage implements Serializable {
+
+		private static final long serialVersionUID = -4011993410526227870L;
+	}
+
+	// The prime file to append to
+	private final Path path;
+
+	// The writer for the prime file; it is opened with the first batch, so that the file can be read before
+	private PrimeFileWriter writer;
+
+	// A scheduling item to regularly flush the buffered primes
+	private Cancellable flushSchedule;
+
+	/**
+	 * Construct a new {@link Exporter} object.
+	 * 
+	 * @param path the prime file to append to
+	 */
+	public Exporter(final Path path) {
+		this.path = path;
+	}
+
+	@Override
+	public void preStart() throws Exception {
+		super.preStart();
+		
+		// Register at this actor system's reaper
+		Reaper.watchWithDefaultReaper(this);
+
+		// Flush the buffered primes regularly, so that a crash does not lose more than a few seconds of results
+		this.flushSchedule = this.getContext().getSystem().scheduler().schedule(
+				Duration.create(5, TimeUnit.SECONDS),
+				Duration.create(5, TimeUnit.SECONDS),
+				this.getSelf(),
+				new FlushMessage(),
+				this.getContext().dispatcher(),
+				this.getSelf()
+		);
+	}
+
+	@Override
+	public void postStop() throws Exception {
+		super.postStop();
+		
+		// Write all remaining primes
+		this.flushSchedule.cancel();
+		if (this.writer != null) {
+			this.writer.close();
+			this.log().info("Closed {}.", this.path);
+		}
+		
+		// Log the stop event
+		this.log().info("Stopped {}.", this.getSelf());
+	}
+
+	@Override
+	public Receive createReceive() {
+		return receiveBuilder()
+				.match(BatchMessage.class, this::handle)
+				.match(FlushMessage.class, this::handle)
+				.matchAny(object -> this.log().info(this.getClass().getName() + " received unknown message: " + object.toString()))
+				.build();
+	}
+
+	private void handle(BatchMessage message) throws IOException {
+		if (this.writer == null) {
+			this.writer = new PrimeFileWriter(this.path);
+			this.log().info("Appending primes to {}.", this.path);
+		}
+		this.writer.write(message.primes);
+	}
+
+	private void handle(FlushMessage message) throws IOException {
+		if (this.writer != null)
+			this.writer.flush();
+	}
+}
@@ -1,16 +1,24 @@
 package de.hpi.akka_tutorial.remote.actors;
 
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import akka.actor.AbstractLoggingActor;
+import akka.actor.ActorRef;
 import akka.actor.PoisonPill;
 import akka.actor.Props;
+import de.hpi.akka_tutorial.metrics.Metrics;
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+import de.hpi.akka_tutorial.primes.io.PrimeFileReader;
+import de.hpi.akka_tutorial.primes.store.PrimeStore;
 import de.hpi.akka_tutorial.remote.messages.ShutdownMessage;
+import de.hpi.akka_tutorial.util.RangeIndex;
 
 /**
  * The listener collects prime numbers and responds to action requests on these primes.
@@ -24,8 +32,8 @@ public class Listener extends AbstractLoggingActor {
 	 *
 	 * @return the {@link Props}
 	 */
-	public static Props props() {
-		return Props.create(Listener.class);
+	public static Props props(final PrimeStore.Factory primeStoreFactory, final Path primesFile, final ActorRef exporter) {
+		return Props.create(Listener.class, () -> new Listener(primeStoreFactory, primesFile, exporter));
 	}
 
 	/**
@@ -35,14 +43,14 @@ public class Listener extends AbstractLoggingActor {
 		
 		private static final long serialVersionUID = -1779142448823490939L;
 		
-		private List<Long> primes;
+		private PrimeBatch primes;
 		
 		/**
 		 * Construct a new {@link PrimesMessage} object.
 		 * 
-		 * @param primes A list of prime numbers
+		 * @param primes A batch of prime numbers
 		 */
-		public PrimesMessage(final List<Long> primes) {
+		public PrimesMessage(final PrimeBatch primes) {
 			this.primes = primes;
 		}
 
@@ -52,6 +60,10 @@ public class Listener extends AbstractLoggingActor {
 		@SuppressWarnings("unused")
 		private PrimesMessage() {
 		}
+
+		public PrimeBatch getPrimes() {
+			return this.primes;
+		}
 	}
 	
 	/**
@@ -70,8 +82,246 @@ public class Listener extends AbstractLoggingActor {
 		private static final long serialVersionUID = 9210465485942285762L;
 	}
 
+	/**
+	 * Asks the {@link Listener} to tell the sender, which ranges of numbers its reloaded primes cover completely. The
+	 * {@link Listener} answers with a {@link Master.CoverageMessage}.
+	 */
+	public static class CoverageRequestMessage implements Serializable {
+
+		private static final long serialVersionUID = -4412869321867386013L;
+	}
+
+	/**
+	 * Asks the {@link Listener} for some information on its primes. The {@link Listener} logs the answer and sends it as
+	 * {@link QueryResultMessage} back to the sender, if any.
+	 */
+	public abstract static class QueryMessage implements Serializable {
+
+		private static final long serialVersionUID = 2512209381209117375L;
+	}
+
+	/**
+	 * Asks the {@link Listener} to count its primes in a given range.
+	 */
+	public static class CountQueryMessage extends QueryMessage {
+
+		private static final long serialVersionUID = -3002385462218946637L;
+
+		private long rangeMin, rangeMax;
+
+		/**
+		 * Construct a new {@link CountQueryMessage} object.
+		 * 
+		 * @param rangeMin first number of the range (inclusive)
+		 * @param rangeMax last number of the range (inclusive)
+		 */
+		public CountQueryMessage(final long rangeMin, final long rangeMax) {
+			this.rangeMin = rangeMin;
+			this.rangeMax = rangeMax;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private CountQueryMessage() {
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Count of primes in [%,d..%,d]", this.rangeMin, this.rangeMax);
+		}
+	}
+
+	/**
+	 * Asks the {@link Listener} for its n-th smallest prime.
+	 */
+	public static class NthPrimeQueryMessage extends QueryMessage {
+
+		private static final long serialVersionUID = 8157206436593357440L;
+
+		private long n;
+
+		/**
+		 * Construct a new {@link NthPrimeQueryMessage} object.
+		 * 
+		 * @param n the one-based position of the requested prime
+		 */
+		public NthPrimeQueryMessage(final long n) {
+			this.n = n;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private NthPrimeQueryMessage() {
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Prime #%,d", this.n);
+		}
+	}
+
+	/**
+	 * Asks the {@link Listener} for a page of its primes in a given range.
+	 */
+	public static class RangeQueryMessage extends QueryMessage {
+
+		private static final long serialVersionUID = -6209127407771569212L;
+
+		private long rangeMin, rangeMax, offset;
+
+		private int limit;
+
+		/**
+		 * Construct a new {@link RangeQueryMessage} object.
+		 * 
+		 * @param rangeMin first number of the range (inclusive)
+		 * @param rangeMax last number of the range (inclusive)
+		 * @param offset the number of primes in the range to skip
+		 * @param limit the maximum number of primes to return
+		 */
+		public RangeQueryMessage(final long rangeMin, final long rangeMax, final long offset, final int limit) {
+			this.rangeMin = rangeMin;
+			this.rangeMax = rangeMax;
+			this.offset = offset;
+			this.limit = limit;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private RangeQueryMessage() {
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Primes #%,d to #%,d in [%,d..%,d]", this.offset + 1, this.offset + this.limit, this.rangeMin, this.rangeMax);
+		}
+	}
+
+	/**
+	 * Asks the {@link Listener} for its largest prime below a given number.
+	 */
+	public static class MaxBelowQueryMessage extends QueryMessage {
+
+		private static final long serialVersionUID = 4223616170287440981L;
+
+		private long number;
+
+		/**
+		 * Construct a new {@link MaxBelowQueryMessage} object.
+		 * 
+		 * @param number the exclusive upper bound for the requested prime
+		 */
+		public MaxBelowQueryMessage(final long number) {
+			this.number = number;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private MaxBelowQueryMessage() {
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Max prime below %,d", this.number);
+		}
+	}
+
+	/**
+	 * Answers a {@link QueryMessage}.
+	 */
+	public static class QueryResultMessage implements Serializable {
+
+		private static final long serialVersionUID = -1420418218307713036L;
+
+		private QueryMessage query;
+
+		private long count;
+
+		private long[] primes;
+
+		/**
+		 * Construct a new {@link QueryResultMessage} object.
+		 * 
+		 * @param query the answered query
+		 * @param count the number of primes that match the query, which can exceed the number of returned primes
+		 * @param primes the returned primes in ascending order
+		 */
+		public QueryResultMessage(final QueryMessage query, final long count, final long[] primes) {
+			this.query = query;
+			this.count = count;
+			this.primes = primes;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private QueryResultMessage() {
+		}
+
+		public QueryMessage getQuery() {
+			return this.query;
+		}
+
+		public long getCount() {
+			return this.count;
+		}
+
+		public long[] getPrimes() {
+			return this.primes;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %,d primes %s", this.query, this.count, Arrays.toString(this.primes));
+		}
+	}
+
+	// Creates the store for the primes
+	private final PrimeStore.Factory primeStoreFactory;
+
 	// The set of all prime numbers received by this listener actor
-	private final Set<Long> primes = new HashSet<>();
+	private PrimeStore primes;
+
+	// The file to reload primes from or null
+	private final Path primesFile;
+
+	// The ranges of numbers whose primes have been reloaded completely
+	private RangeIndex reloadedRanges = new RangeIndex();
+
+	// A reference to the exporter actor that persists all new primes or null
+	private final ActorRef exporter;
+
+	// The ranges of numbers whose primes are in the prime file or on their way to it
+	private RangeIndex persistedRanges = new RangeIndex();
+
+	// The number of primes in the store, as exposed to the metrics
+	private final AtomicLong numPrimes = new AtomicLong();
+
+	// The number of batches that this listener has processed
+	private final LongAdder numProcessedBatches = Metrics.getDefault().counter("listener_batches");
+
+	/**
+	 * Construct a new {@link Listener} object.
+	 * 
+	 * @param primeStoreFactory defines which {@link PrimeStore} to collect the primes in
+	 * @param primesFile a prime file with the results of previous runs to start with or {@code null}
+	 * @param exporter a reference to an {@link Exporter} actor to send all new primes to or {@code null}
+	 */
+	public Listener(final PrimeStore.Factory primeStoreFactory, final Path primesFile, final ActorRef exporter) {
+		this.primeStoreFactory = primeStoreFactory;
+		this.primes = primeStoreFactory.create();
+		this.primesFile = primesFile;
+		this.exporter = exporter;
+	}
 	
 	@Override
 	public void preStart() throws Exception {
@@ -79,6 +329,34 @@ public class Listener extends AbstractLoggingActor {
 		
 		// Register at this actor system's reaper
 		Reaper.watchWithDefaultReaper(this);
+
+		// Expose the size of the store
+		Metrics.getDefault().gauge("listener_store_primes", this.numPrimes::get);
+
+		// Reload the primes of previous runs
+		if (this.primesFile != null && Files.exists(this.primesFile))
+			this.reload();
+	}
+
+	private void reload() {
+		final long[] numBatches = {0};
+		try {
+			PrimeFileReader.read(this.primesFile, batch -> {
+				this.primes.add(batch);
+				this.reloadedRanges.add(batch.getRangeMin(), batch.getRangeMax());
+				this.persistedRanges.add(batch.getRangeMin(), batch.getRangeMax());
+				numBatches[0]++;
+			});
+			this.log().info("Reloaded {} primes in {} batches from {}, covering {} ranges.", this.primes.size(), numBatches[0], this.primesFile, this.reloadedRanges.size());
+		} catch (IOException e) {
+
+			// Start from scratch rather than dying, which would leave the master waiting for acknowledgements forever
+			this.log().error(e, "Could not reload the primes from {}, so starting without them.", this.primesFile);
+			this.primes = this.primeStoreFactory.create();
+			this.reloadedRanges = new RangeIndex();
+			this.persistedRanges = new RangeIndex();
+		}
+		this.numPrimes.set(this.primes.size());
 	}
 
 
@@ -86,6 +364,10 @@ public class Listener extends AbstractLoggingActor {
 	public void postStop() throws Exception {
 		super.postStop();
 		
+		// If the listener has stopped, it can also stop the exporter once it has written all primes
+		if (this.exporter != null)
+			this.exporter.tell(PoisonPill.getInstance(), this.getSelf());
+		
 		// Log the stop event
 		this.log().info("Stopped {}.", this.getSelf());
 	}
@@ -96,33 +378,85 @@ public class Listener extends AbstractLoggingActor {
 				.match(PrimesMessage.class, this::handle)
 				.match(LogPrimesMessage.class, this::handle)
 				.match(LogMaxMessage.class, this::handle)
+				.match(CoverageRequestMessage.class, this::handle)
+				.match(CountQueryMessage.class, this::handle)
+				.match(NthPrimeQueryMessage.class, this::handle)
+				.match(RangeQueryMessage.class, this::handle)
+				.match(MaxBelowQueryMessage.class, this::handle)
 				.match(ShutdownMessage.class, this::handle)
 				.matchAny(object -> this.log().info(this.getClass().getName() + " received unknown message: " + object.toString()))
 				.build();
 	}
 	
 	private void handle(PrimesMessage message) {
-		this.primes.addAll(message.primes);
+		this.primes.add(message.primes);
+		this.numPrimes.set(this.primes.size());
+		this.numProcessedBatches.increment();
+		
+		// Persist the batch unless its range is in the prime file already, so that a reload covers every checked range, even if it has no new primes
+		final long rangeMin = message.primes.getRangeMin(), rangeMax = message.primes.getRangeMax();
+		if (this.exporter != null && this.persistedRanges.count(rangeMin, rangeMax) < rangeMax - rangeMin + 1) {
+			this.exporter.tell(new Exporter.BatchMessage(message.primes), this.getSelf());
+			this.persistedRanges.add(rangeMin, rangeMax);
+		}
+
+		// Acknowledge the batch, so that the master may send more
+		if (!this.getSender().equals(this.getContext().getSystem().deadLetters()))
+			this.getSender().tell(new Master.AcknowledgementMessage(), this.getSelf());
 	}
 	
 	private void handle(LogPrimesMessage message) {
-		String primeList = this.primes.stream()
-				.mapToLong(Long::longValue)
-				.sorted()
-				.mapToObj(prime -> String.valueOf(prime))
-				.collect(Collectors.joining(";"));
+		StringBuilder primeList = new StringBuilder();
+		this.primes.forEach(prime -> {
+			if (primeList.length() > 0)
+				primeList.append(';');
+			primeList.append(prime);
+		});
 		this.log().info(String.format("Primes: %s", primeList));		
 	}
 
 	private void handle(LogMaxMessage message) {
-		Long prime = this.primes.stream()
-				.collect(Collectors.maxBy(Comparator.naturalOrder()))
-				.orElseGet(() -> { return 0L; });
+		long prime = this.primes.max().orElse(0L);
 		this.log().info(String.format("Max prime: %d", prime));		
 	}
 
+	private void handle(CoverageRequestMessage message) {
+		this.getSender().tell(new Master.CoverageMessage(this.reloadedRanges.toArray()), this.getSelf());
+	}
+
+	private void handle(CountQueryMessage message) {
+		this.answer(message, this.primes.count(message.rangeMin, message.rangeMax), new long[0]);
+	}
+
+	private void handle(NthPrimeQueryMessage message) {
+		this.answer(message, this.primes.nth(message.n));
+	}
+
+	private void handle(RangeQueryMessage message) {
+		long count = this.primes.count(message.rangeMin, message.rangeMax);
+		this.answer(message, count, this.primes.range(message.rangeMin, message.rangeMax, message.offset, message.limit));
+	}
+
+	private void handle(MaxBelowQueryMessage message) {
+		this.answer(message, this.primes.maxBelow(message.number));
+	}
+
+	private void answer(QueryMessage query, OptionalLong prime) {
+		this.answer(query, prime.isPresent() ? 1 : 0, prime.isPresent() ? new long[] {prime.getAsLong()} : new long[0]);
+	}
+
+	private void answer(QueryMessage query, long count, long[] primes) {
+		QueryResultMessage result = new QueryResultMessage(query, count, primes);
+		this.log().info(result.toString());
+		
+		// Send the result back unless the query was posed without a sender
+		if (!this.getSender().equals(this.getContext().getSystem().deadLetters()))
+			this.getSender().tell(result, this.getSelf());
+	}
+
 	private void handle(ShutdownMessage message) {
-		// We could write all primes to disk here
+		// Log the size of the collected result
+		this.log().info(String.format("Collected %,d primes in about %,d bytes.", this.primes.size(), this.primes.memoryUsage()));
 		
 		this.getSelf().tell(PoisonPill.getInstance(), this.getSelf());
 	}
@@ -4,13 +4,16 @@ import static akka.actor.SupervisorStrategy.escalate;
 import static akka.actor.SupervisorStrategy.stop;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 import akka.actor.AbstractLoggingActor;
 import akka.actor.ActorRef;
 import akka.actor.Address;
+import akka.actor.Cancellable;
 import akka.actor.Deploy;
 import akka.actor.OneForOneStrategy;
 import akka.actor.PoisonPill;
@@ -19,8 +22,12 @@ import akka.actor.SupervisorStrategy;
 import akka.actor.Terminated;
 import akka.japi.pf.DeciderBuilder;
 import akka.remote.RemoteScope;
+import de.hpi.akka_tutorial.metrics.Histogram;
+import de.hpi.akka_tutorial.metrics.Metrics;
+import de.hpi.akka_tutorial.primes.PrimeBatch;
 import de.hpi.akka_tutorial.remote.actors.scheduling.SchedulingStrategy;
 import de.hpi.akka_tutorial.remote.messages.ShutdownMessage;
+import de.hpi.akka_tutorial.util.RangeIndex;
 import scala.concurrent.duration.Duration;
 
 /**
@@ -30,6 +37,12 @@ public class Master extends AbstractLoggingActor {
 
 	public static final String DEFAULT_NAME = "master";
 
+	// The number of batches that the listener may lag behind before the master stops granting subqueries
+	static final int MAX_UNACKNOWLEDGED_BATCHES = 256;
+
+	// The interval at which the master logs the progress of running queries
+	private static final long PROGRESS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
 	/**
 	 * Create the {@link Props} necessary to instantiate new {@link Master} actors.
 	 *
@@ -46,17 +59,34 @@ public class Master extends AbstractLoggingActor {
 
 		private static final long serialVersionUID = 1538940836039448197L;
 
+		// The priority of ranges that do not specify one
+		public static final int DEFAULT_PRIORITY = 0;
+
 		private long startNumber, endNumber;
 
+		private int priority;
+
 		/**
-		 * Construct a new {@link RangeMessage} object.
+		 * Construct a new {@link RangeMessage} object with the default priority.
 		 * 
 		 * @param startNumber first number in the range to be checked as prime (inclusive)
 		 * @param endNumber last number in the range to be checked as prime (inclusive)
 		 */
 		public RangeMessage(final long startNumber, final long endNumber) {
+			this(startNumber, endNumber, DEFAULT_PRIORITY);
+		}
+
+		/**
+		 * Construct a new {@link RangeMessage} object.
+		 * 
+		 * @param startNumber first number in the range to be checked as prime (inclusive)
+		 * @param endNumber last number in the range to be checked as prime (inclusive)
+		 * @param priority the priority of the range; ranges with higher priorities get a larger share of the workers
+		 */
+		public RangeMessage(final long startNumber, final long endNumber, final int priority) {
 			this.startNumber = startNumber;
 			this.endNumber = endNumber;
+			this.priority = priority;
 		}
 
 		/**
@@ -68,7 +98,7 @@ public class Master extends AbstractLoggingActor {
 
 		@Override
 		public String toString() {
-			return String.format("%s[%,d..%,d]", this.getClass().getSimpleName(), this.startNumber, this.endNumber);
+			return String.format("%s[%,d..%,d, priority %d]", this.getClass().getSimpleName(), this.startNumber, this.endNumber, this.priority);
 		}
 	}
 
@@ -81,21 +111,58 @@ public class Master extends AbstractLoggingActor {
 
 		private int requestId;
 
-		private List<Long> primes;
+		private long attemptId;
+
+		private int sequenceNumber;
+
+		private PrimeBatch primes;
 
 		private boolean isComplete;
 
+		private long computeNanos;
+
 		/**
-		 * Create a new instance.
+		 * Create a new instance for the only batch of a subquery that is not retried.
 		 *
 		 * @param requestId  the ID of the query that is being served
 		 * @param primes     some discovered primes
 		 * @param isComplete whether all primes of the current subquery have been discovered
 		 */
-		public PrimesMessage(final int requestId, final List<Long> primes, final boolean isComplete) {
+		public PrimesMessage(final int requestId, final PrimeBatch primes, final boolean isComplete) {
+			this(requestId, 0, 0, primes, isComplete);
+		}
+
+		/**
+		 * Create a new instance.
+		 *
+		 * @param requestId      the ID of the query that is being served
+		 * @param attemptId      the ID of the attempt to process the subquery, as given by {@link Worker.ValidationMessage#getAttemptId()}
+		 * @param sequenceNumber the position of this batch among the batches of the attempt, starting at 0
+		 * @param primes         some discovered primes
+		 * @param isComplete     whether all primes of the current subquery have been discovered
+		 */
+		public PrimesMessage(final int requestId, final long attemptId, final int sequenceNumber, final PrimeBatch primes, final boolean isComplete) {
+			this(requestId, attemptId, sequenceNumber, primes, isComplete, 0);
+		}
+
+		/**
+		 * Create a new instance.
+		 *
+		 * @param requestId      the ID of the query that is being served
+		 * @param attemptId      the ID of the attempt to process the subquery, as given by {@link Worker.ValidationMessage#getAttemptId()}
+		 * @param sequenceNumber the position of this batch among the batches of the attempt, starting at 0
+		 * @param primes         some discovered primes
+		 * @param isComplete     whether all primes of the current subquery have been discovered
+		 * @param computeNanos   the time in nanoseconds that the worker has spent on the subquery so far or {@code 0} if unknown
+		 */
+		public PrimesMessage(final int requestId, final long attemptId, final int sequenceNumber, final PrimeBatch primes, final boolean isComplete,
+				final long computeNanos) {
 			this.requestId = requestId;
+			this.attemptId = attemptId;
+			this.sequenceNumber = sequenceNumber;
 			this.primes = primes;
 			this.isComplete = isComplete;
+			this.computeNanos = computeNanos;
 		}
 		
 		/**
@@ -105,23 +172,149 @@ public class Master extends AbstractLoggingActor {
 		private PrimesMessage() {
 		}
 
+		public int getRequestId() {
+			return this.requestId;
+		}
+
+		public long getAttemptId() {
+			return this.attemptId;
+		}
+
+		public int getSequenceNumber() {
+			return this.sequenceNumber;
+		}
+
+		public PrimeBatch getPrimes() {
+			return this.primes;
+		}
+
+		public boolean isComplete() {
+			return this.isComplete;
+		}
+
+		public long getComputeNanos() {
+			return this.computeNanos;
+		}
+
 		@Override
 		public boolean equals(Object o) {
+			// The compute time is a measurement rather than content, so it does not distinguish messages
 			if (this == o) return true;
 			if (o == null || getClass() != o.getClass()) 
 				return false;
 			final PrimesMessage that = (PrimesMessage) o;
 			return this.requestId == that.requestId &&
+					this.attemptId == that.attemptId &&
+					this.sequenceNumber == that.sequenceNumber &&
 					this.isComplete == that.isComplete &&
 					Objects.equals(this.primes, that.primes);
 		}
 
 		@Override
 		public int hashCode() {
-			return Objects.hash(this.requestId, this.primes, this.isComplete);
+			return Objects.hash(this.requestId, this.attemptId, this.sequenceNumber, this.primes, this.isComplete);
 		}
 	}
 
+	/**
+	 * Informs the {@link Master} that a {@link Worker} has truncated one of its ranges as the answer to a
+	 * {@link Worker.TruncateMessage}.
+	 */
+	public static class TruncatedMessage implements Serializable {
+
+		private static final long serialVersionUID = -6358447016359342208L;
+
+		private int requestId;
+
+		private long rangeMin, boundary, releasedRangeMax;
+
+		/**
+		 * Construct a new {@link TruncatedMessage} object.
+		 * 
+		 * @param requestId the ID of the query that the range belongs to
+		 * @param rangeMin first number of the range as sent to the worker
+		 * @param boundary the last number that the worker is going to check
+		 * @param releasedRangeMax the last number that the worker has released; nothing was released if it equals the boundary
+		 */
+		public TruncatedMessage(final int requestId, final long rangeMin, final long boundary, final long releasedRangeMax) {
+			this.requestId = requestId;
+			this.rangeMin = rangeMin;
+			this.boundary = boundary;
+			this.releasedRangeMax = releasedRangeMax;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private TruncatedMessage() {
+		}
+
+		public int getRequestId() {
+			return this.requestId;
+		}
+
+		public long getBoundary() {
+			return this.boundary;
+		}
+
+		public long getReleasedRangeMax() {
+			return this.releasedRangeMax;
+		}
+	}
+
+	/**
+	 * Informs the {@link Master} about ranges of numbers whose primes are already known, e.g., as the answer to a
+	 * {@link Listener.CoverageRequestMessage}.
+	 */
+	public static class CoverageMessage implements Serializable {
+
+		private static final long serialVersionUID = -2981416750232117032L;
+
+		private long[] ranges;
+
+		/**
+		 * Construct a new {@link CoverageMessage} object.
+		 * 
+		 * @param ranges the covered ranges as pairs of first and last number, i.e., {@code [min0, max0, min1, max1, ...]}
+		 */
+		public CoverageMessage(final long[] ranges) {
+			this.ranges = ranges;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private CoverageMessage() {
+		}
+	}
+
+	/**
+	 * Tells the {@link Master} that the {@link Listener} has processed one of the {@link Listener.PrimesMessage}s that it
+	 * forwarded, which allows the master to forward another one.
+	 */
+	public static class AcknowledgementMessage implements Serializable {
+
+		private static final long serialVersionUID = 4917263400985146247L;
+	}
+
+	/**
+	 * Asks the {@link Master} to log the progress of the running queries and the rates and backlogs of its workers.
+	 */
+	public static class StatusRequestMessage implements Serializable {
+
+		private static final long serialVersionUID = -6104874377524958893L;
+	}
+
+	/**
+	 * Asks the {@link Master} to let its {@link SchedulingStrategy} check the progress of the running tasks.
+	 */
+	public static class TickMessage implements Serializable {
+
+		private static final long serialVersionUID = 6480339853623095781L;
+	}
+
 	/**
 	 * Asks the {@link Master} to schedule work to a new remote actor system.
 	 */
@@ -131,8 +324,19 @@ public class Master extends AbstractLoggingActor {
 
 		private Address remoteAddress;
 
-		public RemoteSystemMessage(final Address remoteAddress) {
+		private int numCores, numWorkers;
+
+		/**
+		 * Construct a new {@link RemoteSystemMessage} object.
+		 * 
+		 * @param remoteAddress the address of the remote actor system
+		 * @param numCores the number of processor cores that are available to the remote actor system
+		 * @param numWorkers the number of workers to deploy to the remote actor system
+		 */
+		public RemoteSystemMessage(final Address remoteAddress, final int numCores, final int numWorkers) {
 			this.remoteAddress = remoteAddress;
+			this.numCores = numCores;
+			this.numWorkers = numWorkers;
 		}
 		
 		/**
@@ -143,6 +347,16 @@ public class Master extends AbstractLoggingActor {
 		}
 	}
 
+	/**
+	 * The attempt and the sequence number of the last batch that a worker has sent.
+	 */
+	private static class BatchPosition {
+
+		private long attemptId;
+
+		private int sequenceNumber;
+	}
+
 	// The supervisor strategy for the worker actors created by this master actor
 	private static SupervisorStrategy strategy =
 			new OneForOneStrategy(0, Duration.create(1, TimeUnit.SECONDS), DeciderBuilder
@@ -156,12 +370,38 @@ public class Master extends AbstractLoggingActor {
 	// The scheduling strategy that splits range messages into smaller tasks and distributes these to the workers
 	private final SchedulingStrategy schedulingStrategy;
 
+	// The ranges of numbers whose primes have been completely sent to the listener
+	private final RangeIndex completedRanges = new RangeIndex();
+
+	// The position of the last accepted batch of each worker, so as to drop duplicate and out-of-order batches
+	private final Map<ActorRef, BatchPosition> worker2lastBatch = new HashMap<>();
+
+	// A scheduling item to regularly check the progress of the running tasks
+	private Cancellable tickSchedule;
+
+	// The statistics of the running queries and of the workers
+	private final ProgressTracker progressTracker = new ProgressTracker(System.nanoTime());
+
+	// The time at which the progress has been logged last
+	private long lastProgressLogNanos = System.nanoTime();
+
+	// The metrics of this JVM and the ones that the master measures
+	private final Metrics metrics = Metrics.getDefault();
+	private final Histogram schedulingNanos = this.metrics.histogram("master_scheduling_nanos");
+	private final Histogram primesMessageBytes = this.metrics.histogram("master_primes_message_bytes");
+
 	// A helper variable to assign unique IDs to each range query
 	private int nextQueryId = 0;
 
 	// A flag indicating whether this actor is still accepting new range messages
 	private boolean isAcceptingRequests = true;
 
+	// The number of batches that have been forwarded to the listener, but have not been acknowledged yet
+	private int numUnacknowledgedBatches = 0;
+
+	// A flag indicating whether the scheduling is paused, because the listener lags behind
+	private boolean isSchedulingPaused = false;
+
 	/**
 	 * Construct a new {@link Master} object.
 	 * 
@@ -177,12 +417,14 @@ public class Master extends AbstractLoggingActor {
 		// Create a scheduling strategy.
 		this.schedulingStrategy = schedulingStrategyFactory.create(this.getSelf());
 		
-		// Start the specified number of local workers
+		// Start the specified number of local workers, which share the local cores
+		final int numCores = Runtime.getRuntime().availableProcessors();
+		final double localCapacity = capacity(numCores, numLocalWorkers);
 		for (int i = 0; i < numLocalWorkers; i++) {
 			
 			// Create a new worker
-			ActorRef worker = this.getContext().actorOf(Worker.props());
-			this.schedulingStrategy.addWorker(worker);
+			ActorRef worker = this.getContext().actorOf(Worker.props(parallelism(numCores, numLocalWorkers)));
+			this.schedulingStrategy.addWorker(worker, localCapacity, this.getSelf().path().address());
 
 			// Add the worker to the watch list and our router
 			this.getContext().watch(worker);
@@ -195,12 +437,31 @@ public class Master extends AbstractLoggingActor {
 		
 		// Register at this actor system's reaper
 		Reaper.watchWithDefaultReaper(this);
+
+		// Watch the listener, without which no results can be delivered and no acknowledgements arrive
+		this.getContext().watch(this.listener);
+
+		// Ask the listener which ranges it already knows from previous runs
+		this.listener.tell(new Listener.CoverageRequestMessage(), this.getSelf());
+
+		// Regularly check the progress of the running tasks, e.g., to detect stragglers
+		this.tickSchedule = this.getContext().getSystem().scheduler().schedule(
+				Duration.create(500, TimeUnit.MILLISECONDS),
+				Duration.create(500, TimeUnit.MILLISECONDS),
+				this.getSelf(),
+				new TickMessage(),
+				this.getContext().dispatcher(),
+				this.getSelf()
+		);
 	}
 
 	@Override
 	public void postStop() throws Exception {
 		super.postStop();
 		
+		// Stop checking the progress
+		this.tickSchedule.cancel();
+
 		// If the master has stopped, it can also stop the listener
 		this.listener.tell(PoisonPill.getInstance(), this.getSelf());
 		
@@ -219,6 +480,12 @@ public class Master extends AbstractLoggingActor {
 				.match(RemoteSystemMessage.class, this::handle)
 				.match(RangeMessage.class, this::handle)
 				.match(PrimesMessage.class, this::handle)
+				.match(CoverageMessage.class, this::handle)
+				.match(TickMessage.class, this::handle)
+				.match(TruncatedMessage.class, this::handle)
+				.match(AcknowledgementMessage.class, this::handle)
+				.match(StatusRequestMessage.class, this::handle)
+				.match(Worker.StatusMessage.class, this::handle)
 				.match(ShutdownMessage.class, this::handle)
 				.match(Terminated.class, this::handle)
 				.matchAny(object -> this.log().info(this.getClass().getName() + " received unknown message: " + object.toString()))
@@ -227,16 +494,33 @@ public class Master extends AbstractLoggingActor {
 
 	private void handle(RemoteSystemMessage message) {
 
-		// Create a new worker with the given URI
-		ActorRef worker = this.getContext().actorOf(Worker.props().withDeploy(new Deploy(new RemoteScope(message.remoteAddress))));
-		
-		// Add worker to the scheduler
-		this.schedulingStrategy.addWorker(worker);
+		final double capacity = capacity(message.numCores, message.numWorkers);
+		for (int i = 0; i < message.numWorkers; i++) {
+
+			// Create a new worker with the given URI
+			ActorRef worker = this.getContext().actorOf(Worker.props(parallelism(message.numCores, message.numWorkers))
+					.withDeploy(new Deploy(new RemoteScope(message.remoteAddress))));
+			
+			// Add worker to the scheduler
+			this.schedulingStrategy.addWorker(worker, capacity, message.remoteAddress);
+
+			// Add the worker to the watch list
+			this.getContext().watch(worker);
+
+			this.log().info("New worker: " + worker);
+		}
+	}
 
-		// Add the worker to the watch list
-		this.getContext().watch(worker);
+	private static double capacity(int numCores, int numWorkers) {
 
-		this.log().info("New worker: " + worker);
+		// Workers use as many cores as their parallelism, but more workers than cores have to share them
+		return numWorkers > numCores ? (double) numCores / numWorkers : parallelism(numCores, numWorkers);
+	}
+
+	private static int parallelism(int numCores, int numWorkers) {
+
+		// Fewer workers than cores split the cores among them, so that, e.g., a single worker saturates its node
+		return Math.max(1, numCores / Math.max(1, numWorkers));
 	}
 
 	private void handle(RangeMessage message) {
@@ -247,9 +531,104 @@ public class Master extends AbstractLoggingActor {
 			return;
 		}
 
-		// Schedule the request
-		this.schedulingStrategy.schedule(this.nextQueryId, message.startNumber, message.endNumber);
-		this.nextQueryId++;
+		// The primes of completed ranges are already in the listener's store, so log what can be served from there
+		final long numKnownNumbers = this.completedRanges.count(message.startNumber, message.endNumber);
+		if (numKnownNumbers > 0)
+			this.log().info("Serving {} of {} numbers of {} from the listener.", numKnownNumbers, message.endNumber - message.startNumber + 1, message);
+
+		// Schedule only the gaps, each as a query of its own on behalf of the sender
+		final ActorRef client = this.getSender();
+		this.completedRanges.forEachGap(message.startNumber, message.endNumber, (gapStartNumber, gapEndNumber) -> {
+			final int queryId = this.nextQueryId;
+			this.decide(() -> this.schedulingStrategy.schedule(queryId, gapStartNumber, gapEndNumber, message.priority, client));
+			this.progressTracker.started(this.nextQueryId, gapStartNumber, gapEndNumber, System.nanoTime());
+			this.nextQueryId++;
+		});
+	}
+
+	private void handle(CoverageMessage message) {
+		for (int i = 0; i < message.ranges.length; i += 2)
+			this.completedRanges.add(message.ranges[i], message.ranges[i + 1]);
+		this.log().info("Received {} known ranges.", message.ranges.length / 2);
+	}
+
+	private void handle(TickMessage message) {
+		this.decide(this.schedulingStrategy::tick);
+
+		// Log the progress regularly while queries are running
+		final long nanos = System.nanoTime();
+		if (nanos - this.lastProgressLogNanos >= PROGRESS_LOG_INTERVAL_NANOS) {
+			if (this.progressTracker.hasQueriesInProgress())
+				this.logProgress(nanos);
+			this.progressTracker.startWindow(nanos);
+			this.lastProgressLogNanos = nanos;
+		}
+	}
+
+	private void handle(StatusRequestMessage message) {
+		this.logProgress(System.nanoTime());
+
+		// Ask the workers for their backlogs, which they report on their own
+		for (ActorRef worker : this.getContext().getChildren())
+			worker.tell(new Worker.StatusRequestMessage(), this.getSelf());
+	}
+
+	private void handle(Worker.StatusMessage message) {
+		final ActorRef worker = this.getSender();
+		this.log().info("{} has {} ranges with {} unchecked numbers and is {}.", worker, message.getNumTasks(),
+				message.getNumRemainingNumbers(), message.isComputing() ? "computing" : "idle");
+
+		// The worker is responsive, which ends its quarantine if its lease had expired
+		this.decide(() -> this.schedulingStrategy.responded(worker));
+	}
+
+	private void logProgress(long nanos) {
+		final List<String> lines = this.progressTracker.report(nanos);
+		if (lines.isEmpty())
+			this.log().info("No queries and no workers.");
+		else if (!this.progressTracker.hasQueriesInProgress())
+			this.log().info("No queries in progress.\n{}", String.join("\n", lines));
+		else
+			this.log().info("Progress:\n{}", String.join("\n", lines));
+	}
+
+	private void handle(TruncatedMessage message) {
+		final ActorRef worker = this.getSender();
+		this.decide(() -> this.schedulingStrategy.truncated(message.requestId, worker, message.boundary, message.releasedRangeMax));
+	}
+
+	private void decide(Runnable decision) {
+
+		// Measure how long the scheduling strategy takes for its decisions
+		final long startNanos = System.nanoTime();
+		decision.run();
+		this.schedulingNanos.record(System.nanoTime() - startNanos);
+	}
+
+	private void forward(PrimesMessage message, PrimeBatch primes) {
+		this.listener.tell(new Listener.PrimesMessage(primes), this.getSelf());
+
+		// Account for the newly checked numbers
+		this.progressTracker.checked(message.requestId, this.getSender(), primes.getRangeMax() - primes.getRangeMin() + 1, primes.size());
+
+		// Stop granting subqueries if the listener lags behind, so that its mailbox holds at most the results of the running subqueries
+		this.numUnacknowledgedBatches++;
+		if (!this.isSchedulingPaused && this.numUnacknowledgedBatches >= MAX_UNACKNOWLEDGED_BATCHES) {
+			this.log().debug("Pausing the scheduling, because the listener lags {} batches behind.", this.numUnacknowledgedBatches);
+			this.isSchedulingPaused = true;
+			this.schedulingStrategy.setPaused(true);
+		}
+	}
+
+	private void handle(AcknowledgementMessage message) {
+
+		// Resume the scheduling once the listener has caught up halfway, so that we do not toggle on every batch
+		this.numUnacknowledgedBatches--;
+		if (this.isSchedulingPaused && this.numUnacknowledgedBatches <= MAX_UNACKNOWLEDGED_BATCHES / 2) {
+			this.log().debug("Resuming the scheduling.");
+			this.isSchedulingPaused = false;
+			this.schedulingStrategy.setPaused(false);
+		}
 	}
 
 	private void handle(ShutdownMessage message) {
@@ -264,16 +643,39 @@ public class Master extends AbstractLoggingActor {
 	}
 	
 	private void handle(PrimesMessage message) {
+		this.primesMessageBytes.record(message.primes.encodedSize());
+
+		// Drop batches that repeat or skip a batch of their attempt; the attempt then neither progresses nor completes, so that its lease expires and the subquery is rescheduled
+		if (!this.isInSequence(this.getSender(), message)) {
+			this.log().warning("Dropping batch {} of attempt {} of {}, which is out of sequence.", message.sequenceNumber, message.attemptId, this.getSender());
+			return;
+		}
 		
-		// Forward the calculated primes to the listener
-		this.listener.tell(new Listener.PrimesMessage(message.primes), this.getSelf());
+		// Forward only the primes of numbers that the listener does not know yet, so that each prime reaches it exactly once, even if retried or duplicated attempts cut their batches differently
+		final long rangeMin = message.primes.getRangeMin(), rangeMax = message.primes.getRangeMax();
+		final long numKnownNumbers = this.completedRanges.count(rangeMin, rangeMax);
+		if (numKnownNumbers == 0) {
+			this.forward(message, message.primes);
+		} else {
+			this.log().debug("Batch {} of attempt {} overlaps {} known numbers.", message.sequenceNumber, message.attemptId, numKnownNumbers);
+			if (numKnownNumbers < rangeMax - rangeMin + 1)
+				this.completedRanges.forEachGap(rangeMin, rangeMax, (gapMin, gapMax) -> this.forward(message, message.primes.slice(gapMin, gapMax)));
+		}
 
-		// If the worker only returned an intermediate result, no further action is required
-		if (!message.isComplete) 
+		// Remember that the listener knows all primes of the batch's range
+		this.completedRanges.add(rangeMin, rangeMax);
+
+		// If the worker only returned an intermediate result, it is still alive, which extends its lease
+		if (!message.isComplete) {
+			final ActorRef worker = this.getSender();
+			this.decide(() -> this.schedulingStrategy.progress(message.requestId, message.attemptId, worker));
 			return;
+		}
 		
 		// Notify the scheduler that the worker has finished its task
-		this.schedulingStrategy.finished(message.requestId, this.getSender());
+		final ActorRef worker = this.getSender();
+		this.metrics.histogram(Metrics.name("worker_subquery_nanos", "worker", worker.path().toString())).record(message.computeNanos);
+		this.decide(() -> this.schedulingStrategy.finished(message.requestId, message.attemptId, worker, message.computeNanos));
 		
 		// Check if work is complete and stop the actor hierarchy if true
 		if (this.hasFinished()) {
@@ -281,13 +683,41 @@ public class Master extends AbstractLoggingActor {
 		}
 	}
 	
+	private boolean isInSequence(ActorRef worker, PrimesMessage message) {
+
+		// Batches of unnumbered attempts cannot be checked
+		if (message.attemptId == 0)
+			return true;
+
+		// Workers process their attempts one after the other in the order of their ids, so a batch must either continue the current attempt or start a later one
+		final BatchPosition lastBatch = this.worker2lastBatch.computeIfAbsent(worker, w -> new BatchPosition());
+		final boolean isNext = message.attemptId == lastBatch.attemptId
+				? message.sequenceNumber == lastBatch.sequenceNumber + 1
+				: message.attemptId > lastBatch.attemptId && message.sequenceNumber == 0;
+		if (!isNext)
+			return false;
+		lastBatch.attemptId = message.attemptId;
+		lastBatch.sequenceNumber = message.sequenceNumber;
+		return true;
+	}
+
 	private void handle(Terminated message) {
 		
 		// Find the sender of this message
 		final ActorRef sender = this.getSender();
+
+		// Without the listener, the results would be lost and the scheduling might stay paused forever, so give up
+		if (sender.equals(this.listener)) {
+			this.log().error("The listener has terminated with {} unacknowledged batches, so stopping.", this.numUnacknowledgedBatches);
+			this.getSelf().tell(PoisonPill.getInstance(), this.getSelf());
+			return;
+		}
 		
 		// Remove the sender from the scheduler
 		this.schedulingStrategy.removeWorker(sender);
+		this.progressTracker.removeWorker(sender);
+		this.worker2lastBatch.remove(sender);
+		this.metrics.remove(Metrics.name("worker_subquery_nanos", "worker", sender.path().toString()));
 		
 		this.log().warning("{} has terminated.", sender);
 		
@@ -305,7 +735,8 @@ public class Master extends AbstractLoggingActor {
 
 	private void stopSelfAndListener() {
 		
-		// Tell the listener to stop
+		// Tell the listener to stop, which is expected now
+		this.getContext().unwatch(this.listener);
 		this.listener.tell(new ShutdownMessage(), this.getSelf());
 		
 		// Stop self and all child actors by sending a poison pill
@@ -0,0 +1,165 @@
+package de.hpi.akka_tutorial.remote.actors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import akka.actor.ActorRef;
+
+/**
+ * The progress tracker keeps the statistics of the running queries and of the workers for the {@link Master}: how many
+ * numbers have been checked, how many primes have been found, how fast the queries advance, and when they will be done.
+ * Worker rates are measured over the last two reporting windows, so that they reflect the recent speed of the workers
+ * rather than their speed since they joined.
+ */
+class ProgressTracker {
+
+	/**
+	 * The statistics of a single query.
+	 */
+	private static class QueryProgress {
+
+		private final long rangeMin, rangeMax;
+
+		private final long startNanos;
+
+		private long numCheckedNumbers = 0, numPrimes = 0;
+
+		QueryProgress(final long rangeMin, final long rangeMax, final long startNanos) {
+			this.rangeMin = rangeMin;
+			this.rangeMax = rangeMax;
+			this.startNanos = startNanos;
+		}
+
+		long numNumbers() {
+			return this.rangeMax - this.rangeMin + 1;
+		}
+	}
+
+	/**
+	 * The numbers that a worker checked in the previous and in the current reporting window.
+	 */
+	private static class WorkerProgress {
+
+		private long numPreviousNumbers = 0, numCurrentNumbers = 0;
+	}
+
+	// The queries that have not been completed yet in the order of their ids
+	private final Map<Integer, QueryProgress> queryId2progress = new TreeMap<>();
+
+	// The known workers and their recent progress
+	private final Map<ActorRef, WorkerProgress> worker2progress = new HashMap<>();
+
+	// The start of the previous and of the current reporting window
+	private long previousWindowStartNanos, currentWindowStartNanos;
+
+	/**
+	 * Construct a new {@link ProgressTracker} object.
+	 *
+	 * @param nanos the current time in nanoseconds
+	 */
+	ProgressTracker(final long nanos) {
+		this.previousWindowStartNanos = nanos;
+		this.currentWindowStartNanos = nanos;
+	}
+
+	/**
+	 * Start tracking a query.
+	 *
+	 * @param queryId  the id of the query
+	 * @param rangeMin first number of the query (inclusive)
+	 * @param rangeMax last number of the query (inclusive)
+	 * @param nanos    the current time in nanoseconds
+	 */
+	void started(final int queryId, final long rangeMin, final long rangeMax, final long nanos) {
+		this.queryId2progress.put(queryId, new QueryProgress(rangeMin, rangeMax, nanos));
+	}
+
+	/**
+	 * Account for numbers that a worker has checked for the first time. A query is complete once all of its numbers have
+	 * been checked.
+	 *
+	 * @param queryId    the id of the query that the numbers belong to
+	 * @param worker     the worker that checked the numbers
+	 * @param numNumbers the number of checked numbers
+	 * @param numPrimes  the number of primes among them
+	 */
+	void checked(final int queryId, final ActorRef worker, final long numNumbers, final int numPrimes) {
+		this.worker2progress.computeIfAbsent(worker, key -> new WorkerProgress()).numCurrentNumbers += numNumbers;
+
+		final QueryProgress queryProgress = this.queryId2progress.get(queryId);
+		if (queryProgress == null)
+			return;
+		queryProgress.numCheckedNumbers += numNumbers;
+		queryProgress.numPrimes += numPrimes;
+		if (queryProgress.numCheckedNumbers >= queryProgress.numNumbers())
+			this.queryId2progress.remove(queryId);
+	}
+
+	/**
+	 * Stop tracking a worker, e.g., because it has terminated.
+	 *
+	 * @param worker the worker
+	 */
+	void removeWorker(final ActorRef worker) {
+		this.worker2progress.remove(worker);
+	}
+
+	/**
+	 * Check whether any query is in progress.
+	 *
+	 * @return whether there are incomplete queries
+	 */
+	boolean hasQueriesInProgress() {
+		return !this.queryId2progress.isEmpty();
+	}
+
+	/**
+	 * Start a new reporting window for the worker rates.
+	 *
+	 * @param nanos the current time in nanoseconds
+	 */
+	void startWindow(final long nanos) {
+		for (WorkerProgress workerProgress : this.worker2progress.values()) {
+			workerProgress.numPreviousNumbers = workerProgress.numCurrentNumbers;
+			workerProgress.numCurrentNumbers = 0;
+		}
+		this.previousWindowStartNanos = this.currentWindowStartNanos;
+		this.currentWindowStartNanos = nanos;
+	}
+
+	/**
+	 * Describe the progress of the queries and the rates of the workers.
+	 *
+	 * @param nanos the current time in nanoseconds
+	 * @return one line per query and per worker
+	 */
+	List<String> report(final long nanos) {
+		final List<String> lines = new ArrayList<>();
+
+		// Describe the queries with their rates so far, which yield their estimated time of completion
+		this.queryId2progress.forEach((queryId, queryProgress) -> {
+			final double rate = rate(queryProgress.numCheckedNumbers, nanos - queryProgress.startNanos);
+			final long numRemainingNumbers = queryProgress.numNumbers() - queryProgress.numCheckedNumbers;
+			lines.add(String.format("Query %d [%,d..%,d]: %.1f%% checked (%,d numbers, %,d primes) at %,.0f numbers/s, ETA %s",
+					queryId, queryProgress.rangeMin, queryProgress.rangeMax, 100.0 * queryProgress.numCheckedNumbers / queryProgress.numNumbers(),
+					queryProgress.numCheckedNumbers, queryProgress.numPrimes, rate, rate > 0 ? formatSeconds(numRemainingNumbers / rate) : "unknown"));
+		});
+
+		// Describe the workers with their recent rates
+		this.worker2progress.forEach((worker, workerProgress) -> lines.add(String.format("Worker %s: %,.0f numbers/s", worker.path(),
+				rate(workerProgress.numPreviousNumbers + workerProgress.numCurrentNumbers, nanos - this.previousWindowStartNanos))));
+		return lines;
+	}
+
+	private static double rate(long numNumbers, long nanos) {
+		return nanos > 0 ? numNumbers * (double) TimeUnit.SECONDS.toNanos(1) / nanos : 0;
+	}
+
+	private static String formatSeconds(double seconds) {
+		return seconds < 60 ? String.format("%.1f s", seconds) : String.format("%d min %d s", (long) seconds / 60, (long) seconds % 60);
+	}
+}
@@ -34,6 +34,26 @@ public class Shepherd extends AbstractLoggingActor {
 	public static class SubscriptionMessage implements Serializable {
 		
 		private static final long serialVersionUID = 6122957437037004535L;
+
+		private int numCores, numWorkers;
+
+		/**
+		 * Construct a new {@link SubscriptionMessage} object.
+		 * 
+		 * @param numCores the number of processor cores that are available to the subscribing actor system
+		 * @param numWorkers the number of workers that the subscribing actor system wants to host
+		 */
+		public SubscriptionMessage(final int numCores, final int numWorkers) {
+			this.numCores = numCores;
+			this.numWorkers = numWorkers;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private SubscriptionMessage() {
+		}
 	}
 	
 	// A reference to the master actor that spawns new workers upon the connection of new actor systems
@@ -89,7 +109,7 @@ public class Shepherd extends AbstractLoggingActor {
 		// Keep track of all subscribed slaves but avoid double subscription.
 		if (!this.slaves.add(slave)) 
 			return;
-		this.log().info("New subscription: " + slave);
+		this.log().info("New subscription: {} with {} cores and {} workers", slave, message.numCores, message.numWorkers);
 
 		// Acknowledge the subscription.
 		slave.tell(new Slave.AcknowledgementMessage(), this.getSelf());
@@ -100,8 +120,8 @@ public class Shepherd extends AbstractLoggingActor {
 		// Extract the remote system's address from the sender.
 		Address remoteAddress = this.getSender().path().address();
 
-		// Inform the master about the new remote system.
-		this.master.tell(new Master.RemoteSystemMessage(remoteAddress), this.getSelf());
+		// Inform the master about the new remote system and the number of workers it can host.
+		this.master.tell(new Master.RemoteSystemMessage(remoteAddress, message.numCores, message.numWorkers), this.getSelf());
 	}
 	
 	private void handle(ShutdownMessage message) {
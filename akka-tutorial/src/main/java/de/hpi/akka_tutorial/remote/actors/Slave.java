@@ -27,8 +27,8 @@ public class Slave extends AbstractLoggingActor {
 	 *
 	 * @return the {@link Props}
 	 */
-	public static Props props() {
-		return Props.create(Slave.class);
+	public static Props props(final int numWorkers) {
+		return Props.create(Slave.class, () -> new Slave(numWorkers));
 	}
 
 	/**
@@ -61,8 +61,20 @@ public class Slave extends AbstractLoggingActor {
 
 	}
 
+	// The number of workers that this actor system should host
+	private final int numWorkers;
+
 	// A scheduling item to keep on trying to reconnect as regularly
 	private Cancellable connectSchedule;
+
+	/**
+	 * Construct a new {@link Slave} object.
+	 * 
+	 * @param numWorkers the number of workers that the master should deploy to this actor system
+	 */
+	public Slave(final int numWorkers) {
+		this.numWorkers = numWorkers;
+	}
 	
 	@Override
 	public void preStart() throws Exception {
@@ -114,13 +126,16 @@ public class Slave extends AbstractLoggingActor {
 		// Find the shepherd actor in the remote actor system
 		final ActorSelection selection = this.getContext().getSystem().actorSelection(String.format("%s/user/%s", message.address, Shepherd.DEFAULT_NAME));
 
+		// Advertise the capacity of this actor system
+		final int numCores = Runtime.getRuntime().availableProcessors();
+
 		// Register the local actor system by periodically sending subscription messages (until an acknowledgement was received)
 		final Scheduler scheduler = this.getContext().getSystem().scheduler();
 		final ExecutionContextExecutor dispatcher = this.getContext().getSystem().dispatcher();
 		this.connectSchedule = scheduler.schedule(
 				Duration.Zero(),
 				Duration.create(5, TimeUnit.SECONDS),
-				() -> selection.tell(new Shepherd.SubscriptionMessage(), this.getSelf()),
+				() -> selection.tell(new Shepherd.SubscriptionMessage(numCores, this.numWorkers), this.getSelf()),
 				dispatcher
 		);
 	}
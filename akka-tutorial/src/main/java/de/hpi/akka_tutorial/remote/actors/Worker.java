@@ -1,26 +1,82 @@
 package de.hpi.akka_tutorial.remote.actors;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 
 import akka.actor.AbstractLoggingActor;
+import akka.actor.ActorRef;
 import akka.actor.Props;
+import akka.actor.Status;
+import akka.dispatch.Dispatchers;
+import akka.pattern.PatternsCS;
+import de.hpi.akka_tutorial.metrics.Histogram;
+import de.hpi.akka_tutorial.metrics.Metrics;
+import de.hpi.akka_tutorial.primes.MillerRabinEngine;
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+import de.hpi.akka_tutorial.primes.PrimeEngine;
+import de.hpi.akka_tutorial.primes.SegmentedSieveEngine;
+import de.hpi.akka_tutorial.primes.TrialDivisionEngine;
 
 /**
- * The worker waits tests ranges of numbers for prime numbers.
+ * The worker waits tests ranges of numbers for prime numbers. It computes the primes slice by slice on a dedicated
+ * compute dispatcher, so that the worker's own thread stays free for control messages, such as truncations,
+ * cancellations, and status requests, and the default dispatcher stays responsive under full load. A worker with a
+ * parallelism above one splits each slice into fork/join tasks on a pool that spans all cores of its node, so that a
+ * single worker per node can saturate the node.
  */
 public class Worker extends AbstractLoggingActor {
 
 	private static final int MAX_PRIMES_PER_MESSAGE = 1000;
 
+	// Ranges with fewer numbers are checked by trial division rather than by a sieve
+	private static final long MIN_SIEVE_RANGE_SIZE = 256;
+
+	// Ranges that are too small for a sieve are checked by Miller-Rabin once their numbers reach this magnitude
+	private static final long MIN_MILLER_RABIN_NUMBER = 1L << 20;
+
+	// Ranges are processed in slices that take about this long, so that the worker can react to other messages in between
+	private static final long TARGET_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	// The bounds for the number of numbers in a slice
+	private static final long MIN_SLICE_SIZE = 1L << 10, MAX_SLICE_SIZE = 1L << 24;
+
+	// Ranges with fewer remaining numbers are not truncated anymore
+	private static final long MIN_TRUNCATION_SIZE = 1L << 16;
+
+	// Parallel workers split each slice into about this many fork/join tasks per thread, so that the threads balance their load
+	private static final int TASKS_PER_THREAD = 4;
+
+	// Fork/join tasks check at least this many numbers, so that their overhead does not dominate
+	private static final long MIN_TASK_SIZE = 1L << 14;
+
+	// The dispatcher for the prime computations as defined in akka-tutorial/base.conf
+	public static final String COMPUTE_DISPATCHER = "akka-tutorial.compute-dispatcher";
+
 	/**
 	 * Create the {@link Props} necessary to instantiate new {@link Worker} actors.
 	 *
 	 * @return the {@link Props}
 	 */
 	public static Props props() {
-		return Props.create(Worker.class);
+		return props(1);
+	}
+
+	/**
+	 * Create the {@link Props} necessary to instantiate new {@link Worker} actors that compute with several threads.
+	 *
+	 * @param parallelism the number of threads that a worker should use to discover primes
+	 * @return the {@link Props}
+	 */
+	public static Props props(final int parallelism) {
+		// Workers are deployed to remote nodes, so we avoid a closure in their props
+		return Props.create(Worker.class, parallelism);
 	}
 
 	/**
@@ -32,17 +88,32 @@ public class Worker extends AbstractLoggingActor {
 		
 		private int id;
 
+		private long attemptId;
+
 		private long rangeMin, rangeMax;
 		
 		/**
-		 * Construct a new {@link ValidationMessage} object.
+		 * Construct a new {@link ValidationMessage} object for a range that is not retried.
 		 * 
 		 * @param id the id of the task that this range belongs to
 		 * @param rangeMin first number in the range to be checked as prime (inclusive)
 		 * @param rangeMax last number in the range to be checked as prime (inclusive)
 		 */
 		public ValidationMessage(int id, long rangeMin, long rangeMax) {
+			this(id, 0, rangeMin, rangeMax);
+		}
+
+		/**
+		 * Construct a new {@link ValidationMessage} object.
+		 * 
+		 * @param id the id of the task that this range belongs to
+		 * @param attemptId the id of this attempt to check the range, which distinguishes retries and duplicates
+		 * @param rangeMin first number in the range to be checked as prime (inclusive)
+		 * @param rangeMax last number in the range to be checked as prime (inclusive)
+		 */
+		public ValidationMessage(int id, long attemptId, long rangeMin, long rangeMax) {
 			this.id = id;
+			this.attemptId = attemptId;
 			this.rangeMin = rangeMin;
 			this.rangeMax = rangeMax;
 		}
@@ -53,14 +124,340 @@ public class Worker extends AbstractLoggingActor {
 		@SuppressWarnings("unused")
 		private ValidationMessage() {
 		}
+
+		public int getId() {
+			return this.id;
+		}
+
+		public long getAttemptId() {
+			return this.attemptId;
+		}
+
+		public long getRangeMin() {
+			return this.rangeMin;
+		}
+
+		public long getRangeMax() {
+			return this.rangeMax;
+		}
+	}
+
+	/**
+	 * Asks the {@link Worker} to give up the second half of the numbers that it has not yet checked in one of its ranges.
+	 * The {@link Worker} answers with a {@link Master.TruncatedMessage}.
+	 */
+	public static class TruncateMessage implements Serializable {
+
+		private static final long serialVersionUID = 3015466520237181337L;
+
+		private int id;
+
+		private long rangeMin;
+
+		/**
+		 * Construct a new {@link TruncateMessage} object.
+		 * 
+		 * @param id the id of the task that the range belongs to
+		 * @param rangeMin first number of the range as sent in the {@link ValidationMessage}
+		 */
+		public TruncateMessage(final int id, final long rangeMin) {
+			this.id = id;
+			this.rangeMin = rangeMin;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private TruncateMessage() {
+		}
+	}
+
+	/**
+	 * Asks the {@link Worker} to drop one of its ranges without reporting any further primes of it.
+	 */
+	public static class CancelMessage implements Serializable {
+
+		private static final long serialVersionUID = -3342165014871735642L;
+
+		private int id;
+
+		private long attemptId;
+
+		/**
+		 * Construct a new {@link CancelMessage} object.
+		 * 
+		 * @param id the id of the task that the range belongs to
+		 * @param attemptId the id of the attempt as sent in the {@link ValidationMessage}
+		 */
+		public CancelMessage(final int id, final long attemptId) {
+			this.id = id;
+			this.attemptId = attemptId;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private CancelMessage() {
+		}
+
+		public int getId() {
+			return this.id;
+		}
+
+		public long getAttemptId() {
+			return this.attemptId;
+		}
+	}
+
+	/**
+	 * Asks the {@link Worker} for its {@link StatusMessage}.
+	 */
+	public static class StatusRequestMessage implements Serializable {
+
+		private static final long serialVersionUID = 7152093845116251794L;
+	}
+
+	/**
+	 * Describes the backlog of a {@link Worker} as the answer to a {@link StatusRequestMessage}.
+	 */
+	public static class StatusMessage implements Serializable {
+
+		private static final long serialVersionUID = -5725640172853498154L;
+
+		private int numTasks;
+
+		private long numRemainingNumbers;
+
+		private boolean isComputing;
+
+		/**
+		 * Construct a new {@link StatusMessage} object.
+		 * 
+		 * @param numTasks the number of ranges that the worker has not completed yet
+		 * @param numRemainingNumbers the number of numbers in these ranges that have not been checked yet
+		 * @param isComputing whether the worker is computing a slice of a range right now
+		 */
+		public StatusMessage(final int numTasks, final long numRemainingNumbers, final boolean isComputing) {
+			this.numTasks = numTasks;
+			this.numRemainingNumbers = numRemainingNumbers;
+			this.isComputing = isComputing;
+		}
+
+		/**
+		 * For serialization/deserialization only.
+		 */
+		@SuppressWarnings("unused")
+		private StatusMessage() {
+		}
+
+		public int getNumTasks() {
+			return this.numTasks;
+		}
+
+		public long getNumRemainingNumbers() {
+			return this.numRemainingNumbers;
+		}
+
+		public boolean isComputing() {
+			return this.isComputing;
+		}
+	}
+
+	/**
+	 * Carries the primes of a slice of the current range from the compute dispatcher back to the {@link Worker}. It never
+	 * leaves the worker, so it need not be serializable.
+	 */
+	private static class SliceMessage {
+
+		private final Task task;
+
+		private final PrimeBatch primes;
+
+		private final long nanos;
+
+		SliceMessage(final Task task, final PrimeBatch primes, final long nanos) {
+			this.task = task;
+			this.primes = primes;
+			this.nanos = nanos;
+		}
+	}
+
+	/**
+	 * The state of a range that this worker processes.
+	 */
+	private static class Task {
+
+		private final int id;
+
+		private final long attemptId;
+
+		private final long rangeMin;
+
+		// The last number to check, which can decrease upon truncation
+		private long rangeMax;
+
+		// The first number that has not been claimed by a slice yet
+		private long nextNumber;
+
+		// The actor to send the primes to
+		private final ActorRef sender;
+
+		// The primes that have not been sent yet or null if the task has not been started
+		private PrimeBatch.Builder batchBuilder;
+
+		// The sequence number of the next batch of primes that is sent for this task
+		private int nextSequenceNumber = 0;
+
+		// The time at which the task has been started
+		private long startNanos;
+
+		Task(final ValidationMessage message, final ActorRef sender) {
+			this.id = message.id;
+			this.attemptId = message.attemptId;
+			this.rangeMin = message.rangeMin;
+			this.rangeMax = message.rangeMax;
+			this.nextNumber = message.rangeMin;
+			this.sender = sender;
+		}
 	}
 	
+	/**
+	 * The {@link PrimeEngine}s of one thread. The sieve keeps its segment in a buffer, so that engines must not be
+	 * shared among threads.
+	 */
+	private static class Engines {
+
+		private final PrimeEngine trialDivisionEngine = new TrialDivisionEngine();
+		private final PrimeEngine sieveEngine = new SegmentedSieveEngine();
+		private final PrimeEngine millerRabinEngine = new MillerRabinEngine();
+
+		/**
+		 * Select the {@link PrimeEngine} that is cheapest for the given range: Tiny ranges do not pay off the setup of a
+		 * sieve, while dense ranges are sieved segment by segment. Large numbers are tested with Miller-Rabin, because
+		 * trial division grows with their square root and the sieve's base primes would not fit into memory.
+		 */
+		PrimeEngine select(long rangeMin, long rangeMax) {
+			if (rangeMax > SegmentedSieveEngine.MAX_NUMBER)
+				return this.millerRabinEngine;
+			if (rangeMax - rangeMin < MIN_SIEVE_RANGE_SIZE)
+				return rangeMax < MIN_MILLER_RABIN_NUMBER ? this.trialDivisionEngine : this.millerRabinEngine;
+			return this.sieveEngine;
+		}
+	}
+
+	/**
+	 * Discovers the primes of consecutive parts of a slice in parallel by splitting them in halves recursively. The
+	 * primes of each part go to its own batch, so that they can be merged in order afterwards.
+	 */
+	private static class DiscoveryTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 2717407364925311183L;
+
+		private final long sliceMin, partSize, sliceMax;
+
+		private final PrimeBatch[] parts;
+
+		private final int fromPart, toPart;
+
+		DiscoveryTask(final long sliceMin, final long partSize, final long sliceMax, final PrimeBatch[] parts, final int fromPart, final int toPart) {
+			this.sliceMin = sliceMin;
+			this.partSize = partSize;
+			this.sliceMax = sliceMax;
+			this.parts = parts;
+			this.fromPart = fromPart;
+			this.toPart = toPart;
+		}
+
+		@Override
+		protected void compute() {
+
+			// Split the parts in halves until a single part remains
+			if (this.toPart - this.fromPart > 1) {
+				final int middlePart = (this.fromPart + this.toPart) >>> 1;
+				invokeAll(new DiscoveryTask(this.sliceMin, this.partSize, this.sliceMax, this.parts, this.fromPart, middlePart),
+						new DiscoveryTask(this.sliceMin, this.partSize, this.sliceMax, this.parts, middlePart, this.toPart));
+				return;
+			}
+
+			// Discover the primes of the part with the engines of the current thread
+			final long partMin = this.sliceMin + this.fromPart * this.partSize;
+			final long partMax = this.toPart == this.parts.length ? this.sliceMax : partMin + this.partSize - 1;
+			final PrimeBatch.Builder partBuilder = new PrimeBatch.Builder(partMin, MAX_PRIMES_PER_MESSAGE);
+			threadEngines.get().select(partMin, partMax).discover(partMin, partMax, partBuilder::add);
+			this.parts[this.fromPart] = partBuilder.build(partMax);
+		}
+	}
+
+	// The engines of the fork/join threads
+	private static final ThreadLocal<Engines> threadEngines = ThreadLocal.withInitial(Engines::new);
+
+	// The fork/join pool that the parallel workers of this node share; it is created on demand and outlives the actor
+	// systems of the JVM, so its threads are daemons that do not keep the JVM alive
+	private static ForkJoinPool forkJoinPool;
+
+	private static synchronized ForkJoinPool forkJoinPool() {
+		if (forkJoinPool == null) {
+			forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+				final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("worker-fork-join-" + thread.getPoolIndex());
+				thread.setDaemon(true);
+				return thread;
+			}, null, false);
+		}
+		return forkJoinPool;
+	}
+
+	// The number of threads that this worker uses to discover primes
+	private final int parallelism;
+
+	// The engines that this worker uses to discover primes on its own
+	private final Engines engines = new Engines();
+
+	// The ranges to process in the order of their arrival; the first one is being processed
+	private final Deque<Task> tasks = new ArrayDeque<>();
+
+	// The number of numbers to check in the next slice
+	private long sliceSize = 1L << 16;
+
+	// The executor that computes the slices
+	private Executor computeExecutor;
+
+	// Whether a slice is being computed, which is at most one at a time
+	private boolean isComputing = false;
+
+	// The compute times of the slices of all workers in this JVM
+	private final Histogram sliceNanos = Metrics.getDefault().histogram("worker_slice_nanos");
+
+	/**
+	 * Construct a new {@link Worker} object.
+	 * 
+	 * @param parallelism the number of threads that this worker should use to discover primes
+	 */
+	public Worker(final int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+
+		// Parallel workers should start with a slice that keeps all of their threads busy
+		this.sliceSize = Math.min(this.sliceSize * this.parallelism, MAX_SLICE_SIZE);
+	}
+
 	@Override
 	public void preStart() throws Exception {
 		super.preStart();
 		
 		// Register at this actor system's reaper
 		Reaper.watchWithDefaultReaper(this);
+
+		// Compute on the node's fork/join pool if this worker is parallel, on the dedicated dispatcher if the actor system
+		// defines it, and on the worker's own dispatcher otherwise
+		final Dispatchers dispatchers = this.getContext().getSystem().dispatchers();
+		if (this.parallelism > 1)
+			this.computeExecutor = forkJoinPool();
+		else if (dispatchers.hasDispatcher(COMPUTE_DISPATCHER))
+			this.computeExecutor = dispatchers.lookup(COMPUTE_DISPATCHER);
+		else
+			this.computeExecutor = this.getContext().dispatcher();
 	}
 
 	@Override
@@ -75,69 +472,158 @@ public class Worker extends AbstractLoggingActor {
 	public Receive createReceive() {
 		return receiveBuilder()
 				.match(ValidationMessage.class, this::handle)
+				.match(SliceMessage.class, this::handle)
+				.match(Status.Failure.class, this::handle)
+				.match(TruncateMessage.class, this::handle)
+				.match(CancelMessage.class, this::handle)
+				.match(StatusRequestMessage.class, this::handle)
 				.matchAny(object -> this.log().info(this.getClass().getName() + " received unknown message: " + object.toString()))
 				.build();
 	}
 
 	private void handle(ValidationMessage message) {
-		
-		// Log that we started processing the current task
-		this.log().info("Started discovering primes in [{},{}] ...", message.rangeMin, message.rangeMax);
-
-		// Iterate over the range of numbers and compute the primes
-		List<Long> primeBuffer = new ArrayList<>(MAX_PRIMES_PER_MESSAGE);
-		for (long i = message.rangeMin; i <= message.rangeMax; i++) {
-			if (isPrime(i)) {
-				
-				// Check the buffer size: We must not send too large messages, hence, also reply with intermediate results as necessary
-				if (primeBuffer.size() >= MAX_PRIMES_PER_MESSAGE) {
-					
-					// Create a copy of the elements in the buffer before sending them; never send mutable objects in a message!!!
-					ArrayList<Long> primeBufferCopy = new ArrayList<>(primeBuffer);
-					
-					// Send the intermediate results to the master actor
-					this.getSender().tell(new Master.PrimesMessage(message.id, primeBufferCopy, false), this.getSelf());
-					
-					// Clear the buffer
-					primeBuffer.clear();
-				}
-				
-				// Add the computed prime to the buffer
-				primeBuffer.add(i);
+
+		// Queue the range and start processing it unless another range is being processed
+		this.tasks.add(new Task(message, this.getSender()));
+		this.computeNextSlice();
+	}
+
+	private void handle(SliceMessage message) {
+		this.isComputing = false;
+		this.sliceNanos.record(message.nanos);
+
+		// Discard the slice if its task has been cancelled in the meantime
+		final Task task = this.tasks.peek();
+		if (task != message.task) {
+			this.computeNextSlice();
+			return;
+		}
+		this.adaptSliceSize(message.nanos);
+
+		// Add the primes of the slice to the current batch
+		final PrimeBatch.Builder batchBuilder = task.batchBuilder;
+		message.primes.forEach(prime -> {
+
+			// Check the buffer size: We must not send too large messages, hence, also reply with intermediate results as necessary
+			if (batchBuilder.size() >= MAX_PRIMES_PER_MESSAGE) {
+
+				// Send the intermediate results, which cover all numbers below the current prime, to the master actor
+				task.sender.tell(new Master.PrimesMessage(task.id, task.attemptId, task.nextSequenceNumber++, batchBuilder.build(prime - 1), false,
+						System.nanoTime() - task.startNanos), this.getSelf());
 			}
+
+			// Add the computed prime to the buffer
+			batchBuilder.add(prime);
+		});
+
+		if (task.nextNumber > task.rangeMax) {
+			// Send the primes to the master actor
+			task.sender.tell(new Master.PrimesMessage(task.id, task.attemptId, task.nextSequenceNumber++, batchBuilder.build(task.rangeMax), true,
+					System.nanoTime() - task.startNanos), this.getSelf());
+			this.tasks.poll();
 		}
 
-		// Send the primes to the master actor
-		this.getSender().tell(new Master.PrimesMessage(message.id, primeBuffer, true), this.getSelf());
+		// Continue with the next slice
+		this.computeNextSlice();
+	}
+
+	private void computeNextSlice() {
+		final Task task = this.tasks.peek();
+		if (task == null || this.isComputing)
+			return;
 
-		// Asynchronous version: Consider using a dedicated executor service.
-//		ActorRef sender = this.getSender();
-//		ActorRef self = this.getSelf();
-//		getContext().getSystem().dispatcher().execute(() -> {
-//			final List<Object> result = new ArrayList<>();
-//			for (Long number : message.getNumbers())
-//				if (this.isPrime(number.longValue()))
-//					result.add(number);
-//
-//			sender.tell(new Master.ObjectMessage(message.getId(), result), self);
-//		});
+		// Log that we started processing the current task
+		if (task.batchBuilder == null) {
+			this.log().info("Started discovering primes in [{},{}] ...", task.rangeMin, task.rangeMax);
+			task.batchBuilder = new PrimeBatch.Builder(task.rangeMin, MAX_PRIMES_PER_MESSAGE);
+			task.startNanos = System.nanoTime();
+		}
+
+		// Claim the next slice of numbers, so that truncations leave it alone
+		final long sliceMin = task.nextNumber;
+		final long sliceMax = task.rangeMax - sliceMin < this.sliceSize ? task.rangeMax : sliceMin + this.sliceSize - 1;
+		task.nextNumber = sliceMax + 1;
+
+		// Compute the primes of the slice on the compute executor and pipe them back, so that this actor stays responsive;
+		// only parallel workers split the slice, so that sequential workers never leave their dispatcher
+		final int numParts = this.parallelism > 1 ? (int) Math.max(1, Math.min(TASKS_PER_THREAD * this.parallelism, (sliceMax - sliceMin + 1) / MIN_TASK_SIZE)) : 1;
+		final PrimeEngine engine = numParts == 1 ? this.engines.select(sliceMin, sliceMax) : null;
+		final CompletableFuture<SliceMessage> slice = CompletableFuture.supplyAsync(() -> {
+			final long startNanos = System.nanoTime();
+			final PrimeBatch primes = engine != null ? discover(engine, sliceMin, sliceMax) : discoverInParallel(sliceMin, sliceMax, numParts);
+			return new SliceMessage(task, primes, System.nanoTime() - startNanos);
+		}, this.computeExecutor);
+		PatternsCS.pipe(slice, this.getContext().dispatcher()).to(this.getSelf());
+		this.isComputing = true;
 	}
 
-	private static boolean isPrime(long n) {
-		
-		// Check for the most basic primes
-		if (n == 1 || n == 2 || n == 3)
-			return true;
-
-		// Check if n is an even number
-		if (n % 2 == 0)
-			return false;
-
-		// Check the odds
-		for (long i = 3; i * i <= n; i += 2)
-			if (n % i == 0)
-				return false;
-		
-		return true;
+	private static PrimeBatch discover(PrimeEngine engine, long sliceMin, long sliceMax) {
+		final PrimeBatch.Builder sliceBuilder = new PrimeBatch.Builder(sliceMin, MAX_PRIMES_PER_MESSAGE);
+		engine.discover(sliceMin, sliceMax, sliceBuilder::add);
+		return sliceBuilder.build(sliceMax);
+	}
+
+	private static PrimeBatch discoverInParallel(long sliceMin, long sliceMax, int numParts) {
+
+		// Discover the primes of the parts with fork/join tasks
+		final PrimeBatch[] parts = new PrimeBatch[numParts];
+		forkJoinPool().invoke(new DiscoveryTask(sliceMin, (sliceMax - sliceMin + 1) / numParts, sliceMax, parts, 0, numParts));
+
+		// Merge the primes of the parts in order
+		int numPrimes = 0;
+		for (PrimeBatch part : parts)
+			numPrimes += part.size();
+		final PrimeBatch.Builder sliceBuilder = new PrimeBatch.Builder(sliceMin, numPrimes);
+		for (PrimeBatch part : parts)
+			part.forEach(sliceBuilder::add);
+		return sliceBuilder.build(sliceMax);
+	}
+
+	private void handle(Status.Failure failure) {
+
+		// Let the supervisor handle errors of the computation as if they had occurred in this actor
+		throw new IllegalStateException("Discovering primes failed.", failure.cause());
+	}
+
+	private void handle(CancelMessage message) {
+
+		// Drop the task; if one of its slices is being computed, the result is discarded on arrival
+		if (this.tasks.removeIf(task -> task.id == message.id && task.attemptId == message.attemptId))
+			this.log().info("Cancelled attempt {} of task {}.", message.attemptId, message.id);
+		this.computeNextSlice();
+	}
+
+	private void handle(StatusRequestMessage message) {
+
+		// Report the numbers that are yet to be checked
+		long numRemainingNumbers = 0;
+		for (Task task : this.tasks)
+			numRemainingNumbers += task.rangeMax - task.nextNumber + 1;
+		this.getSender().tell(new StatusMessage(this.tasks.size(), numRemainingNumbers, this.isComputing), this.getSelf());
+	}
+
+	private void adaptSliceSize(long sliceNanos) {
+		if (sliceNanos < TARGET_SLICE_NANOS / 2)
+			this.sliceSize = Math.min(2 * this.sliceSize, MAX_SLICE_SIZE);
+		else if (sliceNanos > 2 * TARGET_SLICE_NANOS)
+			this.sliceSize = Math.max(this.sliceSize / 2, MIN_SLICE_SIZE);
+	}
+
+	private void handle(TruncateMessage message) {
+
+		// Find the task, which might have been completed already
+		for (Task task : this.tasks) {
+			if (task.id != message.id || task.rangeMin != message.rangeMin)
+				continue;
+
+			// Give up the second half of the unchecked numbers if it is worth it
+			final long releasedRangeMax = task.rangeMax;
+			final long numRemainingNumbers = task.rangeMax - task.nextNumber + 1;
+			if (numRemainingNumbers >= MIN_TRUNCATION_SIZE)
+				task.rangeMax = task.nextNumber + numRemainingNumbers / 2 - 1;
+			this.getSender().tell(new Master.TruncatedMessage(task.id, task.rangeMin, task.rangeMax, releasedRangeMax), this.getSelf());
+			return;
+		}
+		this.getSender().tell(new Master.TruncatedMessage(message.id, message.rangeMin, message.rangeMin, message.rangeMin), this.getSelf());
 	}
-}
\ No newline at end of file
+}
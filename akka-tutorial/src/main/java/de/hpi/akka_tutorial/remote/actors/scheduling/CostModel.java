@@ -0,0 +1,176 @@
+package de.hpi.akka_tutorial.remote.actors.scheduling;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import akka.actor.ActorRef;
+
+/**
+ * The cost model sizes subqueries, such that each of them keeps a worker busy for about the same wall time. The cost of
+ * a range grows with the magnitude of its numbers: both the sieve and the Miller-Rabin test need roughly logarithmic
+ * effort per number. The model measures how many cost units each worker processes per nanosecond and converts the
+ * target time into a number of numbers for the next subquery. Towards the end of a query, subqueries shrink as in
+ * guided self-scheduling, so that all workers finish at about the same time.
+ */
+public class CostModel {
+
+	// Aim for subqueries that take this long by default
+	public static final long DEFAULT_TARGET_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+	// Without any measurements, subqueries get this many numbers
+	static final long INITIAL_SUBQUERY_RANGE_SIZE = 100_000;
+
+	// Subqueries should not get smaller than this, so as to not drown in messaging overhead
+	static final long MIN_SUBQUERY_RANGE_SIZE = 1_000;
+
+	// Each subquery gets at most the remaining numbers divided by this factor times the number of workers
+	private static final int GUIDED_SCHEDULING_FACTOR = 2;
+
+	// The weight of a new measurement in the exponentially weighted moving averages of the throughputs
+	private static final double SMOOTHING_FACTOR = 0.3;
+
+	// The wall time that each subquery should take
+	private final long targetNanos;
+
+	// The smoothed throughput of each worker in cost units per nanosecond
+	private final Map<ActorRef, Double> worker2throughput = new HashMap<>();
+
+	// The smoothed throughput over all workers in cost units per nanosecond, which serves new workers, or NaN
+	private double throughput = Double.NaN;
+
+	/**
+	 * Construct a new {@link CostModel} object.
+	 *
+	 * @param targetNanos the wall time in nanoseconds that each subquery should take
+	 */
+	public CostModel(final long targetNanos) {
+		this.targetNanos = targetNanos;
+	}
+
+	/**
+	 * Estimate the effort of checking a single number for primality.
+	 *
+	 * @param number the number
+	 * @return the effort in cost units
+	 */
+	static double costPerNumber(double number) {
+		return Math.log(Math.max(Math.abs(number), Math.E));
+	}
+
+	/**
+	 * Estimate the effort of discovering all primes in a range.
+	 *
+	 * @param rangeMin first number of the range (inclusive)
+	 * @param rangeMax last number of the range (inclusive)
+	 * @return the effort in cost units
+	 */
+	static double cost(long rangeMin, long rangeMax) {
+		final double size = (double) rangeMax - rangeMin + 1;
+		return size * costPerNumber(rangeMin + size / 2);
+	}
+
+	/**
+	 * Record the time that a worker needed to complete a subquery.
+	 *
+	 * @param worker   the worker that processed the subquery
+	 * @param rangeMin first number of the subquery (inclusive)
+	 * @param rangeMax last number of the subquery (inclusive)
+	 * @param nanos    the elapsed wall time in nanoseconds
+	 */
+	public void record(ActorRef worker, long rangeMin, long rangeMax, long nanos) {
+		final double sample = cost(rangeMin, rangeMax) / Math.max(nanos, 1);
+		this.worker2throughput.merge(worker, sample, CostModel::smooth);
+		this.throughput = Double.isNaN(this.throughput) ? sample : smooth(this.throughput, sample);
+	}
+
+	private static double smooth(double average, double sample) {
+		return (1 - SMOOTHING_FACTOR) * average + SMOOTHING_FACTOR * sample;
+	}
+
+	/**
+	 * Forget the measurements of a worker.
+	 *
+	 * @param worker the worker to forget
+	 */
+	public void removeWorker(ActorRef worker) {
+		this.worker2throughput.remove(worker);
+	}
+
+	/**
+	 * Provide the measured throughput of a worker.
+	 *
+	 * @param worker the worker
+	 * @return the smoothed throughput in cost units per nanosecond or NaN if nothing has been measured for the worker
+	 */
+	public double throughput(ActorRef worker) {
+		return this.worker2throughput.getOrDefault(worker, Double.NaN);
+	}
+
+	/**
+	 * Estimate how long a worker needs to discover all primes in a range.
+	 *
+	 * @param worker   the worker that processes the range
+	 * @param rangeMin first number of the range (inclusive)
+	 * @param rangeMax last number of the range (inclusive)
+	 * @return the expected wall time in nanoseconds or NaN if nothing has been measured yet
+	 */
+	public double expectedNanos(ActorRef worker, long rangeMin, long rangeMax) {
+		return cost(rangeMin, rangeMax) / this.worker2throughput.getOrDefault(worker, this.throughput);
+	}
+
+	/**
+	 * Determine the size of the next subquery for a worker.
+	 *
+	 * @param worker     the worker that should process the subquery
+	 * @param rangeMin   first number that is yet to be scheduled (inclusive)
+	 * @param rangeMax   last number that is yet to be scheduled (inclusive)
+	 * @param numWorkers the number of workers that share the remaining numbers
+	 * @return the number of numbers in the subquery, which is positive if the range is not empty
+	 */
+	public long subqueryRangeSize(ActorRef worker, long rangeMin, long rangeMax, int numWorkers) {
+		return this.subqueryRangeSize(worker, rangeMin, rangeMax, numWorkers, this.targetNanos);
+	}
+
+	/**
+	 * Determine the size of the next subquery for a worker that should take a given wall time.
+	 *
+	 * @param worker      the worker that should process the subquery
+	 * @param rangeMin    first number that is yet to be scheduled (inclusive)
+	 * @param rangeMax    last number that is yet to be scheduled (inclusive)
+	 * @param numWorkers  the number of workers that share the remaining numbers
+	 * @param targetNanos the wall time in nanoseconds that the subquery should take
+	 * @return the number of numbers in the subquery, which is positive if the range is not empty
+	 */
+	public long subqueryRangeSize(ActorRef worker, long rangeMin, long rangeMax, int numWorkers, long targetNanos) {
+		if (rangeMin > rangeMax)
+			return 0;
+
+		// Ranges with more than Long.MAX_VALUE numbers overflow, which does not matter at this scale
+		long remainingRangeSize = rangeMax - rangeMin + 1;
+		if (remainingRangeSize <= 0)
+			remainingRangeSize = Long.MAX_VALUE;
+
+		// Convert the target time into numbers using the throughput of the worker or, if unknown, of all workers
+		long rangeSize = INITIAL_SUBQUERY_RANGE_SIZE;
+		final double throughput = this.worker2throughput.getOrDefault(worker, this.throughput);
+		if (!Double.isNaN(throughput))
+			rangeSize = rangeSizeForCost(rangeMin, throughput * targetNanos);
+
+		// Leave enough numbers for the other workers to balance the tail of the query
+		final long guidedRangeSize = remainingRangeSize / (GUIDED_SCHEDULING_FACTOR * (long) Math.max(numWorkers, 1));
+		rangeSize = Math.max(Math.min(rangeSize, guidedRangeSize), MIN_SUBQUERY_RANGE_SIZE);
+
+		return Math.min(rangeSize, remainingRangeSize);
+	}
+
+	private static long rangeSizeForCost(long rangeMin, double cost) {
+
+		// Start with the cost at the first number and correct it for the magnitude in the middle of the range
+		double rangeSize = cost / costPerNumber(rangeMin);
+		for (int i = 0; i < 2; i++)
+			rangeSize = cost / costPerNumber(rangeMin + rangeSize / 2);
+
+		return (long) Math.max(1, Math.min(rangeSize, Long.MAX_VALUE));
+	}
+}
@@ -0,0 +1,126 @@
+package de.hpi.akka_tutorial.remote.actors.scheduling;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import akka.actor.Address;
+
+/**
+ * The node model estimates the communication overhead of the nodes that host workers. Each subquery costs a round trip
+ * to its worker's node plus the transfer of the discovered primes. The model measures both from the round-trip times of
+ * subqueries, i.e., their wall time minus the compute time that the workers report, and fits them per node as a fixed
+ * latency plus a time per transferred byte. Local workers communicate in memory and have no overhead.
+ */
+public class NodeModel {
+
+	// Until measured, remote nodes are assumed to have this latency, which is typical for a local network
+	static final long DEFAULT_REMOTE_LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	// The weight of a new measurement; older measurements fade exponentially
+	private static final double SMOOTHING_FACTOR = 0.1;
+
+	/**
+	 * Exponentially weighted sums for a least-squares fit of the overhead over the transferred bytes.
+	 */
+	private static class Node {
+
+		private double weight, sumBytes, sumNanos, sumBytesSquared, sumBytesNanos;
+
+		void add(double bytes, double nanos) {
+			this.weight = (1 - SMOOTHING_FACTOR) * this.weight + 1;
+			this.sumBytes = (1 - SMOOTHING_FACTOR) * this.sumBytes + bytes;
+			this.sumNanos = (1 - SMOOTHING_FACTOR) * this.sumNanos + nanos;
+			this.sumBytesSquared = (1 - SMOOTHING_FACTOR) * this.sumBytesSquared + bytes * bytes;
+			this.sumBytesNanos = (1 - SMOOTHING_FACTOR) * this.sumBytesNanos + bytes * nanos;
+		}
+
+		double nanosPerByte() {
+
+			// The measurements must differ in size to tell latency and bandwidth apart
+			final double variance = this.weight * this.sumBytesSquared - this.sumBytes * this.sumBytes;
+			if (variance <= 1e-9 * this.weight * this.sumBytesSquared)
+				return 0;
+			return Math.max(0, (this.weight * this.sumBytesNanos - this.sumBytes * this.sumNanos) / variance);
+		}
+
+		double latencyNanos() {
+			return Math.max(0, (this.sumNanos - this.nanosPerByte() * this.sumBytes) / this.weight);
+		}
+	}
+
+	// The measurements of each remote node
+	private final Map<Address, Node> address2node = new HashMap<>();
+
+	/**
+	 * Check whether an address belongs to the local actor system.
+	 *
+	 * @param address the address of a node
+	 * @return whether the node is local
+	 */
+	static boolean isLocal(Address address) {
+		return address.hasLocalScope();
+	}
+
+	/**
+	 * Estimate how many bytes the primes of a range take on the wire. The primes are delta-encoded as varints, which
+	 * take about one byte each at the magnitudes of interest, and their density is the reciprocal of the cost per number.
+	 *
+	 * @param rangeMin first number of the range (inclusive)
+	 * @param rangeMax last number of the range (inclusive)
+	 * @return the estimated number of bytes
+	 */
+	static double resultBytes(long rangeMin, long rangeMax) {
+		final double size = (double) rangeMax - rangeMin + 1;
+		return size / CostModel.costPerNumber(rangeMin + size / 2);
+	}
+
+	/**
+	 * Record the overhead of a subquery on a node.
+	 *
+	 * @param address       the address of the node
+	 * @param bytes         the number of bytes that have been transferred
+	 * @param overheadNanos the round-trip time minus the compute time in nanoseconds
+	 */
+	public void record(Address address, double bytes, long overheadNanos) {
+		if (isLocal(address))
+			return;
+		this.address2node.computeIfAbsent(address, key -> new Node()).add(bytes, Math.max(overheadNanos, 0));
+	}
+
+	/**
+	 * Provide the fixed overhead of a round trip to a node.
+	 *
+	 * @param address the address of the node
+	 * @return the latency in nanoseconds
+	 */
+	public double latencyNanos(Address address) {
+		if (isLocal(address))
+			return 0;
+		final Node node = this.address2node.get(address);
+		return node == null ? DEFAULT_REMOTE_LATENCY_NANOS : node.latencyNanos();
+	}
+
+	/**
+	 * Provide the time that the transfer of a byte from a node takes, i.e., the reciprocal of its bandwidth.
+	 *
+	 * @param address the address of the node
+	 * @return the transfer time in nanoseconds per byte or {@code 0} if it is unknown
+	 */
+	public double nanosPerByte(Address address) {
+		final Node node = this.address2node.get(address);
+		return node == null ? 0 : node.nanosPerByte();
+	}
+
+	/**
+	 * Estimate the communication overhead of a subquery on a node.
+	 *
+	 * @param address  the address of the node
+	 * @param rangeMin first number of the subquery (inclusive)
+	 * @param rangeMax last number of the subquery (inclusive)
+	 * @return the overhead in nanoseconds
+	 */
+	public double overheadNanos(Address address, long rangeMin, long rangeMax) {
+		return this.latencyNanos(address) + this.nanosPerByte(address) * resultBytes(rangeMin, rangeMax);
+	}
+}
@@ -1,27 +1,139 @@
 package de.hpi.akka_tutorial.remote.actors.scheduling;
 
-import java.util.Collection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import akka.actor.ActorRef;
+import akka.actor.Address;
+import de.hpi.akka_tutorial.remote.actors.Master;
 import de.hpi.akka_tutorial.remote.actors.Worker;
 
+/**
+ * This strategy hands out small subqueries on demand and keeps a few of them in flight per worker. Concurrent queries
+ * share the workers by weighted fair queueing: each query advances a virtual clock by the cost of its subqueries
+ * divided by its weight, which grows exponentially with its priority, and the query that lags behind the most gets the
+ * next subquery. On top of that, a client may occupy at most a configurable share of the worker slots as long as other
+ * clients wait for them.
+ * <p>
+ * All bookkeeping is incremental, so that the cost of each event does not grow with the number of workers: Workers are
+ * kept in queues by the number of subqueries that they have in flight, queries with open subqueries are kept ordered
+ * by their virtual time, and running subqueries are kept ordered by the time at which they become stragglers.
+ * <p>
+ * Workers hold leases on the subqueries that they process. A lease lasts a multiple of the expected processing time
+ * and is renewed whenever the worker reports progress. If a lease expires, e.g., because the worker hangs in garbage
+ * collection or behind a network partition, the worker is quarantined, its subqueries are cancelled and rescheduled,
+ * and it is asked for its status. Once the worker has answered, it rejoins the pool.
+ * <p>
+ * The strategy knows the node of each worker. Local workers are served first, and remote workers get only queries
+ * whose remaining work outweighs the measured round-trip overhead to their node many times over, so that small,
+ * latency-sensitive queries stay local. Subqueries for remote workers are also long enough to amortize the overhead.
+ * Remote workers are kept in queues per node, so that a node that is not worth any open query is skipped as a whole.
+ * Idle workers back up stragglers under the same rules, except that a backup never exceeds the quota of its client.
+ */
 public class ReactiveSchedulingStrategy implements SchedulingStrategy {
 
+	private static final Logger log = LoggerFactory.getLogger(ReactiveSchedulingStrategy.class);
+
+	// Keep this many subqueries in flight per worker by default
+	public static final int DEFAULT_PREFETCH_DEPTH = 2;
+
+	// A running subquery is a straggler if it takes this many times longer than expected
+	private static final double STRAGGLER_FACTOR = 2.0;
+
+	// Process each subquery on at most this many workers at once
+	private static final int MAX_ATTEMPTS = 2;
+
+	// By default, a single client may occupy all workers
+	public static final double DEFAULT_MAX_CLIENT_SHARE = 1.0;
+
+	// Each priority level multiplies the share of the workers that a query gets by this factor
+	private static final double PRIORITY_WEIGHT_FACTOR = 8.0;
+
+	// Priorities beyond this magnitude do not change the weight anymore, so that the virtual clocks do not degenerate
+	private static final int MAX_PRIORITY_MAGNITUDE = 8;
+
+	// By default, a lease lasts at least this long, which covers short hiccups such as garbage collection pauses
+	public static final long DEFAULT_MIN_LEASE_MILLIS = 10_000;
+
+	// A lease lasts this many times longer than the subquery is expected to take
+	private static final double LEASE_FACTOR = 8.0;
+
+	// Remote workers get only work that takes this many times longer than the communication overhead of their node
+	private static final double OVERHEAD_AMORTIZATION_FACTOR = 20.0;
+
 	/**
 	 * {@link SchedulingStrategy.Factory} implementation for the {@link ReactiveSchedulingStrategy}.
 	 */
 	public static class Factory implements SchedulingStrategy.Factory {
 
+		private final int prefetchDepth;
+
+		private final double maxClientShare;
+
+		private final long minLeaseMillis;
+
+		public Factory() {
+			this(DEFAULT_PREFETCH_DEPTH);
+		}
+
+		/**
+		 * Construct a new {@link Factory} object.
+		 *
+		 * @param prefetchDepth the number of subqueries to keep in flight per worker
+		 */
+		public Factory(final int prefetchDepth) {
+			this(prefetchDepth, DEFAULT_MAX_CLIENT_SHARE);
+		}
+
+		/**
+		 * Construct a new {@link Factory} object.
+		 *
+		 * @param prefetchDepth the number of subqueries to keep in flight per worker
+		 * @param maxClientShare the share of the worker slots that a single client may occupy while other clients wait
+		 */
+		public Factory(final int prefetchDepth, final double maxClientShare) {
+			this(prefetchDepth, maxClientShare, DEFAULT_MIN_LEASE_MILLIS);
+		}
+
+		/**
+		 * Construct a new {@link Factory} object.
+		 *
+		 * @param prefetchDepth the number of subqueries to keep in flight per worker
+		 * @param maxClientShare the share of the worker slots that a single client may occupy while other clients wait
+		 * @param minLeaseMillis the minimum time that a worker may spend on a subquery without reporting progress
+		 */
+		public Factory(final int prefetchDepth, final double maxClientShare, final long minLeaseMillis) {
+			if (prefetchDepth < 1)
+				throw new IllegalArgumentException("The prefetch depth must be positive.");
+			if (!(maxClientShare > 0 && maxClientShare <= 1))
+				throw new IllegalArgumentException("The client share must be in (0, 1].");
+			if (minLeaseMillis < 1)
+				throw new IllegalArgumentException("The lease must be positive.");
+			this.prefetchDepth = prefetchDepth;
+			this.maxClientShare = maxClientShare;
+			this.minLeaseMillis = minLeaseMillis;
+		}
+
 		@Override
 		public ReactiveSchedulingStrategy create(ActorRef master) {
-			return new ReactiveSchedulingStrategy(master);
+			return new ReactiveSchedulingStrategy(master, this.prefetchDepth, this.maxClientShare, this.minLeaseMillis);
 		}
 	}
 
@@ -30,78 +142,88 @@ public class ReactiveSchedulingStrategy implements SchedulingStrategy {
 	 */
 	private class QueryTracker {
 
-		// Give each worker at most this many numbers at once to check.
-		private final int MAX_SUBQUERY_RANGE_SIZE = 100_000;
-
 		// The range of values that was not yet scheduled to workers.
 		private long remainingRangeStartNumber, remainingRangeEndNumber;
 
 		// This is the ID of the query that is being tracked.
 		private final int id;
 
-		// Keeps track of the currently posed subqueries and which actor is processing it.
-		private final Map<ActorRef, Worker.ValidationMessage> runningSubqueries = new HashMap<>();
+		// The share of the workers that this query gets relative to the other queries.
+		private final double weight;
+
+		// The actor that requested the query and whose quota it counts against.
+		private final ActorRef client;
+
+		// The weighted cost of the subqueries that this query has been assigned, offset by the time at which it arrived.
+		private double virtualTime;
+
+		// Counts the subqueries that are currently processed by some worker.
+		private int numRunningSubqueries = 0;
 
 		// Keeps track of failed subqueries, so as to reschedule them to some worker.
 		private final Queue<Worker.ValidationMessage> failedSubqueries = new LinkedList<>();
 
-		QueryTracker(final int id, final long startNumber, final long endNumber) {
+		QueryTracker(final int id, final long startNumber, final long endNumber, final double weight, final ActorRef client, final double virtualTime) {
 			this.id = id;
 			this.remainingRangeStartNumber = startNumber;
 			this.remainingRangeEndNumber = endNumber;
+			this.weight = weight;
+			this.client = client;
+			this.virtualTime = virtualTime;
 		}
 
 		/**
-		 * Assign a subquery of the tracked query to the worker. If a subquery was available, a {@link Worker.ValidationMessage} is send to the worker with master as sender.
+		 * Check whether this query has subqueries that have not been assigned to any worker.
 		 *
-		 * @return {@code true}, if work was assigned and {@code false} otherwise
+		 * @return whether this query has open subqueries
 		 */
-		boolean assignWork(ActorRef worker, ActorRef master) {
+		boolean hasOpenWork() {
+			return !this.failedSubqueries.isEmpty() || this.remainingRangeStartNumber <= this.remainingRangeEndNumber;
+		}
+
+		/**
+		 * Create a subquery of the tracked query for the worker.
+		 *
+		 * @return the subquery or {@code null} if there is no open subquery
+		 */
+		Worker.ValidationMessage assignWork(ActorRef worker) {
 
 			// Select a failed subquery if any
 			Worker.ValidationMessage subquery = this.failedSubqueries.poll();
-			
+
 			// Create a new subquery if no failed subquery was selected
 			if (subquery == null) {
-				long subqueryRangeSize = Math.min(this.remainingRangeEndNumber - this.remainingRangeStartNumber + 1, MAX_SUBQUERY_RANGE_SIZE);
+				long subqueryRangeSize = ReactiveSchedulingStrategy.this.costModel.subqueryRangeSize(
+						worker, this.remainingRangeStartNumber, this.remainingRangeEndNumber, ReactiveSchedulingStrategy.this.worker2attempts.size(),
+						ReactiveSchedulingStrategy.this.targetNanos(worker));
 				if (subqueryRangeSize > 0) {
 					subquery = new Worker.ValidationMessage(this.id, this.remainingRangeStartNumber, this.remainingRangeStartNumber + subqueryRangeSize - 1);
 					this.remainingRangeStartNumber += subqueryRangeSize;
 				}
 			}
-			
-			// Return false if no work was assigned
-			if (subquery == null) {
-				return false;
-			}
-			
-			// Assign and send the subquery to the worker
-			worker.tell(subquery, master);
-			this.runningSubqueries.put(worker, subquery);
-			
-			return true;
+
+			// Keep track of the assignment
+			if (subquery != null)
+				this.numRunningSubqueries++;
+
+			return subquery;
 		}
-		
+
 		/**
 		 * Handle the failure of a subquery. That is, prepare to re-schedule the failed subquery.
 		 *
-		 * @param worker the actor that just failed
+		 * @param subquery the subquery that failed
 		 */
-		void workFailed(ActorRef worker) {
-			Worker.ValidationMessage failedTask = this.runningSubqueries.remove(worker);
-			if (failedTask != null) {
-				this.failedSubqueries.add(failedTask);
-			}
+		void workFailed(Worker.ValidationMessage subquery) {
+			this.numRunningSubqueries--;
+			this.failedSubqueries.add(subquery);
 		}
 
 		/**
 		 * Handle the completion of a subquery.
-		 *
-		 * @param worker the actor that just completed
 		 */
-		void workCompleted(ActorRef worker) {
-			Worker.ValidationMessage completedTask = this.runningSubqueries.remove(worker);
-			assert completedTask != null;
+		void workCompleted() {
+			this.numRunningSubqueries--;
 		}
 
 		/**
@@ -110,32 +232,185 @@ public class ReactiveSchedulingStrategy implements SchedulingStrategy {
 		 * @return whether this query is complete
 		 */
 		boolean isComplete() {
-			return this.runningSubqueries.isEmpty()
+			return this.numRunningSubqueries == 0
 					&& this.failedSubqueries.isEmpty()
 					&& this.remainingRangeStartNumber > this.remainingRangeEndNumber;
 		}
 	}
 
+	/**
+	 * A subquery that is processed by one or, if speculatively duplicated, more workers.
+	 */
+	private static class Subquery {
+
+		private final QueryTracker tracker;
+
+		private final Worker.ValidationMessage message;
+
+		// The attempts of the workers that currently process this subquery
+		private final List<Attempt> attempts = new ArrayList<>(MAX_ATTEMPTS);
+
+		// Whether some worker has completed this subquery, so that all further completions are duplicates
+		private boolean isCompleted = false;
+
+		Subquery(final QueryTracker tracker, final Worker.ValidationMessage message) {
+			this.tracker = tracker;
+			this.message = message;
+		}
+	}
+
+	/**
+	 * A {@link Subquery} that has been sent to a worker.
+	 */
+	private static class Attempt {
+
+		private final Subquery subquery;
+
+		private final ActorRef worker;
+
+		// Distinguishes this attempt from the retries and duplicates of the same subquery
+		private final long attemptId;
+
+		// The time at which the subquery was sent to the worker
+		private final long sendNanos;
+
+		// The time at which the worker started to process the subquery, i.e., when it completed its previous one
+		private long startNanos;
+
+		// The time after which the attempt is a straggler or NaN if the worker's throughput was unknown when it started
+		private double deadlineNanos = Double.NaN;
+
+		// The time that the worker may spend on the attempt without reporting progress
+		private long leaseNanos;
+
+		// The time at which the lease of the worker on the attempt expires
+		private long leaseExpiryNanos;
+
+		Attempt(final Subquery subquery, final ActorRef worker, final long attemptId, final long sendNanos) {
+			this.subquery = subquery;
+			this.worker = worker;
+			this.attemptId = attemptId;
+			this.sendNanos = sendNanos;
+		}
+	}
+
+	/**
+	 * An expiry time of the lease of a worker on an {@link Attempt}, which is outdated if the lease has been renewed.
+	 */
+	private static class Lease {
+
+		private final Attempt attempt;
+
+		private final long expiryNanos;
+
+		Lease(final Attempt attempt, final long expiryNanos) {
+			this.attempt = attempt;
+			this.expiryNanos = expiryNanos;
+		}
+	}
+
+	// A mapping of pending range queries to the query tracker that watches the progress of each range query
+	private final Map<Integer, QueryTracker> queryId2tracker = new HashMap<>();
+
+	// The queries that have open subqueries, ordered by their virtual time; query ids grow with the arrival of the queries, so they break ties in arrival order
+	private final TreeSet<QueryTracker> openQueryTrackers = new TreeSet<>(
+			Comparator.<QueryTracker>comparingDouble(queryTracker -> queryTracker.virtualTime).thenComparingInt(queryTracker -> queryTracker.id));
+
+	// A mapping of clients to the number of attempts that workers currently process on their behalf
+	private final Map<ActorRef, Integer> client2numRunningAttempts = new HashMap<>();
+
+	// The virtual time of the most recently served query, at which newly arriving queries start, so that they neither starve nor get a head start
+	private double systemVirtualTime = 0;
+
+	// A mapping of known workers to the subqueries that they process; as workers process their messages in order, the first subquery is the running one
+	private final Map<ActorRef, Deque<Attempt>> worker2attempts = new HashMap<>();
+
+	// A mapping of known workers, including quarantined ones, to the address of their node
+	private final Map<ActorRef, Address> worker2address = new HashMap<>();
+
+	// The number of known workers that run in the master's actor system
+	private int numLocalWorkers = 0;
+
+	// The local workers that can take more subqueries, indexed by the number of subqueries that they have in flight; the first entry holds the idle workers
+	private final List<Set<ActorRef>> load2localWorkers;
+
+	// The remote workers that can take more subqueries, indexed like the local ones and grouped by their node, whose workers share the same communication overhead
+	private final List<Map<Address, Set<ActorRef>>> load2node2remoteWorkers;
+
+	// The first attempt of each worker, which is the one that it actually processes, ordered by the time at which it becomes a straggler; entries of attempts that are no longer running are dropped lazily
+	private final PriorityQueue<Attempt> runningAttempts = new PriorityQueue<>(
+			(attempt1, attempt2) -> Double.compare(attempt1.deadlineNanos, attempt2.deadlineNanos));
+
+	// The leases of the first attempts of the workers, ordered by their expiry; the entries of attempts that are no longer running or whose lease has been renewed are dropped lazily
+	private final PriorityQueue<Lease> leases = new PriorityQueue<>(Comparator.comparingLong(lease -> lease.expiryNanos));
+
+	// The workers whose lease expired and that have not answered the status request since
+	private final Set<ActorRef> quarantinedWorkers = new HashSet<>();
 
-	// A mapping of pending range queries to the query tracker that watches the progress of each range query; the queries are kept in their insertion order
-	private final LinkedHashMap<Integer, QueryTracker> queryId2tracker = new LinkedHashMap<>();
+	// The id of the next attempt to be sent to some worker
+	private long nextAttemptId = 1;
 
-	// A mapping of known works to their current task
-	private final Map<ActorRef, QueryTracker> worker2tracker = new HashMap<>();
+	// Whether subqueries are held back, e.g., because the master cannot get rid of the results
+	private boolean isPaused = false;
 
 	// A reference to the actor in whose name we send messages
 	private final ActorRef master;
 
+	// The number of subqueries to keep in flight per worker, so that workers need not wait for the round trip to the master
+	private final int prefetchDepth;
+
+	// The share of the worker slots that a single client may occupy while other clients wait
+	private final double maxClientShare;
+
+	// The minimum time that a worker may spend on a subquery without reporting progress
+	private final long minLeaseNanos;
+
+	// Sizes the subqueries, such that each of them takes about the same wall time
+	private final CostModel costModel = new CostModel(CostModel.DEFAULT_TARGET_NANOS);
+
+	// Measures the communication overhead of the nodes
+	private final NodeModel nodeModel = new NodeModel();
+
 	public ReactiveSchedulingStrategy(ActorRef master) {
+		this(master, DEFAULT_PREFETCH_DEPTH);
+	}
+
+	public ReactiveSchedulingStrategy(ActorRef master, int prefetchDepth) {
+		this(master, prefetchDepth, DEFAULT_MAX_CLIENT_SHARE);
+	}
+
+	public ReactiveSchedulingStrategy(ActorRef master, int prefetchDepth, double maxClientShare) {
+		this(master, prefetchDepth, maxClientShare, DEFAULT_MIN_LEASE_MILLIS);
+	}
+
+	public ReactiveSchedulingStrategy(ActorRef master, int prefetchDepth, double maxClientShare, long minLeaseMillis) {
 		this.master = master;
+		this.prefetchDepth = prefetchDepth;
+		this.maxClientShare = maxClientShare;
+		this.minLeaseNanos = TimeUnit.MILLISECONDS.toNanos(minLeaseMillis);
+		this.load2localWorkers = new ArrayList<>(prefetchDepth);
+		this.load2node2remoteWorkers = new ArrayList<>(prefetchDepth);
+		for (int load = 0; load < prefetchDepth; load++) {
+			this.load2localWorkers.add(new LinkedHashSet<>());
+			this.load2node2remoteWorkers.add(new LinkedHashMap<>());
+		}
 	}
 
 	@Override
 	public void schedule(final int taskId, final long startNumber, final long endNumber) {
+		this.schedule(taskId, startNumber, endNumber, Master.RangeMessage.DEFAULT_PRIORITY, ActorRef.noSender());
+	}
+
+	@Override
+	public void schedule(final int taskId, final long startNumber, final long endNumber, final int priority, final ActorRef client) {
 
-		// Create a new tracker for the query
-		QueryTracker tracker = new QueryTracker(taskId, startNumber, endNumber);
+		// Create a new tracker for the query, which starts at the current virtual time
+		int boundedPriority = Math.max(-MAX_PRIORITY_MAGNITUDE, Math.min(MAX_PRIORITY_MAGNITUDE, priority));
+		double weight = Math.pow(PRIORITY_WEIGHT_FACTOR, boundedPriority);
+		QueryTracker tracker = new QueryTracker(taskId, startNumber, endNumber, weight, client, this.systemVirtualTime);
 		this.queryId2tracker.put(tracker.id, tracker);
+		if (tracker.hasOpenWork())
+			this.openQueryTrackers.add(tracker);
 
 		// Assign existing, possible free, workers to the new query
 		this.assignSubqueries();
@@ -148,29 +423,185 @@ public class ReactiveSchedulingStrategy implements SchedulingStrategy {
 
 	@Override
 	public void finished(final int taskId, final ActorRef worker) {
-		
-		// Find the query being processed
-		QueryTracker queryTracker = this.queryId2tracker.get(taskId);
-
-		// Mark the worker as free
-		queryTracker.workCompleted(worker);
-		this.worker2tracker.put(worker, null);
-
-		// Check if the query is complete
-		if (queryTracker.isComplete()) {
-			// Remove the query tracker
-			this.queryId2tracker.remove(queryTracker.id);
-		} else {
-			// Re-assign the now free worker
-			this.assignSubqueries();
+		this.finished(taskId, worker, 0);
+	}
+
+	@Override
+	public void finished(final int taskId, final ActorRef worker, final long computeNanos) {
+		this.finished(taskId, 0, worker, computeNanos);
+	}
+
+	@Override
+	public void finished(final int taskId, final long attemptId, final ActorRef worker, final long computeNanos) {
+
+		// Find the attempt that the worker has completed
+		Deque<Attempt> attempts = this.worker2attempts.get(worker);
+		Attempt attempt = attempts == null ? null : findAttempt(attempts, taskId, attemptId);
+
+		// Ignore completions that match no attempt of the worker, e.g., of cancelled duplicates or of quarantined workers, rather than charging them to another one
+		if (attempt == null) {
+			log.debug("Ignoring a completion of attempt {} of task {} by {}, which it does not process.", attemptId, taskId, worker);
+			return;
 		}
+		this.completed(attempt, attempts, computeNanos);
+	}
+
+	private static Attempt findAttempt(Deque<Attempt> attempts, int taskId, long attemptId) {
+
+		// Match the attempt by its id or, if the worker did not report it, take the worker's oldest attempt of the task
+		for (Attempt attempt : attempts)
+			if (attempt.subquery.tracker.id == taskId && (attemptId == 0 || attempt.attemptId == attemptId))
+				return attempt;
+		return null;
+	}
+
+	private void completed(Attempt attempt, Deque<Attempt> attempts, long computeNanos) {
+		ActorRef worker = attempt.worker;
+		boolean wasRunning = this.withdraw(attempt, attempts);
+		Subquery subquery = attempt.subquery;
+
+		// Measure the worker's throughput to size its next subqueries, preferring the compute time that the worker reported
+		long completionNanos = System.nanoTime();
+		long rangeMin = subquery.message.getRangeMin(), rangeMax = subquery.message.getRangeMax();
+		if (computeNanos > 0 || wasRunning)
+			this.costModel.record(worker, rangeMin, rangeMax, computeNanos > 0 ? computeNanos : completionNanos - attempt.startNanos);
+
+		// If the worker was idle when it got the subquery, the rest of the round trip is communication overhead
+		if (computeNanos > 0 && wasRunning && attempt.startNanos == attempt.sendNanos)
+			this.nodeModel.record(this.worker2address.get(worker), NodeModel.resultBytes(rangeMin, rangeMax), completionNanos - attempt.sendNanos - computeNanos);
+
+		// The worker proceeds with its next prefetched subquery right away
+		if (wasRunning && !attempts.isEmpty())
+			this.start(attempts.peek(), completionNanos);
+
+		// Count only the first completion of a speculatively duplicated subquery
+		if (!subquery.isCompleted) {
+			subquery.isCompleted = true;
+
+			// The duplicates of the subquery are moot now, so free their workers
+			for (Attempt duplicate : new ArrayList<>(subquery.attempts))
+				this.cancel(duplicate);
+
+			// Check if the query is complete
+			QueryTracker queryTracker = subquery.tracker;
+			queryTracker.workCompleted();
+			if (queryTracker.isComplete()) {
+				// Remove the query tracker
+				this.queryId2tracker.remove(queryTracker.id);
+			}
+		}
+
+		// Refill the worker's pipeline
+		this.assignSubqueries();
+	}
+
+	private boolean withdraw(Attempt attempt, Deque<Attempt> attempts) {
+
+		// Remove the attempt from its worker's pipeline and tell whether the worker was processing it
+		boolean wasRunning = attempts.peek() == attempt;
+		attempts.remove(attempt);
+		attempt.subquery.attempts.remove(attempt);
+		this.client2numRunningAttempts.merge(attempt.subquery.tracker.client, -1, (count, delta) -> count + delta == 0 ? null : count + delta);
+		this.updateLoad(attempt.worker, attempts.size() + 1, attempts.size());
+		return wasRunning;
+	}
+
+	private void cancel(Attempt attempt) {
+
+		// Tell the worker to drop the attempt, so that it proceeds with its next subquery right away
+		Deque<Attempt> attempts = this.worker2attempts.get(attempt.worker);
+		boolean wasRunning = this.withdraw(attempt, attempts);
+		attempt.worker.tell(new Worker.CancelMessage(attempt.subquery.tracker.id, attempt.attemptId), this.master);
+		if (wasRunning && !attempts.isEmpty())
+			this.start(attempts.peek(), System.nanoTime());
+	}
+
+	@Override
+	public void progress(final int taskId, final ActorRef worker) {
+		this.progress(taskId, 0, worker);
+	}
+
+	@Override
+	public void progress(final int taskId, final long attemptId, final ActorRef worker) {
+
+		// Renew the lease of the worker on the attempt that it is processing
+		Deque<Attempt> attempts = this.worker2attempts.get(worker);
+		Attempt attempt = attempts == null ? null : attempts.peek();
+		if (attempt != null && attempt.subquery.tracker.id == taskId && (attemptId == 0 || attempt.attemptId == attemptId))
+			this.renewLease(attempt, System.nanoTime());
+	}
+
+	@Override
+	public void tick() {
+
+		// Reschedule the subqueries of workers whose lease expired and give idle workers the chance to back up stragglers
+		this.expireLeases();
+		this.assignSubqueries();
+	}
+
+	private void expireLeases() {
+		final long nanos = System.nanoTime();
+		Lease lease;
+		while ((lease = this.leases.peek()) != null) {
+
+			// Drop leases that have been renewed or whose attempts are not running anymore
+			if (!this.isValid(lease)) {
+				this.leases.poll();
+				continue;
+			}
+
+			// The earliest expiry has not passed, so all leases are valid
+			if (lease.expiryNanos > nanos)
+				return;
+			this.leases.poll();
+
+			// Quarantine the worker, reschedule its attempts, and tell it to drop them, so that it does not waste time on them once it recovers
+			ActorRef worker = lease.attempt.worker;
+			Deque<Attempt> attempts = this.worker2attempts.remove(worker);
+			this.updateLoad(worker, attempts.size(), -1);
+			this.quarantinedWorkers.add(worker);
+			this.releaseAttempts(attempts);
+			for (Attempt attempt : attempts)
+				worker.tell(new Worker.CancelMessage(attempt.subquery.tracker.id, attempt.attemptId), this.master);
+
+			// Ask the worker for its status, whose answer shows that it is responsive again
+			worker.tell(new Worker.StatusRequestMessage(), this.master);
+		}
+	}
+
+	@Override
+	public void responded(final ActorRef worker) {
+
+		// A quarantined worker that answers is alive after all and has dropped its attempts, which it received before the status request
+		if (this.quarantinedWorkers.remove(worker))
+			this.admit(worker);
 	}
 
 	@Override
 	public void addWorker(final ActorRef worker) {
+		this.addWorker(worker, 1.0);
+	}
+
+	@Override
+	public void addWorker(final ActorRef worker, final double capacity) {
+		this.addWorker(worker, capacity, worker.path().address());
+	}
+
+	@Override
+	public void addWorker(final ActorRef worker, final double capacity, final Address address) {
 
-		// Add the new worker
-		this.worker2tracker.put(worker, null);
+		// Remember the node of the new worker
+		this.worker2address.put(worker, address);
+		if (NodeModel.isLocal(address))
+			this.numLocalWorkers++;
+		this.admit(worker);
+	}
+
+	private void admit(final ActorRef worker) {
+
+		// Add the worker, which is idle
+		this.worker2attempts.put(worker, new ArrayDeque<>(this.prefetchDepth));
+		this.updateLoad(worker, -1, 0);
 
 		// Assign possibly open subqueries to the new worker
 		this.assignSubqueries();
@@ -179,52 +610,299 @@ public class ReactiveSchedulingStrategy implements SchedulingStrategy {
 	@Override
 	public void removeWorker(final ActorRef worker) {
 
-		// Remove the worker from the list of workers
-		QueryTracker processedTracker = this.worker2tracker.remove(worker);
-
-		// If the worker was processing some subquery, then we need to re-schedule this subquery
-		if (processedTracker != null) {
-			processedTracker.workFailed(worker);
-
-			// We might have some free workers that could process the re-scheduled subquery
+		// Remove the worker from the list of workers and forget its measurements
+		this.quarantinedWorkers.remove(worker);
+		Deque<Attempt> attempts = this.worker2attempts.remove(worker);
+		if (attempts != null)
+			this.updateLoad(worker, attempts.size(), -1);
+		Address address = this.worker2address.remove(worker);
+		if (address != null && NodeModel.isLocal(address))
+			this.numLocalWorkers--;
+		this.costModel.removeWorker(worker);
+
+		// If the worker was processing some subqueries, then we need to re-schedule all of them that no other worker processes;
+		// a quarantined worker has no attempts anymore, because they were re-scheduled when it was quarantined
+		if (attempts != null && !attempts.isEmpty()) {
+			this.releaseAttempts(attempts);
+
+			// We might have some free workers that could process the re-scheduled subqueries
 			this.assignSubqueries();
 		}
 	}
 
-	private void assignSubqueries() {
+	private void releaseAttempts(Deque<Attempt> attempts) {
+		for (Attempt attempt : attempts) {
+			Subquery subquery = attempt.subquery;
+			subquery.attempts.remove(attempt);
+			this.client2numRunningAttempts.merge(subquery.tracker.client, -1, (count, delta) -> count + delta == 0 ? null : count + delta);
+			if (!subquery.isCompleted && subquery.attempts.isEmpty()) {
+				subquery.tracker.workFailed(subquery.message);
+				this.openQueryTrackers.add(subquery.tracker);
+			}
+		}
+	}
+
+	@Override
+	public void setPaused(final boolean isPaused) {
+		this.isPaused = isPaused;
+		this.assignSubqueries();
+	}
 
-		// Collect all currently idle workers
-		Collection<ActorRef> idleWorkers = this.worker2tracker.entrySet().stream()
-				.filter(e -> e.getValue() == null)
-				.map(Map.Entry::getKey)
-				.collect(Collectors.toList());
-		
-		// Return if no query is present
-		if (this.queryId2tracker.isEmpty())
+	private void assignSubqueries() {
+		if (this.isPaused)
 			return;
-		
-		// Assign idle workers to pending subqueries
-		Iterator<QueryTracker> queryTrackerIterator = this.queryId2tracker.values().iterator();
-		QueryTracker queryTracker = queryTrackerIterator.next();
-		for (ActorRef idleWorker : idleWorkers) {
-			
-			// Find a query tracker that can assign a subquery to this idle worker
-			while (!queryTracker.assignWork(idleWorker, this.master)) {
-				// Check if there is any (further) on-going query
-				if (!queryTrackerIterator.hasNext()) 
+
+		// Hand out the open subqueries and let workers that remain idle back up stragglers
+		this.assignOpenSubqueries();
+		this.speculate();
+	}
+
+	private void assignOpenSubqueries() {
+
+		// Fill the pipelines of the workers level by level, so that every worker has work before any worker gets more, and prefer local workers on each level
+		for (int load = 0; load < this.prefetchDepth; load++) {
+			this.assignOpenSubqueries(this.load2localWorkers.get(load));
+
+			// Serve the remote nodes one by one, so that a node that is not worth any open query does not hold up the others; the snapshot is needed, because nodes drop out of the level as their workers move on
+			for (Set<ActorRef> nodeWorkers : new ArrayList<>(this.load2node2remoteWorkers.get(load).values())) {
+				if (this.openQueryTrackers.isEmpty())
 					return;
-				
-				// Select the (next) query tracker
-				queryTracker = queryTrackerIterator.next();
+				this.assignOpenSubqueries(nodeWorkers);
 			}
+			if (this.openQueryTrackers.isEmpty())
+				return;
+		}
+	}
 
-			// Assign the subquery to the worker and keep track of the assignment
-			this.worker2tracker.put(idleWorker, queryTracker);
+	private void assignOpenSubqueries(Set<ActorRef> workers) {
+		while (!workers.isEmpty()) {
+
+			// Select the query that is most behind its fair share among those worth sending to the worker; the workers of a set share their node and its overhead, so if one of them gets nothing, the others get nothing either
+			ActorRef worker = workers.iterator().next();
+			QueryTracker queryTracker = this.selectQueryTracker(worker);
+			if (queryTracker == null)
+				return;
+			this.openQueryTrackers.remove(queryTracker);
+			Worker.ValidationMessage message = queryTracker.assignWork(worker);
+
+			// Advance the query's virtual clock by the weighted cost of the subquery
+			this.systemVirtualTime = Math.max(this.systemVirtualTime, queryTracker.virtualTime);
+			queryTracker.virtualTime += CostModel.cost(message.getRangeMin(), message.getRangeMax()) / queryTracker.weight;
+			if (queryTracker.hasOpenWork())
+				this.openQueryTrackers.add(queryTracker);
+
+			// Send the subquery to the worker, which moves it to the next level, and keep track of the assignment
+			this.send(new Subquery(queryTracker, message), worker);
+		}
+	}
+
+	private QueryTracker selectQueryTracker(ActorRef worker) {
+
+		// Find the open query with the smallest virtual time, preferring clients that are within their quota; this visits only queries, never workers
+		final int quota = this.quota();
+		QueryTracker overQuotaTracker = null;
+		for (QueryTracker queryTracker : this.openQueryTrackers) {
+			if (!this.isWorthSending(queryTracker, worker))
+				continue;
+			if (this.client2numRunningAttempts.getOrDefault(queryTracker.client, 0) < quota)
+				return queryTracker;
+			if (overQuotaTracker == null)
+				overQuotaTracker = queryTracker;
+		}
+
+		// Clients over their quota get workers only if no other client waits for them, so that no worker idles needlessly
+		return overQuotaTracker;
+	}
+
+	private int quota() {
+
+		// The number of attempts that a client may have in flight as long as other clients wait for workers
+		return Math.max(1, (int) Math.ceil(this.maxClientShare * this.worker2attempts.size() * this.prefetchDepth));
+	}
+
+	private boolean isWorthSending(QueryTracker queryTracker, ActorRef worker) {
+
+		// Judge the query by its next subquery, which is a failed one if any, and otherwise by its open work
+		Worker.ValidationMessage failedSubquery = queryTracker.failedSubqueries.peek();
+		if (failedSubquery != null)
+			return this.isWorthSending(worker, failedSubquery.getRangeMin(), failedSubquery.getRangeMax());
+		return this.isWorthSending(worker, queryTracker.remainingRangeStartNumber, queryTracker.remainingRangeEndNumber);
+	}
+
+	private boolean isWorthSending(ActorRef worker, long rangeMin, long rangeMax) {
+
+		// Local workers take any work, and so do remote workers if there are no local ones
+		Address address = this.worker2address.get(worker);
+		if (NodeModel.isLocal(address) || this.numLocalWorkers == 0)
+			return true;
+
+		// Remote workers take only work that outweighs the communication overhead, unless nothing has been measured yet
+		double expectedNanos = this.costModel.expectedNanos(worker, rangeMin, rangeMax);
+		return Double.isNaN(expectedNanos) || expectedNanos >= OVERHEAD_AMORTIZATION_FACTOR * this.nodeModel.overheadNanos(address, rangeMin, rangeMax);
+	}
+
+	private long targetNanos(ActorRef worker) {
+
+		// Subqueries for remote workers must be long enough to amortize the latency of their node
+		double latencyNanos = this.nodeModel.latencyNanos(this.worker2address.get(worker));
+		return Math.max(CostModel.DEFAULT_TARGET_NANOS, (long) (OVERHEAD_AMORTIZATION_FACTOR * latencyNanos));
+	}
+
+	private void speculate() {
+
+		// Prefer idle local workers over idle remote ones
+		List<Set<ActorRef>> idleWorkerSets = new ArrayList<>();
+		if (!this.load2localWorkers.get(0).isEmpty())
+			idleWorkerSets.add(this.load2localWorkers.get(0));
+		idleWorkerSets.addAll(this.load2node2remoteWorkers.get(0).values());
+		if (idleWorkerSets.isEmpty())
+			return;
+
+		// Collect the stragglers, which come in the order of their deadlines
+		List<Attempt> stragglers = this.findStragglers();
+		for (Set<ActorRef> idleWorkers : idleWorkerSets) {
+			while (!idleWorkers.isEmpty() && !stragglers.isEmpty()) {
+
+				// Duplicate the straggler that is overdue the longest among those that pass the same checks as any other assignment; the workers of a set share their node, so if one of them gets nothing, the others get nothing either
+				ActorRef worker = idleWorkers.iterator().next();
+				Attempt straggler = this.selectStraggler(stragglers, worker);
+				if (straggler == null)
+					break;
+				stragglers.remove(straggler);
+				this.send(straggler.subquery, worker);
+			}
+		}
+
+		// Keep the stragglers that no idle worker was found for, so that they can be backed up later
+		this.runningAttempts.addAll(stragglers);
+	}
+
+	private List<Attempt> findStragglers() {
+		final long nanos = System.nanoTime();
+		final List<Attempt> stragglers = new ArrayList<>();
+		Attempt attempt;
+		while ((attempt = this.runningAttempts.peek()) != null) {
+
+			// Drop attempts that are not running anymore or need no further backup
+			if (!this.isBackupCandidate(attempt)) {
+				this.runningAttempts.poll();
+				continue;
+			}
+
+			// Estimate the deadline of attempts that started before any throughput was known, which sort last
+			if (Double.isNaN(attempt.deadlineNanos)) {
+				this.runningAttempts.poll();
+				attempt.deadlineNanos = this.deadlineNanos(attempt);
+				this.runningAttempts.add(attempt);
+				if (Double.isNaN(attempt.deadlineNanos))
+					break;
+				continue;
+			}
+
+			// The earliest deadline has not passed, so there are no further stragglers
+			if (attempt.deadlineNanos > nanos)
+				break;
+			stragglers.add(this.runningAttempts.poll());
+		}
+		return stragglers;
+	}
+
+	private Attempt selectStraggler(List<Attempt> stragglers, ActorRef worker) {
+
+		// Backups count against the quota of their client and, as they are optional, are never sent beyond it; remote workers back up only subqueries that outweigh the overhead of their node
+		final int quota = this.quota();
+		for (Attempt straggler : stragglers) {
+			Subquery subquery = straggler.subquery;
+			if (this.client2numRunningAttempts.getOrDefault(subquery.tracker.client, 0) >= quota)
+				continue;
+			if (this.isWorthSending(worker, subquery.message.getRangeMin(), subquery.message.getRangeMax()))
+				return straggler;
+		}
+		return null;
+	}
+
+	private boolean isRunning(Attempt attempt) {
+		Deque<Attempt> attempts = this.worker2attempts.get(attempt.worker);
+		return attempts != null && attempts.peek() == attempt;
+	}
+
+	private boolean isBackupCandidate(Attempt attempt) {
+		return this.isRunning(attempt) && !attempt.subquery.isCompleted && attempt.subquery.attempts.size() < MAX_ATTEMPTS;
+	}
+
+	private boolean isValid(Lease lease) {
+		return this.isRunning(lease.attempt) && lease.attempt.leaseExpiryNanos == lease.expiryNanos;
+	}
+
+	private void start(Attempt attempt, long nanos) {
+
+		// Keep track of when the attempt becomes a straggler
+		attempt.startNanos = nanos;
+		attempt.deadlineNanos = this.deadlineNanos(attempt);
+		this.runningAttempts.add(attempt);
+
+		// Purge the dropped attempts once they outnumber the running ones, which costs constant time per attempt on average
+		if (this.runningAttempts.size() > 2 * this.countWorkers())
+			this.runningAttempts.removeIf(runningAttempt -> !this.isBackupCandidate(runningAttempt));
+
+		// Lease the attempt to the worker for a multiple of its expected duration
+		double expectedNanos = this.costModel.expectedNanos(attempt.worker, attempt.subquery.message.getRangeMin(), attempt.subquery.message.getRangeMax());
+		attempt.leaseNanos = Double.isNaN(expectedNanos) ? this.minLeaseNanos : Math.max(this.minLeaseNanos, (long) (LEASE_FACTOR * expectedNanos));
+		this.renewLease(attempt, nanos);
+	}
+
+	private void renewLease(Attempt attempt, long nanos) {
+		attempt.leaseExpiryNanos = nanos + attempt.leaseNanos;
+		this.leases.add(new Lease(attempt, attempt.leaseExpiryNanos));
+
+		// Purge the renewed and dropped leases once they outnumber the valid ones
+		if (this.leases.size() > 2 * this.countWorkers())
+			this.leases.removeIf(lease -> !this.isValid(lease));
+	}
+
+	private double deadlineNanos(Attempt attempt) {
+		Worker.ValidationMessage message = attempt.subquery.message;
+		return attempt.startNanos + STRAGGLER_FACTOR * this.costModel.expectedNanos(attempt.worker, message.getRangeMin(), message.getRangeMax());
+	}
+
+	private void send(Subquery subquery, ActorRef worker) {
+		Attempt attempt = new Attempt(subquery, worker, this.nextAttemptId++, System.nanoTime());
+		Worker.ValidationMessage message = subquery.message;
+		worker.tell(new Worker.ValidationMessage(message.getId(), attempt.attemptId, message.getRangeMin(), message.getRangeMax()), this.master);
+		subquery.attempts.add(attempt);
+		this.client2numRunningAttempts.merge(subquery.tracker.client, 1, Integer::sum);
+
+		// Enqueue the attempt, which runs at once if the worker is idle
+		Deque<Attempt> attempts = this.worker2attempts.get(worker);
+		attempts.add(attempt);
+		if (attempts.size() == 1)
+			this.start(attempt, attempt.sendNanos);
+		this.updateLoad(worker, attempts.size() - 1, attempts.size());
+	}
+
+	private void updateLoad(ActorRef worker, int oldLoad, int newLoad) {
+
+		// Move the worker to the queue of its new load; full and removed workers are in no queue
+		Address address = this.worker2address.get(worker);
+		boolean isLocal = NodeModel.isLocal(address);
+		if (oldLoad >= 0 && oldLoad < this.prefetchDepth) {
+			if (isLocal)
+				this.load2localWorkers.get(oldLoad).remove(worker);
+			else
+				this.load2node2remoteWorkers.get(oldLoad).computeIfPresent(address, (node, workers) -> workers.remove(worker) && workers.isEmpty() ? null : workers);
+		}
+		if (newLoad >= 0 && newLoad < this.prefetchDepth) {
+			if (isLocal)
+				this.load2localWorkers.get(newLoad).add(worker);
+			else
+				this.load2node2remoteWorkers.get(newLoad).computeIfAbsent(address, node -> new LinkedHashSet<>()).add(worker);
 		}
 	}
 
 	@Override
 	public int countWorkers() {
-		return this.worker2tracker.keySet().size();
+
+		// Quarantined workers might still complete their subqueries, so they count as well
+		return this.worker2attempts.size() + this.quarantinedWorkers.size();
 	}
 }
@@ -1,7 +1,9 @@
 package de.hpi.akka_tutorial.remote.actors.scheduling;
 
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.Map;
+import java.util.Queue;
 
 import akka.actor.ActorRef;
 import akka.routing.RoundRobinRoutingLogic;
@@ -30,6 +32,12 @@ public class RoundRobinSchedulingStrategy implements SchedulingStrategy {
 	// A map of pending responses for unfinished tasks
 	private Map<Integer, Integer> taskId2numberPendingResponses = new HashMap<>();
 	
+	// Tasks that wait for workers to be split among or for the scheduling to resume
+	private final Queue<Worker.ValidationMessage> unscheduledTasks = new LinkedList<>();
+
+	// Whether new tasks are held back, because the master cannot get rid of the results
+	private boolean isPaused = false;
+
 	// A reference to the actor in whose name we send messages
 	private final ActorRef master;
 
@@ -40,6 +48,12 @@ public class RoundRobinSchedulingStrategy implements SchedulingStrategy {
 	@Override
 	public void schedule(final int taskId, final long startNumber, final long endNumber) {
 		
+		// Keep the task until there are workers and the scheduling is not paused
+		if (this.numberOfWorkers == 0 || this.isPaused) {
+			this.unscheduledTasks.add(new Worker.ValidationMessage(taskId, startNumber, endNumber));
+			return;
+		}
+
 		// Break the work up into numberOfWorkers chunks of numbers
 		final long numberOfNumbers = endNumber - startNumber + 1;
 		final long segmentLength = numberOfNumbers / this.numberOfWorkers;
@@ -79,7 +93,7 @@ public class RoundRobinSchedulingStrategy implements SchedulingStrategy {
 
 	@Override
 	public boolean hasTasksInProgress() {
-		return !this.taskId2numberPendingResponses.isEmpty();
+		return !this.taskId2numberPendingResponses.isEmpty() || !this.unscheduledTasks.isEmpty();
 	}
 
 	@Override
@@ -90,6 +104,24 @@ public class RoundRobinSchedulingStrategy implements SchedulingStrategy {
 		
 		// Add the worker to the router
 		this.workerRouter = this.workerRouter.addRoutee(worker);
+
+		// Schedule the tasks that waited for workers
+		this.scheduleWaitingTasks();
+	}
+
+	@Override
+	public void setPaused(final boolean isPaused) {
+		this.isPaused = isPaused;
+		this.scheduleWaitingTasks();
+	}
+
+	private void scheduleWaitingTasks() {
+		if (this.numberOfWorkers == 0 || this.isPaused)
+			return;
+		while (!this.unscheduledTasks.isEmpty()) {
+			Worker.ValidationMessage task = this.unscheduledTasks.poll();
+			this.schedule(task.getId(), task.getRangeMin(), task.getRangeMax());
+		}
 	}
 
 	@Override
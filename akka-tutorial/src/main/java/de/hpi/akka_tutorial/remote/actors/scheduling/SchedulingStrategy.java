@@ -1,6 +1,7 @@
 package de.hpi.akka_tutorial.remote.actors.scheduling;
 
 import akka.actor.ActorRef;
+import akka.actor.Address;
 import de.hpi.akka_tutorial.remote.actors.Worker;
 
 public interface SchedulingStrategy {
@@ -29,6 +30,20 @@ public interface SchedulingStrategy {
 	 */
 	void schedule(final int taskId, final long startNumber, final long endNumber);
 
+	/**
+	 * Schedule a new prime checking task in the given range on behalf of a client. Strategies that do not share their
+	 * workers among tasks ignore the priority and the client.
+	 *
+	 * @param taskId the id of the task that is to be split and scheduled
+	 * @param startNumber first number of the range
+	 * @param endNumber last number of the range
+	 * @param priority the priority of the task; tasks with higher priorities get a larger share of the workers
+	 * @param client the actor that requested the task
+	 */
+	default void schedule(final int taskId, final long startNumber, final long endNumber, final int priority, final ActorRef client) {
+		this.schedule(taskId, startNumber, endNumber);
+	}
+
 	/**
 	 * Notify the completion of a worker's task.
 	 *
@@ -37,6 +52,71 @@ public interface SchedulingStrategy {
 	 */
 	void finished(final int taskId, final ActorRef worker);
 
+	/**
+	 * Notify the completion of a worker's task along with the time that the worker spent computing it. Strategies that
+	 * do not measure their workers ignore the compute time.
+	 *
+	 * @param taskId the id of the task this worker was working on
+	 * @param worker the reference to the worker who finished the task
+	 * @param computeNanos the time in nanoseconds that the worker spent on the task or {@code 0} if unknown
+	 */
+	default void finished(final int taskId, final ActorRef worker, final long computeNanos) {
+		this.finished(taskId, worker);
+	}
+
+	/**
+	 * Notify the completion of an attempt to process a subquery. Strategies that do not number their attempts ignore
+	 * the attempt ID.
+	 *
+	 * @param taskId the id of the task this worker was working on
+	 * @param attemptId the id of the attempt as given by {@link Worker.ValidationMessage#getAttemptId()} or {@code 0} if unnumbered
+	 * @param worker the reference to the worker who finished the task
+	 * @param computeNanos the time in nanoseconds that the worker spent on the task or {@code 0} if unknown
+	 */
+	default void finished(final int taskId, final long attemptId, final ActorRef worker, final long computeNanos) {
+		this.finished(taskId, worker, computeNanos);
+	}
+
+	/**
+	 * Notify that a worker has made progress on its task without completing it, i.e., that it is still alive.
+	 *
+	 * @param taskId the id of the task this worker is working on
+	 * @param worker the reference to the worker who reported the progress
+	 */
+	default void progress(final int taskId, final ActorRef worker) {
+	}
+
+	/**
+	 * Notify that a worker has made progress on an attempt to process a subquery without completing it. Strategies that
+	 * do not number their attempts ignore the attempt ID.
+	 *
+	 * @param taskId the id of the task this worker is working on
+	 * @param attemptId the id of the attempt as given by {@link Worker.ValidationMessage#getAttemptId()} or {@code 0} if unnumbered
+	 * @param worker the reference to the worker who reported the progress
+	 */
+	default void progress(final int taskId, final long attemptId, final ActorRef worker) {
+		this.progress(taskId, worker);
+	}
+
+	/**
+	 * Notify that a worker has answered a {@link Worker.StatusRequestMessage}, i.e., that it is alive and responsive.
+	 *
+	 * @param worker the reference to the worker who answered
+	 */
+	default void responded(final ActorRef worker) {
+	}
+
+	/**
+	 * Notify that a worker has truncated the range that it was working on upon a {@link Worker.TruncateMessage}.
+	 *
+	 * @param taskId the id of the task the range belongs to
+	 * @param worker the reference to the worker who truncated its range
+	 * @param boundary the last number that the worker is going to check
+	 * @param releasedEndNumber the last number that the worker has released; nothing was released if it equals the boundary
+	 */
+	default void truncated(final int taskId, final ActorRef worker, final long boundary, final long releasedEndNumber) {
+	}
+
 	/**
 	 * Check if there are still any pending tasks.
 	 *
@@ -44,6 +124,22 @@ public interface SchedulingStrategy {
 	 */
 	boolean hasTasksInProgress();
 
+	/**
+	 * Notify the passage of time, so that the strategy can react to tasks that take unexpectedly long.
+	 */
+	default void tick() {
+	}
+
+	/**
+	 * Stop or resume granting subqueries to workers, e.g., while their results cannot be consumed as fast as they
+	 * arrive. Subqueries that workers already process are not affected. Strategies that split each range up front hold
+	 * back only the ranges that arrive while paused.
+	 *
+	 * @param isPaused whether to hold back further subqueries
+	 */
+	default void setPaused(final boolean isPaused) {
+	}
+
 	/**
 	 * Add a new {@link Worker} actor.
 	 *
@@ -51,6 +147,29 @@ public interface SchedulingStrategy {
 	 */
 	void addWorker(final ActorRef worker);
 
+	/**
+	 * Add a new {@link Worker} actor with a declared capacity. Strategies that do not distinguish workers ignore the
+	 * capacity.
+	 *
+	 * @param worker the worker actor to add
+	 * @param capacity the number of processor cores that are available to the worker, e.g., {@code 1.0} for a full core
+	 */
+	default void addWorker(final ActorRef worker, final double capacity) {
+		this.addWorker(worker);
+	}
+
+	/**
+	 * Add a new {@link Worker} actor with a declared capacity that runs on the node with the given address. Strategies
+	 * that do not distinguish local and remote workers ignore the address.
+	 *
+	 * @param worker the worker actor to add
+	 * @param capacity the number of processor cores that are available to the worker, e.g., {@code 1.0} for a full core
+	 * @param address the address of the actor system that hosts the worker
+	 */
+	default void addWorker(final ActorRef worker, final double capacity, final Address address) {
+		this.addWorker(worker, capacity);
+	}
+
 	/**
 	 * Remove a {@link Worker} actor.
 	 *
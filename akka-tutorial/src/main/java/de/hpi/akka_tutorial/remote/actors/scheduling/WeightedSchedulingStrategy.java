@@ -0,0 +1,265 @@
+package de.hpi.akka_tutorial.remote.actors.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import akka.actor.ActorRef;
+import de.hpi.akka_tutorial.remote.actors.Worker;
+
+/**
+ * This strategy splits each range up front into one segment per worker, like the {@link RoundRobinSchedulingStrategy}.
+ * The segments are not equally long, though: they have equal cost according to the {@link CostModel}, weighted by the
+ * speed of each worker. The speed of a worker is its measured throughput or, as long as nothing has been measured, its
+ * declared capacity.
+ */
+public class WeightedSchedulingStrategy implements SchedulingStrategy {
+
+	/**
+	 * {@link SchedulingStrategy.Factory} implementation for the {@link WeightedSchedulingStrategy}.
+	 */
+	public static class Factory implements SchedulingStrategy.Factory {
+
+		@Override
+		public SchedulingStrategy create(ActorRef master) {
+			return new WeightedSchedulingStrategy(master);
+		}
+	}
+
+	/**
+	 * A segment that has been sent to a worker.
+	 */
+	private static class Assignment {
+
+		private final Worker.ValidationMessage segment;
+
+		private final long sendNanos;
+
+		Assignment(final Worker.ValidationMessage segment, final long sendNanos) {
+			this.segment = segment;
+			this.sendNanos = sendNanos;
+		}
+	}
+
+	// A mapping of known workers to their declared capacity; the workers are kept in their insertion order
+	private final Map<ActorRef, Double> worker2capacity = new LinkedHashMap<>();
+
+	// A mapping of known workers to the segments that they process; as workers process their messages in order, the first segment completes first
+	private final Map<ActorRef, Deque<Assignment>> worker2assignments = new HashMap<>();
+
+	// A mapping of known workers to the time when they completed their most recent segment
+	private final Map<ActorRef, Long> worker2completionNanos = new HashMap<>();
+
+	// A map of pending responses for unfinished tasks
+	private final Map<Integer, Integer> taskId2numberPendingResponses = new HashMap<>();
+
+	// Ranges that wait for workers to be split among or for the scheduling to resume
+	private final Queue<Worker.ValidationMessage> unassignedRanges = new LinkedList<>();
+
+	// Whether new segments are held back, because the master cannot get rid of the results
+	private boolean isPaused = false;
+
+	// Estimates the cost of ranges and measures the throughput of the workers
+	private final CostModel costModel = new CostModel(CostModel.DEFAULT_TARGET_NANOS);
+
+	// A reference to the actor in whose name we send messages
+	private final ActorRef master;
+
+	public WeightedSchedulingStrategy(ActorRef master) {
+		this.master = master;
+	}
+
+	@Override
+	public void schedule(final int taskId, final long startNumber, final long endNumber) {
+
+		// Ignore empty ranges
+		if (startNumber > endNumber)
+			return;
+
+		// Split the range among the workers or keep it until there are workers
+		this.taskId2numberPendingResponses.put(taskId, 0);
+		this.assign(new Worker.ValidationMessage(taskId, startNumber, endNumber));
+	}
+
+	private void assign(Worker.ValidationMessage range) {
+
+		// Wait for workers if there are none and for the scheduling to resume if it is paused
+		if (this.worker2capacity.isEmpty() || this.isPaused) {
+			this.unassignedRanges.add(range);
+			return;
+		}
+
+		// Give each worker a segment whose cost corresponds to the worker's share of the total speed
+		final List<ActorRef> workers = new ArrayList<>(this.worker2capacity.keySet());
+		final double[] speeds = this.speeds(workers);
+		double totalSpeed = 0;
+		for (double speed : speeds)
+			totalSpeed += speed;
+		final double totalCost = CostModel.cost(range.getRangeMin(), range.getRangeMax());
+
+		long segmentStartNumber = range.getRangeMin();
+		double cumulativeSpeed = 0;
+		for (int i = 0; i < workers.size() && segmentStartNumber <= range.getRangeMax(); i++) {
+
+			// Find the end of the segment; the last worker takes the remainder
+			cumulativeSpeed += speeds[i];
+			long segmentEndNumber = i == workers.size() - 1
+					? range.getRangeMax()
+					: findEndNumber(range.getRangeMin(), range.getRangeMax(), totalCost * cumulativeSpeed / totalSpeed);
+			if (segmentEndNumber < segmentStartNumber)
+				continue;
+
+			// Send the segment to the worker and keep track of the assignment
+			final Worker.ValidationMessage segment = new Worker.ValidationMessage(range.getId(), segmentStartNumber, segmentEndNumber);
+			workers.get(i).tell(segment, this.master);
+			this.worker2assignments.get(workers.get(i)).add(new Assignment(segment, System.nanoTime()));
+			this.taskId2numberPendingResponses.merge(range.getId(), 1, Integer::sum);
+
+			if (segmentEndNumber == range.getRangeMax())
+				break;
+			segmentStartNumber = segmentEndNumber + 1;
+		}
+	}
+
+	private double[] speeds(List<ActorRef> workers) {
+
+		// Determine how much throughput a unit of declared capacity yields on the measured workers
+		double measuredThroughput = 0, measuredCapacity = 0;
+		for (ActorRef worker : workers) {
+			final double throughput = this.costModel.throughput(worker);
+			if (!Double.isNaN(throughput)) {
+				measuredThroughput += throughput;
+				measuredCapacity += this.worker2capacity.get(worker);
+			}
+		}
+		final double throughputPerCapacity = measuredCapacity > 0 ? measuredThroughput / measuredCapacity : 1;
+
+		// Prefer measured throughputs and extrapolate them to the other workers by their declared capacities
+		final double[] speeds = new double[workers.size()];
+		for (int i = 0; i < speeds.length; i++) {
+			final double throughput = this.costModel.throughput(workers.get(i));
+			speeds[i] = Double.isNaN(throughput) ? this.worker2capacity.get(workers.get(i)) * throughputPerCapacity : throughput;
+		}
+		return speeds;
+	}
+
+	private static long findEndNumber(long startNumber, long endNumber, double cost) {
+
+		// Binary search for the last number, such that the range up to it does not exceed the cost
+		long low = startNumber - 1, high = endNumber;
+		while (low < high) {
+			final long middle = low + (high - low + 1) / 2;
+			if (CostModel.cost(startNumber, middle) <= cost)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+
+	@Override
+	public void finished(final int taskId, final ActorRef worker) {
+
+		// Find the segment that the worker has completed, which is usually its oldest one of that task
+		final Deque<Assignment> assignments = this.worker2assignments.get(worker);
+		if (assignments == null)
+			return;
+		Assignment assignment = null;
+		for (Iterator<Assignment> iterator = assignments.iterator(); iterator.hasNext(); ) {
+			final Assignment candidate = iterator.next();
+			if (candidate.segment.getId() == taskId) {
+				assignment = candidate;
+				iterator.remove();
+				break;
+			}
+		}
+
+		// Ignore completions that match no segment, e.g., of a worker that has been removed in between
+		if (assignment == null)
+			return;
+
+		// Measure the worker's throughput to weight it in the next splits; a queued segment started only when its predecessor completed
+		final long completionNanos = System.nanoTime();
+		final long startNanos = Math.max(assignment.sendNanos, this.worker2completionNanos.getOrDefault(worker, Long.MIN_VALUE));
+		this.worker2completionNanos.put(worker, completionNanos);
+		this.costModel.record(worker, assignment.segment.getRangeMin(), assignment.segment.getRangeMax(), completionNanos - startNanos);
+
+		// Decrement the number of pending responses for this task
+		this.decrementPendingResponses(taskId);
+	}
+
+	private void decrementPendingResponses(int taskId) {
+		final int newPendingResponses = this.taskId2numberPendingResponses.get(taskId) - 1;
+		if (newPendingResponses == 0) {
+			// Task is completed
+			this.taskId2numberPendingResponses.remove(taskId);
+		} else {
+			// Task is still pending
+			this.taskId2numberPendingResponses.put(taskId, newPendingResponses);
+		}
+	}
+
+	@Override
+	public boolean hasTasksInProgress() {
+		return !this.taskId2numberPendingResponses.isEmpty();
+	}
+
+	@Override
+	public void addWorker(final ActorRef worker) {
+		this.addWorker(worker, 1.0);
+	}
+
+	@Override
+	public void addWorker(final ActorRef worker, final double capacity) {
+
+		// Add the new worker
+		this.worker2capacity.put(worker, capacity);
+		this.worker2assignments.put(worker, new ArrayDeque<>());
+
+		// Split the ranges that waited for workers
+		this.assignWaitingRanges();
+	}
+
+	@Override
+	public void setPaused(final boolean isPaused) {
+		this.isPaused = isPaused;
+		this.assignWaitingRanges();
+	}
+
+	private void assignWaitingRanges() {
+		if (this.worker2capacity.isEmpty() || this.isPaused)
+			return;
+		while (!this.unassignedRanges.isEmpty())
+			this.assign(this.unassignedRanges.poll());
+	}
+
+	@Override
+	public void removeWorker(final ActorRef worker) {
+
+		// Remove the worker from the list of workers
+		this.worker2capacity.remove(worker);
+		this.worker2completionNanos.remove(worker);
+		this.costModel.removeWorker(worker);
+		final Deque<Assignment> assignments = this.worker2assignments.remove(worker);
+
+		// Split the segments of the worker among the remaining workers
+		if (assignments != null) {
+			for (Assignment assignment : assignments) {
+				this.taskId2numberPendingResponses.merge(assignment.segment.getId(), -1, Integer::sum);
+				this.assign(assignment.segment);
+			}
+		}
+	}
+
+	@Override
+	public int countWorkers() {
+		return this.worker2capacity.size();
+	}
+}
@@ -0,0 +1,324 @@
+package de.hpi.akka_tutorial.remote.actors.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import akka.actor.ActorRef;
+import de.hpi.akka_tutorial.remote.actors.Worker;
+
+/**
+ * This strategy splits each range into chunks and gives each worker a contiguous share of them to own. A worker
+ * processes its own chunks one after the other. Once it runs out of chunks, it steals from the worker with the most
+ * remaining numbers: It takes a queued chunk if the victim has some, and otherwise asks the victim to truncate the
+ * chunk that it is working on and takes the released numbers. If that victim cannot be split, because it is already
+ * truncating or its running chunk is too small, the thief turns to the worker with the next most remaining numbers.
+ * <p>
+ * Each worker is sent one chunk at a time and all workers own equal shares, so this strategy ignores the capacities
+ * that the workers declare and adapts to their speeds only by stealing.
+ */
+public class WorkStealingSchedulingStrategy implements SchedulingStrategy {
+
+	// Split each range into this many chunks per worker
+	private static final int CHUNKS_PER_WORKER = 4;
+
+	// Chunks should not get smaller than this, so as to not drown in messaging overhead
+	private static final long MIN_CHUNK_SIZE = 1L << 16;
+
+	/**
+	 * {@link SchedulingStrategy.Factory} implementation for the {@link WorkStealingSchedulingStrategy}.
+	 */
+	public static class Factory implements SchedulingStrategy.Factory {
+
+		@Override
+		public SchedulingStrategy create(ActorRef master) {
+			return new WorkStealingSchedulingStrategy(master);
+		}
+	}
+
+	/**
+	 * A contiguous range of numbers that belongs to some task.
+	 */
+	private static class Chunk {
+
+		private final int taskId;
+
+		private final long startNumber;
+
+		// The last number of the chunk, which can decrease if the chunk is split
+		private long endNumber;
+
+		Chunk(final int taskId, final long startNumber, final long endNumber) {
+			this.taskId = taskId;
+			this.startNumber = startNumber;
+			this.endNumber = endNumber;
+		}
+
+		long size() {
+			return this.endNumber - this.startNumber + 1;
+		}
+	}
+
+	/**
+	 * The chunks that a worker owns.
+	 */
+	private static class WorkerState {
+
+		// The chunks that have not been sent to the worker yet
+		private final Deque<Chunk> queuedChunks = new ArrayDeque<>();
+
+		// The number of numbers in the queued chunks
+		private long numQueuedNumbers = 0;
+
+		// The chunk that the worker is processing or null if the worker is idle
+		private Chunk runningChunk;
+
+		// Whether the worker has been asked to truncate its running chunk and has not answered yet
+		private boolean isTruncating = false;
+
+		void enqueue(Chunk chunk) {
+			this.queuedChunks.add(chunk);
+			this.numQueuedNumbers += chunk.size();
+		}
+
+		Chunk dequeueFirst() {
+			final Chunk chunk = this.queuedChunks.poll();
+			if (chunk != null)
+				this.numQueuedNumbers -= chunk.size();
+			return chunk;
+		}
+
+		Chunk dequeueLast() {
+			final Chunk chunk = this.queuedChunks.pollLast();
+			if (chunk != null)
+				this.numQueuedNumbers -= chunk.size();
+			return chunk;
+		}
+
+		long numRemainingNumbers() {
+			return this.numQueuedNumbers + (this.runningChunk == null ? 0 : this.runningChunk.size());
+		}
+	}
+
+	// A mapping of known workers to the chunks they own; the workers are kept in their insertion order
+	private final Map<ActorRef, WorkerState> worker2state = new LinkedHashMap<>();
+
+	// A map of open chunks, i.e., queued or running ones, for unfinished tasks
+	private final Map<Integer, Integer> taskId2numberOpenChunks = new HashMap<>();
+
+	// Chunks that wait for workers to own them
+	private final Queue<Chunk> unassignedChunks = new LinkedList<>();
+
+	// Whether chunks are held back, because the master cannot get rid of the results
+	private boolean isPaused = false;
+
+	// A reference to the actor in whose name we send messages
+	private final ActorRef master;
+
+	public WorkStealingSchedulingStrategy(ActorRef master) {
+		this.master = master;
+	}
+
+	@Override
+	public void schedule(final int taskId, final long startNumber, final long endNumber) {
+
+		// Ignore empty ranges
+		if (startNumber > endNumber)
+			return;
+
+		// Split the range into chunks
+		final int numChunks = CHUNKS_PER_WORKER * Math.max(this.worker2state.size(), 1);
+		final long chunkSize = Math.max(MIN_CHUNK_SIZE, (endNumber - startNumber) / numChunks + 1);
+		final Queue<Chunk> chunks = new LinkedList<>();
+		for (long chunkStartNumber = startNumber; ; chunkStartNumber += chunkSize) {
+			final long chunkEndNumber = endNumber - chunkStartNumber < chunkSize ? endNumber : chunkStartNumber + chunkSize - 1;
+			chunks.add(new Chunk(taskId, chunkStartNumber, chunkEndNumber));
+			if (chunkEndNumber == endNumber)
+				break;
+		}
+		this.taskId2numberOpenChunks.put(taskId, chunks.size());
+
+		// Give each worker a contiguous share of the chunks or keep them until there are workers
+		if (this.worker2state.isEmpty()) {
+			this.unassignedChunks.addAll(chunks);
+			return;
+		}
+		final int chunksPerWorker = (chunks.size() + this.worker2state.size() - 1) / this.worker2state.size();
+		for (WorkerState state : this.worker2state.values())
+			for (int i = 0; i < chunksPerWorker && !chunks.isEmpty(); i++)
+				state.enqueue(chunks.poll());
+
+		this.assignChunks();
+	}
+
+	@Override
+	public void finished(final int taskId, final ActorRef worker) {
+
+		// Mark the worker as idle
+		final WorkerState state = this.worker2state.get(worker);
+		if (state == null || state.runningChunk == null)
+			return;
+
+		// Ignore completions that do not match the running chunk
+		if (state.runningChunk.taskId != taskId)
+			return;
+		state.runningChunk = null;
+
+		// Check if the task is complete
+		final int newOpenChunks = this.taskId2numberOpenChunks.get(taskId) - 1;
+		if (newOpenChunks == 0)
+			this.taskId2numberOpenChunks.remove(taskId);
+		else
+			this.taskId2numberOpenChunks.put(taskId, newOpenChunks);
+
+		// Give the worker its next chunk or let it steal one
+		this.assignChunks();
+	}
+
+	@Override
+	public void truncated(final int taskId, final ActorRef worker, final long boundary, final long releasedEndNumber) {
+		final WorkerState state = this.worker2state.get(worker);
+		if (state == null)
+			return;
+		state.isTruncating = false;
+
+		// Take over the released numbers as a new chunk, which goes to the first idle worker
+		if (boundary != releasedEndNumber) {
+			if (state.runningChunk != null && state.runningChunk.taskId == taskId && state.runningChunk.endNumber == releasedEndNumber)
+				state.runningChunk.endNumber = boundary;
+			this.taskId2numberOpenChunks.merge(taskId, 1, Integer::sum);
+			final Chunk chunk = new Chunk(taskId, boundary + 1, releasedEndNumber);
+			final WorkerState thief = this.worker2state.values().stream()
+					.filter(candidate -> candidate.runningChunk == null)
+					.findFirst()
+					.orElse(state);
+			thief.enqueue(chunk);
+		}
+
+		this.assignChunks();
+	}
+
+	@Override
+	public void setPaused(final boolean isPaused) {
+		this.isPaused = isPaused;
+		this.assignChunks();
+	}
+
+	private void assignChunks() {
+		if (this.isPaused)
+			return;
+		for (Map.Entry<ActorRef, WorkerState> entry : this.worker2state.entrySet()) {
+			final WorkerState state = entry.getValue();
+			if (state.runningChunk != null)
+				continue;
+
+			// Process the own chunks first and steal only if there are none
+			if (state.queuedChunks.isEmpty())
+				this.steal(state);
+
+			// Send the next chunk to the worker
+			final Chunk chunk = state.dequeueFirst();
+			if (chunk != null) {
+				state.runningChunk = chunk;
+				entry.getKey().tell(new Worker.ValidationMessage(chunk.taskId, chunk.startNumber, chunk.endNumber), this.master);
+			}
+		}
+	}
+
+	private void steal(WorkerState thief) {
+
+		// Try the other workers from the one with the most remaining numbers to the one with the fewest
+		final List<Map.Entry<ActorRef, WorkerState>> victims = new ArrayList<>();
+		for (Map.Entry<ActorRef, WorkerState> entry : this.worker2state.entrySet())
+			if (entry.getValue() != thief)
+				victims.add(entry);
+		victims.sort((entry1, entry2) -> Long.compare(entry2.getValue().numRemainingNumbers(), entry1.getValue().numRemainingNumbers()));
+		for (Map.Entry<ActorRef, WorkerState> victim : victims)
+			if (this.steal(thief, victim.getKey(), victim.getValue()))
+				return;
+	}
+
+	private boolean steal(WorkerState thief, ActorRef victim, WorkerState victimState) {
+
+		// Take the victim's last queued chunk or half of it, if it is the only one
+		if (victimState.queuedChunks.size() > 1) {
+			thief.enqueue(victimState.dequeueLast());
+			return true;
+		}
+		if (victimState.queuedChunks.size() == 1) {
+			final Chunk chunk = victimState.dequeueLast();
+			if (chunk.size() >= 2 * MIN_CHUNK_SIZE) {
+				final long splitNumber = chunk.startNumber + chunk.size() / 2;
+				final Chunk stolenChunk = new Chunk(chunk.taskId, splitNumber, chunk.endNumber);
+				chunk.endNumber = splitNumber - 1;
+				victimState.enqueue(chunk);
+				thief.enqueue(stolenChunk);
+				this.taskId2numberOpenChunks.merge(chunk.taskId, 1, Integer::sum);
+			} else {
+				thief.enqueue(chunk);
+			}
+			return true;
+		}
+
+		// Ask the victim to release some of the numbers of its running chunk, unless it cannot be split
+		if (victimState.runningChunk != null && !victimState.isTruncating && victimState.runningChunk.size() >= 2 * MIN_CHUNK_SIZE) {
+			victimState.isTruncating = true;
+			victim.tell(new Worker.TruncateMessage(victimState.runningChunk.taskId, victimState.runningChunk.startNumber), this.master);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean hasTasksInProgress() {
+		return !this.taskId2numberOpenChunks.isEmpty();
+	}
+
+	@Override
+	public void addWorker(final ActorRef worker) {
+
+		// Add the new worker, which owns all chunks that waited for workers
+		final WorkerState state = new WorkerState();
+		this.worker2state.put(worker, state);
+		while (!this.unassignedChunks.isEmpty())
+			state.enqueue(this.unassignedChunks.poll());
+
+		// Let the new worker start or steal
+		this.assignChunks();
+	}
+
+	@Override
+	public void removeWorker(final ActorRef worker) {
+
+		// Remove the worker from the list of workers
+		final WorkerState state = this.worker2state.remove(worker);
+		if (state == null)
+			return;
+
+		// Hand the chunks of the worker to the worker with the fewest remaining numbers or keep them until there are workers
+		final WorkerState heir = this.worker2state.values().stream()
+				.min((state1, state2) -> Long.compare(state1.numRemainingNumbers(), state2.numRemainingNumbers()))
+				.orElse(null);
+		if (state.runningChunk != null)
+			state.queuedChunks.addFirst(state.runningChunk);
+		for (Chunk chunk : state.queuedChunks) {
+			if (heir == null)
+				this.unassignedChunks.add(chunk);
+			else
+				heir.enqueue(chunk);
+		}
+
+		this.assignChunks();
+	}
+
+	@Override
+	public int countWorkers() {
+		return this.worker2state.size();
+	}
+}
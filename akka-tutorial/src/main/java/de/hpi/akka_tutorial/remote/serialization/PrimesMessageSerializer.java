@@ -0,0 +1,65 @@
+package de.hpi.akka_tutorial.remote.serialization;
+
+import java.nio.ByteBuffer;
+
+import akka.serialization.JSerializer;
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+import de.hpi.akka_tutorial.remote.actors.Listener;
+import de.hpi.akka_tutorial.remote.actors.Master;
+
+/**
+ * A dedicated serializer for the messages that carry {@link PrimeBatch}es. The batches are written in their compact,
+ * delta-encoded form (see {@link PrimeBatch#encode(ByteBuffer)}) so that the bulk of the remote traffic does not need
+ * to pass through Kryo. The serializer is bound to the messages in {@code akka-tutorial/remote.conf}.
+ */
+public class PrimesMessageSerializer extends JSerializer {
+
+	@Override
+	public int identifier() {
+		return 7_877_001;
+	}
+
+	@Override
+	public boolean includeManifest() {
+		return true;
+	}
+
+	@Override
+	public byte[] toBinary(Object o) {
+		if (o instanceof Master.PrimesMessage) {
+			final Master.PrimesMessage message = (Master.PrimesMessage) o;
+			final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + Integer.BYTES + 1 + Long.BYTES + message.getPrimes().encodedSize());
+			buffer.putInt(message.getRequestId());
+			buffer.putLong(message.getAttemptId());
+			buffer.putInt(message.getSequenceNumber());
+			buffer.put((byte) (message.isComplete() ? 1 : 0));
+			buffer.putLong(message.getComputeNanos());
+			message.getPrimes().encode(buffer);
+			return buffer.array();
+		}
+		if (o instanceof Listener.PrimesMessage) {
+			final Listener.PrimesMessage message = (Listener.PrimesMessage) o;
+			final ByteBuffer buffer = ByteBuffer.allocate(message.getPrimes().encodedSize());
+			message.getPrimes().encode(buffer);
+			return buffer.array();
+		}
+		throw new IllegalArgumentException(String.format("Cannot serialize %s.", o.getClass()));
+	}
+
+	@Override
+	public Object fromBinaryJava(byte[] bytes, Class<?> manifest) {
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (manifest == Master.PrimesMessage.class) {
+			final int requestId = buffer.getInt();
+			final long attemptId = buffer.getLong();
+			final int sequenceNumber = buffer.getInt();
+			final boolean isComplete = buffer.get() != 0;
+			final long computeNanos = buffer.getLong();
+			return new Master.PrimesMessage(requestId, attemptId, sequenceNumber, PrimeBatch.decode(buffer), isComplete, computeNanos);
+		}
+		if (manifest == Listener.PrimesMessage.class) {
+			return new Listener.PrimesMessage(PrimeBatch.decode(buffer));
+		}
+		throw new IllegalArgumentException(String.format("Cannot deserialize %s.", manifest));
+	}
+}
@@ -0,0 +1,152 @@
+package de.hpi.akka_tutorial.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A set of numbers that is kept as disjoint, non-adjacent ranges. Added ranges are merged with overlapping and
+ * adjacent ones, so that the index stays as small as possible.
+ */
+public class RangeIndex {
+
+	/**
+	 * Receives ranges of numbers.
+	 */
+	@FunctionalInterface
+	public interface RangeConsumer {
+
+		/**
+		 * Receive a range.
+		 *
+		 * @param rangeMin first number of the range (inclusive)
+		 * @param rangeMax last number of the range (inclusive)
+		 */
+		void accept(long rangeMin, long rangeMax);
+
+	}
+
+	// Maps the first number of each range to its last number
+	private final TreeMap<Long, Long> ranges = new TreeMap<>();
+
+	/**
+	 * Add a range of numbers.
+	 *
+	 * @param rangeMin first number of the range (inclusive)
+	 * @param rangeMax last number of the range (inclusive)
+	 */
+	public void add(long rangeMin, long rangeMax) {
+		if (rangeMin > rangeMax)
+			return;
+
+		// Merge with a preceding range that overlaps or touches the new range
+		Map.Entry<Long, Long> floor = this.ranges.floorEntry(rangeMin);
+		if (floor != null && (floor.getValue() >= rangeMin - 1 || rangeMin == Long.MIN_VALUE)) {
+			if (floor.getValue() >= rangeMax)
+				return;
+			rangeMin = floor.getKey();
+		}
+
+		// Absorb all succeeding ranges that overlap or touch the new range
+		Map.Entry<Long, Long> next = this.ranges.ceilingEntry(rangeMin);
+		while (next != null && (next.getKey() <= rangeMax + 1 || rangeMax == Long.MAX_VALUE)) {
+			rangeMax = Math.max(rangeMax, next.getValue());
+			this.ranges.remove(next.getKey());
+			next = this.ranges.higherEntry(next.getKey());
+		}
+
+		this.ranges.put(rangeMin, rangeMax);
+	}
+
+	/**
+	 * Count the numbers of a range that are contained in this index.
+	 *
+	 * @param rangeMin first number of the range (inclusive)
+	 * @param rangeMax last number of the range (inclusive)
+	 * @return the number of contained numbers
+	 */
+	public long count(long rangeMin, long rangeMax) {
+		final long[] count = {0};
+		this.forEach(rangeMin, rangeMax, (min, max) -> count[0] += max - min + 1);
+		return count[0];
+	}
+
+	/**
+	 * Visit the contained parts of a range in ascending order.
+	 *
+	 * @param rangeMin first number of the range (inclusive)
+	 * @param rangeMax last number of the range (inclusive)
+	 * @param consumer receives the contained parts
+	 */
+	public void forEach(long rangeMin, long rangeMax, RangeConsumer consumer) {
+		if (rangeMin > rangeMax)
+			return;
+
+		// Start with the range that might contain the first number
+		Long key = this.ranges.floorKey(rangeMin);
+		if (key == null)
+			key = rangeMin;
+
+		for (Map.Entry<Long, Long> range : this.ranges.tailMap(key, true).entrySet()) {
+			if (range.getKey() > rangeMax)
+				break;
+			if (range.getValue() >= rangeMin)
+				consumer.accept(Math.max(range.getKey(), rangeMin), Math.min(range.getValue(), rangeMax));
+		}
+	}
+
+	/**
+	 * Visit the parts of a range that are not contained in this index in ascending order.
+	 *
+	 * @param rangeMin first number of the range (inclusive)
+	 * @param rangeMax last number of the range (inclusive)
+	 * @param consumer receives the missing parts
+	 */
+	public void forEachGap(long rangeMin, long rangeMax, RangeConsumer consumer) {
+		if (rangeMin > rangeMax)
+			return;
+
+		// Walk over the contained parts and report everything between them
+		final long[] cursor = {rangeMin};
+		final boolean[] isExhausted = {false};
+		this.forEach(rangeMin, rangeMax, (min, max) -> {
+			if (min > cursor[0])
+				consumer.accept(cursor[0], min - 1);
+			if (max == rangeMax)
+				isExhausted[0] = true;
+			else
+				cursor[0] = max + 1;
+		});
+		if (!isExhausted[0])
+			consumer.accept(cursor[0], rangeMax);
+	}
+
+	/**
+	 * Count the disjoint ranges of this index.
+	 *
+	 * @return the number of ranges
+	 */
+	public int size() {
+		return this.ranges.size();
+	}
+
+	/**
+	 * Provide all ranges of this index as pairs of first and last number in ascending order.
+	 *
+	 * @return the ranges as {@code [min0, max0, min1, max1, ...]}
+	 */
+	public long[] toArray() {
+		final long[] array = new long[2 * this.ranges.size()];
+		int i = 0;
+		for (Map.Entry<Long, Long> range : this.ranges.entrySet()) {
+			array[i++] = range.getKey();
+			array[i++] = range.getValue();
+		}
+		return array;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s%s", this.getClass().getSimpleName(), Arrays.toString(this.toArray()));
+	}
+}
@@ -0,0 +1,74 @@
+package de.hpi.akka_tutorial.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Utilities for variable-length integer encoding: Seven bits are stored per byte and the highest bit of each byte marks
+ * whether further bytes follow. Small (unsigned) values thus take only a single byte.
+ */
+public class Varint {
+
+	// The maximum number of bytes that a single encoded long can occupy
+	public static final int MAX_BYTES = 10;
+
+	/**
+	 * Calculate the number of bytes needed to encode a value as unsigned varint.
+	 *
+	 * @param value the value, interpreted as unsigned
+	 * @return the number of bytes
+	 */
+	public static int sizeOf(long value) {
+		int size = 1;
+		while ((value & ~0x7FL) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * Write a value as unsigned varint.
+	 *
+	 * @param buffer the buffer to write to
+	 * @param value  the value, interpreted as unsigned
+	 */
+	public static void write(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Read an unsigned varint.
+	 *
+	 * @param buffer the buffer to read from
+	 * @return the value
+	 */
+	public static long read(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			final byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new IllegalArgumentException("Malformed varint.");
+	}
+
+	/**
+	 * Map a signed value to an unsigned value so that values of small magnitude are encoded in few bytes.
+	 */
+	public static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Invert {@link #zigZag(long)}.
+	 */
+	public static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
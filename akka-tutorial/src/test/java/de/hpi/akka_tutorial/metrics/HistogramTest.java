@@ -0,0 +1,46 @@
+package de.hpi.akka_tutorial.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * This class contains tests for the {@link Histogram}.
+ */
+public class HistogramTest {
+
+	@Test
+	public void testBuckets() {
+
+		// Every value lies within the range of its bucket, and the buckets are ordered
+		long previousValue = -1;
+		int previousIndex = -1;
+		for (long value : new long[] {0, 1, 63, 64, 65, 1000, 1L << 40, (1L << 40) + 12345, Long.MAX_VALUE}) {
+			int index = Histogram.bucketIndex(value);
+			assertTrue(index >= previousIndex);
+			assertTrue(Histogram.highestEquivalentValue(index) >= value);
+			assertTrue(index == 0 || Histogram.highestEquivalentValue(index - 1) < value);
+			assertTrue(value - previousValue > 0);
+			previousValue = value;
+			previousIndex = index;
+		}
+	}
+
+	@Test
+	public void testPercentiles() {
+		Histogram histogram = new Histogram();
+		for (long value = 1; value <= 10_000; value++)
+			histogram.record(value * 1000);
+
+		assertEquals(10_000, histogram.count());
+		assertEquals(10_000_000, histogram.max());
+		assertEquals(5_000_500, histogram.mean(), 1e-6);
+
+		// The percentiles are exact up to the precision of the buckets
+		assertEquals(5_000_000, histogram.percentile(50), 5_000_000 / 32.0);
+		assertEquals(9_900_000, histogram.percentile(99), 9_900_000 / 32.0);
+		assertEquals(10_000_000, histogram.percentile(100));
+	}
+
+}
@@ -0,0 +1,114 @@
+package de.hpi.akka_tutorial.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.ConfigFactory;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.testkit.javadsl.TestKit;
+import de.hpi.akka_tutorial.remote.actors.Master;
+
+/**
+ * This class contains tests for the {@link Metrics}.
+ */
+public class MetricsTest {
+
+	@Test
+	public void testSnapshot() {
+		Metrics metrics = new Metrics();
+		metrics.counter("batches").add(3);
+		metrics.gauge("depth", () -> 7);
+		metrics.histogram(Metrics.name("latency_nanos", "worker", "a")).record(42);
+
+		// Histograms are expanded with their labels at the end
+		SortedMap<String, Double> snapshot = metrics.snapshot();
+		assertEquals(3, snapshot.get("batches"), 0);
+		assertEquals(7, snapshot.get("depth"), 0);
+		assertEquals(1, snapshot.get("latency_nanos_count{worker=\"a\"}"), 0);
+		assertEquals(42, snapshot.get("latency_nanos_p99_9{worker=\"a\"}"), 0);
+		assertTrue(snapshot.containsKey("jvm_allocation_bytes_per_second"));
+
+		// Removed metrics disappear
+		metrics.remove(Metrics.name("latency_nanos", "worker", "a"));
+		assertTrue(metrics.snapshot().keySet().stream().noneMatch(name -> name.startsWith("latency_nanos")));
+	}
+
+	@Test
+	public void testHttpServer() throws IOException {
+		Metrics metrics = new Metrics();
+		metrics.counter("batches").add(3);
+		HttpServer httpServer = metrics.startHttpServer(0);
+		try (InputStream body = new URL("http://localhost:" + httpServer.getAddress().getPort() + Metrics.HTTP_PATH).openStream()) {
+			ByteArrayOutputStream text = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int numBytes; (numBytes = body.read(buffer)) >= 0;)
+				text.write(buffer, 0, numBytes);
+			assertTrue(Arrays.asList(new String(text.toByteArray(), StandardCharsets.UTF_8).split("\n")).contains("batches 3"));
+		} finally {
+			httpServer.stop(0);
+		}
+	}
+
+	@Test
+	public void testInstrumentedMailbox() throws InterruptedException {
+		ActorSystem actorSystem = ActorSystem.create("MetricsTest", ConfigFactory.parseResources("akka-tutorial/base.conf").withFallback(ConfigFactory.load()));
+		try {
+
+			// The master blocks on its first message, so that the others wait in its mailbox
+			CountDownLatch latch = new CountDownLatch(1);
+			TestKit probe = new TestKit(actorSystem);
+			ActorRef master = actorSystem.actorOf(Props.create(BlockingActor.class, () -> new BlockingActor(latch)), Master.DEFAULT_NAME);
+			for (int i = 0; i < 3; i++)
+				master.tell(i, probe.getRef());
+			probe.expectMsgEquals(0);
+			assertEquals(2, Metrics.getDefault().snapshot().get("master_mailbox_depth"), 0);
+
+			// The mailbox drains once the master proceeds
+			latch.countDown();
+			probe.expectMsgEquals(1);
+			probe.expectMsgEquals(2);
+			assertEquals(0, Metrics.getDefault().snapshot().get("master_mailbox_depth"), 0);
+		} finally {
+			TestKit.shutdownActorSystem(actorSystem);
+		}
+	}
+
+	/**
+	 * Echoes its messages, but blocks after the first one until it is released.
+	 */
+	private static class BlockingActor extends AbstractActor {
+
+		private final CountDownLatch latch;
+
+		BlockingActor(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public Receive createReceive() {
+			return receiveBuilder()
+					.matchAny(message -> {
+						this.getSender().tell(message, this.getSelf());
+						this.latch.await();
+					})
+					.build();
+		}
+	}
+
+}
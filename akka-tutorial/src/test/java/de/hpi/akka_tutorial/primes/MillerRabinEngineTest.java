@@ -0,0 +1,48 @@
+package de.hpi.akka_tutorial.primes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * This class contains tests for the {@link MillerRabinEngine}.
+ */
+public class MillerRabinEngineTest {
+
+	@Test
+	public void shouldMatchTrialDivision() {
+		for (long n = -10; n < 200_000; n++)
+			assertEquals("n = " + n, TrialDivisionEngine.isPrime(n), MillerRabinEngine.isPrime(n));
+		for (long n = 1_000_000_000_000L; n < 1_000_000_010_000L; n++)
+			assertEquals("n = " + n, TrialDivisionEngine.isPrime(n), MillerRabinEngine.isPrime(n));
+	}
+
+	@Test
+	public void shouldRecognizeLargePrimes() {
+		assertTrue(MillerRabinEngine.isPrime((1L << 61) - 1));
+		assertTrue(MillerRabinEngine.isPrime(4611686018427387847L)); // largest prime below 2^62
+		assertTrue(MillerRabinEngine.isPrime(9223372036854775783L)); // largest prime below 2^63
+	}
+
+	@Test
+	public void shouldRejectStrongPseudoprimes() {
+		assertFalse(MillerRabinEngine.isPrime(3215031751L));
+		assertFalse(MillerRabinEngine.isPrime(3825123056546413051L));
+		assertFalse(MillerRabinEngine.isPrime(2152302898747L));
+		assertFalse(MillerRabinEngine.isPrime(4611686014132420609L)); // (2^31 - 1)^2
+	}
+
+	@Test
+	public void shouldDiscoverPrimesAtTheEndOfTheLongRange() {
+		List<Long> primes = new ArrayList<>();
+		new MillerRabinEngine().discover(Long.MAX_VALUE - 100, Long.MAX_VALUE, primes::add);
+		assertEquals(1, primes.size());
+		assertEquals(9223372036854775783L, (long) primes.get(0));
+	}
+
+}
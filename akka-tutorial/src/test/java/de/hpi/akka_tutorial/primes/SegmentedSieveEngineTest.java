@@ -0,0 +1,40 @@
+package de.hpi.akka_tutorial.primes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * This class contains tests for the {@link SegmentedSieveEngine}.
+ */
+public class SegmentedSieveEngineTest {
+
+	private static List<Long> discover(PrimeEngine engine, long rangeMin, long rangeMax) {
+		List<Long> primes = new ArrayList<>();
+		engine.discover(rangeMin, rangeMax, primes::add);
+		return primes;
+	}
+
+	@Test
+	public void shouldMatchTrialDivisionForSmallNumbers() {
+		assertEquals(discover(new TrialDivisionEngine(), -10, 100_000), discover(new SegmentedSieveEngine(), -10, 100_000));
+	}
+
+	@Test
+	public void shouldMatchTrialDivisionAcrossSegments() {
+		// The range spans several segments and starts and ends at odd offsets
+		long rangeMin = 1_000_000_007L, rangeMax = rangeMin + 1_500_001L;
+		assertEquals(discover(new TrialDivisionEngine(), rangeMin, rangeMax), discover(new SegmentedSieveEngine(), rangeMin, rangeMax));
+	}
+
+	@Test
+	public void shouldHandleSingleNumberRanges() {
+		SegmentedSieveEngine engine = new SegmentedSieveEngine();
+		for (long n = 0; n < 200; n++)
+			assertEquals(discover(new TrialDivisionEngine(), n, n), discover(engine, n, n));
+	}
+
+}
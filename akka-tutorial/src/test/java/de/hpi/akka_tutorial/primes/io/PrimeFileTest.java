@@ -0,0 +1,130 @@
+package de.hpi.akka_tutorial.primes.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+
+/**
+ * This class contains tests for the {@link PrimeFileWriter} and the {@link PrimeFileReader}.
+ */
+public class PrimeFileTest {
+
+	private Path path;
+
+	@Before
+	public void setUp() throws IOException {
+		this.path = Files.createTempFile("primes", ".bin");
+	}
+
+	private List<PrimeBatch> readAll() throws IOException {
+		List<PrimeBatch> batches = new ArrayList<>();
+		PrimeFileReader.read(this.path, batches::add);
+		return batches;
+	}
+
+	@Test
+	public void shouldAppendAcrossSessions() throws IOException {
+		PrimeBatch first = new PrimeBatch(1, 10, 1, 2, 3, 5, 7), second = new PrimeBatch(11, 20, 11, 13, 17, 19);
+		try (PrimeFileWriter writer = new PrimeFileWriter(this.path)) {
+			writer.write(first);
+		}
+		try (PrimeFileWriter writer = new PrimeFileWriter(this.path)) {
+			writer.write(second);
+		}
+		assertEquals(Arrays.asList(first, second), this.readAll());
+	}
+
+	@Test
+	public void shouldSkipIncompleteRecords() throws IOException {
+		PrimeBatch first = new PrimeBatch(1, 10, 1, 2, 3, 5, 7), second = new PrimeBatch(11, 20, 11, 13, 17, 19);
+		try (PrimeFileWriter writer = new PrimeFileWriter(this.path)) {
+			writer.write(first);
+			writer.write(second);
+		}
+
+		// Cut off the last byte as if the write had been interrupted
+		try (RandomAccessFile file = new RandomAccessFile(this.path.toFile(), "rw")) {
+			file.setLength(file.length() - 1);
+		}
+		assertEquals(Arrays.asList(first), this.readAll());
+
+		// A new writer continues after the last complete record
+		try (PrimeFileWriter writer = new PrimeFileWriter(this.path)) {
+			writer.write(second);
+		}
+		assertEquals(Arrays.asList(first, second), this.readAll());
+	}
+
+	@Test
+	public void shouldRejectCorruptRecords() throws IOException {
+		try (PrimeFileWriter writer = new PrimeFileWriter(this.path)) {
+			writer.write(new PrimeBatch(1, 10, 1, 2, 3, 5, 7));
+		}
+
+		// Cut off the last primes of the record, but keep the record complete
+		try (RandomAccessFile file = new RandomAccessFile(this.path.toFile(), "rw")) {
+			file.seek(PrimeFile.HEADER_SIZE);
+			final int recordSize = file.readInt();
+			file.seek(PrimeFile.HEADER_SIZE);
+			file.writeInt(recordSize - 2);
+			file.setLength(file.length() - 2);
+		}
+		try {
+			this.readAll();
+			fail("A corrupt record should not be read.");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("offset " + PrimeFile.HEADER_SIZE));
+		}
+	}
+
+	@Test
+	public void shouldKeepRecordsAfterCorruptLengths() throws IOException {
+		try (PrimeFileWriter writer = new PrimeFileWriter(this.path)) {
+			writer.write(new PrimeBatch(1, 10, 1, 2, 3, 5, 7));
+			writer.write(new PrimeBatch(11, 20, 11, 13, 17, 19));
+		}
+		final long fileSize = Files.size(this.path);
+
+		// Neither a negative nor an oversized length of the first record is mistaken for the end of the file
+		for (int recordSize : new int[] {-1, Integer.MAX_VALUE}) {
+			try (RandomAccessFile file = new RandomAccessFile(this.path.toFile(), "rw")) {
+				file.seek(PrimeFile.HEADER_SIZE);
+				file.writeInt(recordSize);
+			}
+			try {
+				this.readAll();
+				fail("A corrupt record length should not be read.");
+			} catch (IOException e) {
+				assertTrue(e.getMessage().contains("offset " + PrimeFile.HEADER_SIZE));
+			}
+
+			// The writer refuses the file rather than cutting off the records behind the corrupt one
+			try {
+				new PrimeFileWriter(this.path).close();
+				fail("A file with a corrupt record should not be opened for appending.");
+			} catch (IOException e) {
+				assertEquals(fileSize, Files.size(this.path));
+			}
+		}
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(this.path);
+	}
+
+}
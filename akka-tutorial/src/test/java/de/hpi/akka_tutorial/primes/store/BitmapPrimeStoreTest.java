@@ -0,0 +1,85 @@
+package de.hpi.akka_tutorial.primes.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+import de.hpi.akka_tutorial.primes.SegmentedSieveEngine;
+
+/**
+ * This class contains tests for the {@link BitmapPrimeStore}, which is checked against the {@link TreeSetPrimeStore}.
+ */
+public class BitmapPrimeStoreTest {
+
+	private BitmapPrimeStore store;
+
+	private TreeSetPrimeStore referenceStore;
+
+	private static PrimeBatch sieve(long rangeMin, long rangeMax) {
+		PrimeBatch.Builder builder = new PrimeBatch.Builder(rangeMin, 1024);
+		new SegmentedSieveEngine().discover(rangeMin, rangeMax, builder::add);
+		return builder.build(rangeMax);
+	}
+
+	private static List<Long> toList(PrimeStore store) {
+		List<Long> primes = new ArrayList<>();
+		store.forEach(primes::add);
+		return primes;
+	}
+
+	@Before
+	public void setUp() {
+		this.store = new BitmapPrimeStore();
+		this.referenceStore = new TreeSetPrimeStore();
+
+		// Add dense small primes, sparse large primes and some irregular numbers
+		for (PrimeBatch batch : new PrimeBatch[] {sieve(1, 2_000_000), sieve(1_000_000_000_000L, 1_000_000_100_000L), new PrimeBatch(-3, 0, -3, -1)}) {
+			this.store.add(batch);
+			this.referenceStore.add(batch);
+		}
+	}
+
+	@Test
+	public void shouldStoreTheSamePrimesAsReference() {
+		assertEquals(this.referenceStore.size(), this.store.size());
+		assertEquals(toList(this.referenceStore), toList(this.store));
+		assertEquals(this.referenceStore.max(), this.store.max());
+		assertTrue(this.store.contains(2));
+		assertTrue(this.store.contains(1_999_993));
+		assertFalse(this.store.contains(1_999_995));
+	}
+
+	@Test
+	public void shouldIgnoreDuplicates() {
+		long size = this.store.size();
+		assertEquals(0, this.store.add(sieve(500_000, 600_000)));
+		assertEquals(size, this.store.size());
+	}
+
+	@Test
+	public void shouldAnswerRangeQueriesLikeReference() {
+		long[][] ranges = {{-5, 10}, {2, 2}, {1_000, 1_999_999}, {131_000, 131_100}, {1_999_990, 1_000_000_050_000L}, {Long.MIN_VALUE, Long.MAX_VALUE}};
+		for (long[] range : ranges) {
+			assertEquals(this.referenceStore.count(range[0], range[1]), this.store.count(range[0], range[1]));
+			assertArrayEquals(this.referenceStore.range(range[0], range[1], 0, 50), this.store.range(range[0], range[1], 0, 50));
+			assertArrayEquals(this.referenceStore.range(range[0], range[1], 1234, 50), this.store.range(range[0], range[1], 1234, 50));
+			assertEquals(this.referenceStore.maxBelow(range[1]), this.store.maxBelow(range[1]));
+		}
+		for (long n : new long[] {0, 1, 2, 3, 4, 5, 100, 12_345, 148_933, 148_934, this.store.size(), this.store.size() + 1})
+			assertEquals(this.referenceStore.nth(n), this.store.nth(n));
+	}
+
+	@Test
+	public void shouldBeMuchSmallerThanTreeSet() {
+		assertTrue(this.store.memoryUsage() * 10 < this.referenceStore.memoryUsage());
+	}
+
+}
@@ -0,0 +1,128 @@
+package de.hpi.akka_tutorial.remote.actors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+import de.hpi.akka_tutorial.remote.actors.scheduling.ReactiveSchedulingStrategy;
+import de.hpi.akka_tutorial.remote.messages.ShutdownMessage;
+import scala.concurrent.duration.Duration;
+
+/**
+ * This class contains tests for the {@link Master}.
+ */
+public class MasterTest {
+
+	private ActorSystem actorSystem;
+
+	@Before
+	public void setUp() {
+		this.actorSystem = ActorSystem.create();
+	}
+
+	@After
+	public void tearDown() {
+		TestKit.shutdownActorSystem(this.actorSystem);
+	}
+
+	@Test
+	public void shouldScaleToManyWorkers() {
+		TestKit listener = new TestKit(this.actorSystem);
+		ActorRef master = this.actorSystem.actorOf(Master.props(listener.getRef(), new ReactiveSchedulingStrategy.Factory(), 10_000));
+
+		// The master answers the coverage request only if the listener replies, so ignore it
+		listener.expectMsgClass(Listener.CoverageRequestMessage.class);
+		master.tell(new Master.RangeMessage(1, 20_000_000), ActorRef.noSender());
+		master.tell(new ShutdownMessage(), ActorRef.noSender());
+
+		// Collect and acknowledge the primes until the master is done, which it announces by shutting down the listener
+		long numPrimes = 0;
+		Object message;
+		while (!((message = listener.receiveOne(Duration.create(60, "secs"))) instanceof ShutdownMessage)) {
+			numPrimes += ((Listener.PrimesMessage) message).getPrimes().size();
+			master.tell(new Master.AcknowledgementMessage(), listener.getRef());
+		}
+
+		// The legacy workers count 1 as a prime
+		assertEquals(1_270_607 + 1, numPrimes);
+	}
+
+	@Test
+	public void shouldPauseWhileListenerLags() {
+		TestKit listener = new TestKit(this.actorSystem);
+		ActorRef master = this.actorSystem.actorOf(Master.props(listener.getRef(), new ReactiveSchedulingStrategy.Factory(), 1));
+		listener.expectMsgClass(Listener.CoverageRequestMessage.class);
+		master.tell(new Master.RangeMessage(1, 1_000_000_000), ActorRef.noSender());
+
+		// Without acknowledgements, the batches stop once the running subqueries are done
+		int numBatches = 0;
+		while (listener.receiveOne(Duration.create(2, "secs")) != null)
+			numBatches++;
+		assertTrue(numBatches >= Master.MAX_UNACKNOWLEDGED_BATCHES);
+
+		// Acknowledging the batches resumes the scheduling
+		for (int i = 0; i < numBatches; i++)
+			master.tell(new Master.AcknowledgementMessage(), listener.getRef());
+		listener.expectMsgClass(Duration.create(5, "secs"), Listener.PrimesMessage.class);
+	}
+
+	@Test
+	public void shouldStopWithoutListener() {
+		TestKit listener = new TestKit(this.actorSystem);
+		TestKit watcher = new TestKit(this.actorSystem);
+		ActorRef master = this.actorSystem.actorOf(Master.props(listener.getRef(), new ReactiveSchedulingStrategy.Factory(), 1));
+		listener.expectMsgClass(Listener.CoverageRequestMessage.class);
+		master.tell(new Master.RangeMessage(1, 1_000_000_000), ActorRef.noSender());
+		watcher.watch(master);
+
+		// The master gives up rather than waiting for acknowledgements of a listener that is gone
+		this.actorSystem.stop(listener.getRef());
+		watcher.expectTerminated(Duration.create(5, "secs"), master);
+	}
+
+	@Test
+	public void shouldForwardEachPrimeOnce() {
+		TestKit listener = new TestKit(this.actorSystem);
+		TestKit worker1 = new TestKit(this.actorSystem);
+		TestKit worker2 = new TestKit(this.actorSystem);
+		ActorRef master = this.actorSystem.actorOf(Master.props(listener.getRef(), new ReactiveSchedulingStrategy.Factory(), 0));
+		listener.expectMsgClass(Listener.CoverageRequestMessage.class);
+
+		// A retry that cuts its batches differently than the first attempt delivers only the primes that are new
+		master.tell(new Master.PrimesMessage(0, 1, 0, new PrimeBatch(1, 10, 1, 2, 3, 5, 7), false), worker1.getRef());
+		master.tell(new Master.PrimesMessage(0, 2, 0, new PrimeBatch(5, 20, 5, 7, 11, 13, 17, 19), false), worker2.getRef());
+		master.tell(new Master.PrimesMessage(0, 2, 1, new PrimeBatch(21, 30, 23, 29), false), worker2.getRef());
+		master.tell(new Master.PrimesMessage(0, 1, 1, new PrimeBatch(11, 30, 11, 13, 17, 19, 23, 29), false), worker1.getRef());
+		assertEquals(new PrimeBatch(1, 10, 1, 2, 3, 5, 7), listener.expectMsgClass(Listener.PrimesMessage.class).getPrimes());
+		assertEquals(new PrimeBatch(11, 20, 11, 13, 17, 19), listener.expectMsgClass(Listener.PrimesMessage.class).getPrimes());
+		assertEquals(new PrimeBatch(21, 30, 23, 29), listener.expectMsgClass(Listener.PrimesMessage.class).getPrimes());
+		listener.expectNoMsg(Duration.create(100, "millis"));
+	}
+
+	@Test
+	public void shouldDropBatchesOutOfSequence() {
+		TestKit listener = new TestKit(this.actorSystem);
+		TestKit worker = new TestKit(this.actorSystem);
+		ActorRef master = this.actorSystem.actorOf(Master.props(listener.getRef(), new ReactiveSchedulingStrategy.Factory(), 0));
+		listener.expectMsgClass(Listener.CoverageRequestMessage.class);
+		master.tell(new Master.PrimesMessage(0, 5, 0, new PrimeBatch(1, 10, 1, 2, 3, 5, 7), false), worker.getRef());
+		assertEquals(new PrimeBatch(1, 10, 1, 2, 3, 5, 7), listener.expectMsgClass(Listener.PrimesMessage.class).getPrimes());
+
+		// A batch that skips another one is dropped, and so are the batches of earlier attempts
+		master.tell(new Master.PrimesMessage(0, 5, 2, new PrimeBatch(21, 30, 23, 29), false), worker.getRef());
+		master.tell(new Master.PrimesMessage(0, 4, 0, new PrimeBatch(31, 40, 31, 37), false), worker.getRef());
+		listener.expectNoMsg(Duration.create(100, "millis"));
+
+		// The next attempt starts over
+		master.tell(new Master.PrimesMessage(0, 6, 0, new PrimeBatch(41, 50, 41, 43, 47), false), worker.getRef());
+		assertEquals(new PrimeBatch(41, 50, 41, 43, 47), listener.expectMsgClass(Listener.PrimesMessage.class).getPrimes());
+	}
+
+}
@@ -0,0 +1,61 @@
+package de.hpi.akka_tutorial.remote.actors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+
+/**
+ * This class contains tests for the {@link ProgressTracker}.
+ */
+public class ProgressTrackerTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private ActorSystem actorSystem;
+
+	@Before
+	public void setUp() {
+		this.actorSystem = ActorSystem.create();
+	}
+
+	@After
+	public void tearDown() {
+		TestKit.shutdownActorSystem(this.actorSystem);
+	}
+
+	@Test
+	public void shouldReportProgressAndEta() {
+		TestKit worker = new TestKit(this.actorSystem);
+		ProgressTracker progressTracker = new ProgressTracker(0);
+		progressTracker.started(7, 1, 1_000_000, 0);
+
+		// A quarter of the numbers in one second leaves three seconds
+		progressTracker.checked(7, worker.getRef(), 250_000, 22_045);
+		List<String> lines = progressTracker.report(SECOND);
+		assertEquals(2, lines.size());
+		assertEquals("Query 7 [1..1,000,000]: 25.0% checked (250,000 numbers, 22,045 primes) at 250,000 numbers/s, ETA 3.0 s", lines.get(0));
+		assertTrue(lines.get(1).endsWith(": 250,000 numbers/s"));
+
+		// Worker rates cover the last two windows only
+		progressTracker.startWindow(SECOND);
+		progressTracker.startWindow(2 * SECOND);
+		progressTracker.checked(7, worker.getRef(), 100_000, 0);
+		assertTrue(progressTracker.report(3 * SECOND).get(1).endsWith(": 50,000 numbers/s"));
+
+		// Complete queries are no longer reported
+		progressTracker.checked(7, worker.getRef(), 650_000, 0);
+		assertFalse(progressTracker.hasQueriesInProgress());
+		assertEquals(1, progressTracker.report(4 * SECOND).size());
+	}
+
+}
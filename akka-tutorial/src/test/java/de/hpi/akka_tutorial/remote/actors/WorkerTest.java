@@ -1,15 +1,23 @@
 package de.hpi.akka_tutorial.remote.actors;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.typesafe.config.ConfigFactory;
+
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.testkit.javadsl.TestKit;
+import de.hpi.akka_tutorial.primes.PrimeBatch;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import scala.concurrent.duration.Duration;
 
-import java.util.Arrays;
-
 /**
  * This class contains tests for {@link Worker}s.
  */
@@ -32,7 +40,7 @@ public class WorkerTest {
 			worker.tell(new Worker.ValidationMessage(0, 1, 10), this.getRef());
 
 			// Expect the correct response.
-			Master.PrimesMessage expectedMsg = new Master.PrimesMessage(0, Arrays.asList(1L, 2L, 3L, 5L, 7L), true);
+			Master.PrimesMessage expectedMsg = new Master.PrimesMessage(0, new PrimeBatch(1, 10, 1, 2, 3, 5, 7), true);
 			this.expectMsg(Duration.create(3, "secs"), expectedMsg);
 		}};
 	}
@@ -47,11 +55,123 @@ public class WorkerTest {
 			worker.tell(new Worker.ValidationMessage(1, 5, 11), this.getRef());
 
 			// Expect the correct response.
-			Master.PrimesMessage expectedMsg = new Master.PrimesMessage(1, Arrays.asList(5L, 7L, 11L), true);
+			Master.PrimesMessage expectedMsg = new Master.PrimesMessage(1, new PrimeBatch(5, 11, 5, 7, 11), true);
 			this.expectMsg(Duration.create(3, "secs"), expectedMsg);
 		}};
 	}
 
+	@Test
+	public void shouldFindPrimesInParallel() {
+		// The double brackets are important! The inner bracket pair declares an anonymous constructor.
+		new TestKit(this.actorSystem) {{
+			ActorRef worker = actorSystem.actorOf(Worker.props(4));
+
+			// Send a range that spans several fork/join tasks.
+			worker.tell(new Worker.ValidationMessage(5, 1, 10_000_000), this.getRef());
+
+			// Expect consecutive, bounded batches with all primes in order.
+			long nextNumber = 1, numPrimes = 0, lastPrime = 0;
+			Master.PrimesMessage message;
+			do {
+				message = this.expectMsgClass(Duration.create(10, "secs"), Master.PrimesMessage.class);
+				PrimeBatch primes = message.getPrimes();
+				assertEquals(nextNumber, primes.getRangeMin());
+				assertTrue(primes.size() <= 1000);
+				for (int i = 0; i < primes.size(); i++) {
+					assertTrue(primes.get(i) > lastPrime);
+					lastPrime = primes.get(i);
+				}
+				nextNumber = primes.getRangeMax() + 1;
+				numPrimes += primes.size();
+			} while (!message.isComplete());
+			assertEquals(10_000_001, nextNumber);
+
+			// The legacy workers count 1 as a prime
+			assertEquals(664_579 + 1, numPrimes);
+		}};
+	}
+
+	@Test
+	public void shouldTruncateRange() {
+		// The double brackets are important! The inner bracket pair declares an anonymous constructor.
+		new TestKit(this.actorSystem) {{
+			ActorRef worker = actorSystem.actorOf(Worker.props());
+
+			// Send a large range and ask to truncate it right away.
+			worker.tell(new Worker.ValidationMessage(2, 1, 100_000_000), this.getRef());
+			worker.tell(new Worker.TruncateMessage(2, 1), this.getRef());
+
+			// Expect the worker to release the second half of its unchecked numbers.
+			Master.TruncatedMessage truncatedMsg = this.expectMsgClass(Duration.create(3, "secs"), Master.TruncatedMessage.class);
+			assertEquals(100_000_000, truncatedMsg.getReleasedRangeMax());
+			assertTrue(truncatedMsg.getBoundary() < 100_000_000);
+
+			// Expect the final primes to end at the boundary.
+			Object message;
+			do {
+				message = this.expectMsgClass(Duration.create(10, "secs"), Object.class);
+			} while (!(message instanceof Master.PrimesMessage && ((Master.PrimesMessage) message).isComplete()));
+			assertEquals(truncatedMsg.getBoundary(), ((Master.PrimesMessage) message).getPrimes().getRangeMax());
+		}};
+	}
+
+	@Test
+	public void shouldAnswerStatusRequestsAndCancelRanges() {
+		// The double brackets are important! The inner bracket pair declares an anonymous constructor.
+		new TestKit(this.actorSystem) {{
+			ActorRef worker = actorSystem.actorOf(Worker.props());
+
+			// Send two large ranges and ask for the status while computing.
+			worker.tell(new Worker.ValidationMessage(3, 1, 1, 100_000_000), this.getRef());
+			worker.tell(new Worker.ValidationMessage(4, 2, 1, 100_000_000), this.getRef());
+			worker.tell(new Worker.StatusRequestMessage(), this.getRef());
+			Object message;
+			do {
+				message = this.expectMsgClass(Duration.create(3, "secs"), Object.class);
+			} while (!(message instanceof Worker.StatusMessage));
+			Worker.StatusMessage statusMsg = (Worker.StatusMessage) message;
+			assertEquals(2, statusMsg.getNumTasks());
+			assertTrue(statusMsg.getNumRemainingNumbers() > 100_000_000);
+			assertTrue(statusMsg.isComputing());
+
+			// Cancel both ranges and expect the worker to become idle without completing either of them.
+			worker.tell(new Worker.CancelMessage(3, 1), this.getRef());
+			worker.tell(new Worker.CancelMessage(4, 2), this.getRef());
+			worker.tell(new Worker.StatusRequestMessage(), this.getRef());
+			do {
+				message = this.expectMsgClass(Duration.create(3, "secs"), Object.class);
+				assertFalse(message instanceof Master.PrimesMessage && ((Master.PrimesMessage) message).isComplete());
+			} while (!(message instanceof Worker.StatusMessage));
+			assertEquals(0, ((Worker.StatusMessage) message).getNumTasks());
+		}};
+	}
+
+	@Test
+	public void shouldComputeOnComputeDispatcherIfSequential() throws InterruptedException {
+		ActorSystem actorSystem = ActorSystem.create("WorkerTest", ConfigFactory.parseResources("akka-tutorial/base.conf").withFallback(ConfigFactory.load()));
+		try {
+			TestKit probe = new TestKit(actorSystem);
+			ActorRef worker = actorSystem.actorOf(Worker.props(1));
+			worker.tell(new Worker.ValidationMessage(0, 1, 1, 200_000_000), probe.getRef());
+
+			// Sample the threads while the worker computes: only the threads of the compute dispatcher may discover primes
+			int numSamples = 0;
+			for (int i = 0; i < 200; i++) {
+				for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+					boolean isDiscovering = Arrays.stream(entry.getValue()).anyMatch(frame -> frame.getClassName().startsWith("de.hpi.akka_tutorial.primes.") && frame.getMethodName().equals("discover"));
+					if (!isDiscovering)
+						continue;
+					assertTrue(entry.getKey().getName(), entry.getKey().getName().contains(Worker.COMPUTE_DISPATCHER));
+					numSamples++;
+				}
+				Thread.sleep(5);
+			}
+			assertTrue(numSamples > 0);
+		} finally {
+			TestKit.shutdownActorSystem(actorSystem);
+		}
+	}
+
 	@After
 	public void tearDown() {
 		this.actorSystem.terminate();
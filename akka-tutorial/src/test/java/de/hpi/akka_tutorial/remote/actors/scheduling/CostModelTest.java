@@ -0,0 +1,75 @@
+package de.hpi.akka_tutorial.remote.actors.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+
+/**
+ * This class contains tests for the {@link CostModel}.
+ */
+public class CostModelTest {
+
+	private static final long TARGET_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+	private static ActorSystem actorSystem;
+
+	@BeforeClass
+	public static void setUp() {
+		actorSystem = ActorSystem.create();
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		TestKit.shutdownActorSystem(actorSystem);
+		actorSystem = null;
+	}
+
+	@Test
+	public void testInitialSize() {
+		CostModel costModel = new CostModel(TARGET_NANOS);
+		ActorRef worker = new TestKit(actorSystem).getRef();
+
+		assertEquals(CostModel.INITIAL_SUBQUERY_RANGE_SIZE, costModel.subqueryRangeSize(worker, 1, 1_000_000_000, 1));
+		assertEquals(100, costModel.subqueryRangeSize(worker, 1, 100, 1));
+		assertEquals(0, costModel.subqueryRangeSize(worker, 2, 1, 1));
+	}
+
+	@Test
+	public void testAdaptsToThroughputAndMagnitude() {
+		CostModel costModel = new CostModel(TARGET_NANOS);
+		ActorRef fastWorker = new TestKit(actorSystem).getRef();
+		ActorRef slowWorker = new TestKit(actorSystem).getRef();
+
+		// The fast worker checked 1,000,000 numbers in 20 ms, the slow one needed 200 ms
+		costModel.record(fastWorker, 1_000_000, 1_999_999, TimeUnit.MILLISECONDS.toNanos(20));
+		costModel.record(slowWorker, 1_000_000, 1_999_999, TimeUnit.MILLISECONDS.toNanos(200));
+
+		long fastSize = costModel.subqueryRangeSize(fastWorker, 1_000_000, Long.MAX_VALUE, 1);
+		long slowSize = costModel.subqueryRangeSize(slowWorker, 1_000_000, Long.MAX_VALUE, 1);
+		assertTrue(Math.abs(slowSize - 1_000_000) < 50_000);
+		assertTrue(fastSize > 8 * slowSize && fastSize < 10 * slowSize);
+
+		// Larger numbers are more expensive, so the subqueries get smaller
+		assertTrue(costModel.subqueryRangeSize(fastWorker, 1_000_000_000_000L, Long.MAX_VALUE, 1) < fastSize);
+	}
+
+	@Test
+	public void testGuidedSelfScheduling() {
+		CostModel costModel = new CostModel(TARGET_NANOS);
+		ActorRef worker = new TestKit(actorSystem).getRef();
+
+		// With four workers, each subquery gets at most an eighth of the remaining numbers, but not less than the minimum
+		assertEquals(80_000 / 8, costModel.subqueryRangeSize(worker, 1, 80_000, 4));
+		assertEquals(CostModel.MIN_SUBQUERY_RANGE_SIZE, costModel.subqueryRangeSize(worker, 1, 5_000, 4));
+	}
+
+}
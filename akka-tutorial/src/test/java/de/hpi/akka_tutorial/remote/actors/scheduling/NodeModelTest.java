@@ -0,0 +1,33 @@
+package de.hpi.akka_tutorial.remote.actors.scheduling;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import akka.actor.Address;
+
+/**
+ * This class contains tests for the {@link NodeModel}.
+ */
+public class NodeModelTest {
+
+	@Test
+	public void shouldSeparateLatencyAndBandwidth() {
+		NodeModel nodeModel = new NodeModel();
+		Address localAddress = new Address("akka", "MasterActorSystem");
+		Address remoteAddress = new Address("akka.tcp", "SlaveActorSystem", "remotehost", 7879);
+
+		// Local nodes have no overhead, remote ones have a default latency until measured
+		assertEquals(0, nodeModel.latencyNanos(localAddress), 0);
+		assertEquals(NodeModel.DEFAULT_REMOTE_LATENCY_NANOS, nodeModel.latencyNanos(remoteAddress), 0);
+
+		// A latency of 2ms and 10ns per byte explain the measured round trips
+		for (int i = 0; i < 20; i++) {
+			double bytes = 1_000 * (1 + i % 4);
+			nodeModel.record(remoteAddress, bytes, (long) (2_000_000 + 10 * bytes));
+		}
+		assertEquals(2_000_000, nodeModel.latencyNanos(remoteAddress), 1_000);
+		assertEquals(10, nodeModel.nanosPerByte(remoteAddress), 0.01);
+	}
+
+}
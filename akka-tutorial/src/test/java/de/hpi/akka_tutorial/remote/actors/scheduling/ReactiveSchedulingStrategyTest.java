@@ -0,0 +1,324 @@
+package de.hpi.akka_tutorial.remote.actors.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import akka.actor.ActorSystem;
+import akka.actor.Address;
+import akka.testkit.javadsl.TestKit;
+import de.hpi.akka_tutorial.remote.actors.Worker;
+import scala.concurrent.duration.Duration;
+
+/**
+ * This class contains tests for the {@link ReactiveSchedulingStrategy}.
+ */
+public class ReactiveSchedulingStrategyTest {
+
+	private ActorSystem actorSystem;
+
+	@Before
+	public void setUp() {
+		this.actorSystem = ActorSystem.create();
+	}
+
+	@After
+	public void tearDown() {
+		TestKit.shutdownActorSystem(this.actorSystem);
+	}
+
+	@Test
+	public void shouldPrefetchAndRescheduleSubqueries() {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker1 = new TestKit(this.actorSystem);
+		TestKit worker2 = new TestKit(this.actorSystem);
+		ReactiveSchedulingStrategy strategy = new ReactiveSchedulingStrategy.Factory(3).create(master.getRef());
+		strategy.addWorker(worker1.getRef());
+		strategy.addWorker(worker2.getRef());
+		strategy.schedule(0, 1, 10_000_000);
+
+		// Each worker receives as many subqueries as the prefetch depth allows
+		Worker.ValidationMessage[] subqueries1 = new Worker.ValidationMessage[3];
+		for (int i = 0; i < subqueries1.length; i++)
+			subqueries1[i] = worker1.expectMsgClass(Worker.ValidationMessage.class);
+		worker1.expectNoMsg(Duration.create(100, "millis"));
+		for (int i = 0; i < 3; i++)
+			worker2.expectMsgClass(Worker.ValidationMessage.class);
+
+		// A completed subquery is replaced by a new one
+		strategy.finished(0, worker1.getRef());
+		worker1.expectMsgClass(Worker.ValidationMessage.class);
+
+		// The subqueries of a terminated worker are sent to the remaining worker once it has capacity
+		strategy.removeWorker(worker1.getRef());
+		assertEquals(1, strategy.countWorkers());
+		strategy.finished(0, worker2.getRef());
+		Worker.ValidationMessage rescheduled = worker2.expectMsgClass(Worker.ValidationMessage.class);
+		assertEquals(subqueries1[1].getRangeMin(), rescheduled.getRangeMin());
+		assertEquals(subqueries1[1].getRangeMax(), rescheduled.getRangeMax());
+		assertTrue(strategy.hasTasksInProgress());
+	}
+
+	@Test
+	public void shouldCompleteQueries() {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker = new TestKit(this.actorSystem);
+		ReactiveSchedulingStrategy strategy = new ReactiveSchedulingStrategy.Factory(2).create(master.getRef());
+		strategy.addWorker(worker.getRef());
+		strategy.schedule(0, 1, 500);
+		strategy.schedule(1, 501, 1000);
+
+		// Small queries fit into a single subquery each, which are both in flight at once
+		Worker.ValidationMessage subquery0 = worker.expectMsgClass(Worker.ValidationMessage.class);
+		Worker.ValidationMessage subquery1 = worker.expectMsgClass(Worker.ValidationMessage.class);
+		assertEquals(0, subquery0.getId());
+		assertEquals(1, subquery1.getId());
+
+		strategy.finished(0, worker.getRef());
+		assertTrue(strategy.hasTasksInProgress());
+		strategy.finished(1, worker.getRef());
+		assertFalse(strategy.hasTasksInProgress());
+	}
+
+	@Test
+	public void shouldIgnoreUnmatchedCompletions() {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker = new TestKit(this.actorSystem);
+		ReactiveSchedulingStrategy strategy = new ReactiveSchedulingStrategy.Factory(1).create(master.getRef());
+		strategy.addWorker(worker.getRef());
+		strategy.schedule(0, 1, 500);
+		worker.expectMsgClass(Worker.ValidationMessage.class);
+
+		// A completion of a task that the worker does not process is not charged to its subquery
+		strategy.finished(1, worker.getRef());
+		assertTrue(strategy.hasTasksInProgress());
+
+		// Neither is a repeated completion
+		strategy.finished(0, worker.getRef());
+		assertFalse(strategy.hasTasksInProgress());
+		strategy.finished(0, worker.getRef());
+		assertEquals(1, strategy.countWorkers());
+	}
+
+	@Test
+	public void shouldMatchCompletionsByAttempt() {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker = new TestKit(this.actorSystem);
+		ReactiveSchedulingStrategy strategy = new ReactiveSchedulingStrategy.Factory(2).create(master.getRef());
+		strategy.addWorker(worker.getRef());
+		strategy.schedule(0, 1, 10_000_000);
+		Worker.ValidationMessage subquery1 = worker.expectMsgClass(Worker.ValidationMessage.class);
+		Worker.ValidationMessage subquery2 = worker.expectMsgClass(Worker.ValidationMessage.class);
+
+		// The completion of the second attempt frees its slot, even though the first attempt is older
+		strategy.finished(0, subquery2.getAttemptId(), worker.getRef(), 0);
+		worker.expectMsgClass(Worker.ValidationMessage.class);
+
+		// Its repetition does not free another slot, but the completion of the first attempt does
+		strategy.finished(0, subquery2.getAttemptId(), worker.getRef(), 0);
+		worker.expectNoMsg(Duration.create(100, "millis"));
+		strategy.finished(0, subquery1.getAttemptId(), worker.getRef(), 0);
+		worker.expectMsgClass(Worker.ValidationMessage.class);
+	}
+
+	@Test
+	public void shouldShareWorkersByPriorityAndQuota() {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit client1 = new TestKit(this.actorSystem);
+		TestKit client2 = new TestKit(this.actorSystem);
+		TestKit[] workers = new TestKit[10];
+		for (int i = 0; i < workers.length; i++)
+			workers[i] = new TestKit(this.actorSystem);
+
+		// The query with the higher priority gets most, but not all of the workers
+		ReactiveSchedulingStrategy strategy = new ReactiveSchedulingStrategy.Factory(1).create(master.getRef());
+		strategy.schedule(0, 1, 1_000_000_000, 0, client1.getRef());
+		strategy.schedule(1, 1, 1_000_000_000, 1, client1.getRef());
+		for (TestKit worker : workers)
+			strategy.addWorker(worker.getRef());
+		int[] numSubqueries = countSubqueries(workers, 2);
+		assertTrue(numSubqueries[1] >= 6);
+		assertTrue(numSubqueries[0] >= 1);
+
+		// A client with several urgent queries must leave the workers beyond its quota to other clients
+		strategy = new ReactiveSchedulingStrategy.Factory(1, 0.5).create(master.getRef());
+		strategy.schedule(0, 1, 1_000_000_000, 1, client1.getRef());
+		strategy.schedule(1, 1, 1_000_000_000, 1, client1.getRef());
+		strategy.schedule(2, 1, 1_000_000_000, 0, client2.getRef());
+		for (TestKit worker : workers)
+			strategy.addWorker(worker.getRef());
+		numSubqueries = countSubqueries(workers, 3);
+		assertEquals(5, numSubqueries[0] + numSubqueries[1]);
+		assertEquals(5, numSubqueries[2]);
+	}
+
+	@Test
+	public void shouldRescheduleSubqueriesOfExpiredLeases() throws InterruptedException {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker1 = new TestKit(this.actorSystem);
+		TestKit worker2 = new TestKit(this.actorSystem);
+		ReactiveSchedulingStrategy strategy = new ReactiveSchedulingStrategy.Factory(1, 1.0, 500).create(master.getRef());
+		strategy.addWorker(worker1.getRef());
+		strategy.schedule(0, 1, 1000);
+		Worker.ValidationMessage subquery = worker1.expectMsgClass(Worker.ValidationMessage.class);
+		strategy.addWorker(worker2.getRef());
+
+		// Progress reports renew the lease
+		Thread.sleep(300);
+		strategy.progress(0, worker1.getRef());
+		Thread.sleep(300);
+		strategy.tick();
+		worker2.expectNoMsg(Duration.create(100, "millis"));
+
+		// Once the lease expires, the subquery moves to another worker
+		Thread.sleep(600);
+		strategy.tick();
+		Worker.ValidationMessage rescheduled = worker2.expectMsgClass(Worker.ValidationMessage.class);
+		assertEquals(subquery.getRangeMin(), rescheduled.getRangeMin());
+		assertEquals(subquery.getRangeMax(), rescheduled.getRangeMax());
+		assertEquals(2, strategy.countWorkers());
+
+		// The quarantined worker is told to drop the subquery and asked for its status
+		Worker.CancelMessage cancellation = worker1.expectMsgClass(Worker.CancelMessage.class);
+		assertEquals(subquery.getAttemptId(), cancellation.getAttemptId());
+		worker1.expectMsgClass(Worker.StatusRequestMessage.class);
+
+		// A late completion of the quarantined worker does not count, but its answer to the status request readmits it
+		strategy.finished(0, subquery.getAttemptId(), worker1.getRef(), 0);
+		assertTrue(strategy.hasTasksInProgress());
+		strategy.responded(worker1.getRef());
+		strategy.finished(0, worker2.getRef());
+		assertFalse(strategy.hasTasksInProgress());
+		strategy.schedule(1, 1001, 2000);
+		worker1.expectMsgClass(Worker.ValidationMessage.class);
+	}
+
+	@Test
+	public void shouldKeepSmallQueriesLocal() {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit localWorker = new TestKit(this.actorSystem);
+		TestKit remoteWorker = new TestKit(this.actorSystem);
+		ReactiveSchedulingStrategy strategy = new ReactiveSchedulingStrategy.Factory(1).create(master.getRef());
+		strategy.addWorker(localWorker.getRef(), 1.0, localWorker.getRef().path().address());
+		strategy.addWorker(remoteWorker.getRef(), 1.0, new Address("akka.tcp", "SlaveActorSystem", "remotehost", 7879));
+
+		// Local workers are served first, so the remote worker stays idle
+		strategy.schedule(0, 1, 1000);
+		localWorker.expectMsgClass(Worker.ValidationMessage.class);
+		remoteWorker.expectNoMsg(Duration.create(100, "millis"));
+		strategy.finished(0, localWorker.getRef(), TimeUnit.MILLISECONDS.toNanos(1));
+
+		// A query that takes only a few round trips to the remote node is not worth sending there
+		strategy.schedule(1, 1001, 10_000);
+		assertEquals(1, localWorker.expectMsgClass(Worker.ValidationMessage.class).getId());
+		remoteWorker.expectNoMsg(Duration.create(100, "millis"));
+
+		// A large query is
+		strategy.schedule(2, 1_000_000_000, 2_000_000_000);
+		assertEquals(2, remoteWorker.expectMsgClass(Worker.ValidationMessage.class).getId());
+	}
+
+	@Test
+	public void shouldServeRemoteWorkersOfDifferentNodesIndependently() throws InterruptedException {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit localWorker = new TestKit(this.actorSystem);
+		TestKit fastWorker = new TestKit(this.actorSystem);
+		TestKit slowWorker = new TestKit(this.actorSystem);
+		ReactiveSchedulingStrategy strategy = new ReactiveSchedulingStrategy.Factory(1).create(master.getRef());
+		strategy.addWorker(fastWorker.getRef(), 1.0, new Address("akka.tcp", "SlaveActorSystem", "remotehost1", 7879));
+		strategy.addWorker(slowWorker.getRef(), 1.0, new Address("akka.tcp", "SlaveActorSystem", "remotehost2", 7879));
+
+		// Without local workers, the remote workers get any work
+		strategy.schedule(0, 1, 200_000);
+		Worker.ValidationMessage fastSubquery = fastWorker.expectMsgClass(Worker.ValidationMessage.class);
+		Worker.ValidationMessage slowSubquery = slowWorker.expectMsgClass(Worker.ValidationMessage.class);
+		strategy.setPaused(true);
+
+		// The first worker computes very fast behind a slow link, so that it heads the idle workers, but is worth sending only huge queries
+		Thread.sleep(50);
+		strategy.finished(0, fastSubquery.getAttemptId(), fastWorker.getRef(), TimeUnit.MICROSECONDS.toNanos(1));
+		strategy.finished(0, slowSubquery.getAttemptId(), slowWorker.getRef(), TimeUnit.MILLISECONDS.toNanos(100));
+
+		// Once a local worker is busy, the slow remote worker still gets a large query, even though the fast one does not
+		strategy.addWorker(localWorker.getRef(), 1.0, localWorker.getRef().path().address());
+		strategy.schedule(1, 1_000_000, 100_000_000);
+		strategy.setPaused(false);
+		localWorker.expectMsgClass(Worker.ValidationMessage.class);
+		slowWorker.expectMsgClass(Worker.ValidationMessage.class);
+		fastWorker.expectNoMsg(Duration.create(100, "millis"));
+
+		// Nor does the fast worker back up the large query of the local worker, even once it straggles
+		strategy.tick();
+		fastWorker.expectNoMsg(Duration.create(100, "millis"));
+	}
+
+	private static int[] countSubqueries(TestKit[] workers, int numQueries) {
+		int[] numSubqueries = new int[numQueries];
+		for (TestKit worker : workers)
+			numSubqueries[worker.expectMsgClass(Worker.ValidationMessage.class).getId()]++;
+		return numSubqueries;
+	}
+
+	@Test
+	public void shouldBackUpStragglers() throws InterruptedException {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker1 = new TestKit(this.actorSystem);
+		TestKit worker2 = new TestKit(this.actorSystem);
+		ReactiveSchedulingStrategy strategy = new ReactiveSchedulingStrategy.Factory(1).create(master.getRef());
+		strategy.addWorker(worker1.getRef());
+		strategy.addWorker(worker2.getRef());
+		strategy.schedule(0, 1, 2000);
+		Worker.ValidationMessage subquery1 = worker1.expectMsgClass(Worker.ValidationMessage.class);
+		worker2.expectMsgClass(Worker.ValidationMessage.class);
+
+		// The second worker finishes at once, while the first one takes much longer than that
+		strategy.finished(0, worker2.getRef());
+		Thread.sleep(500);
+		strategy.tick();
+
+		// The idle worker duplicates the straggling subquery
+		Worker.ValidationMessage backup = worker2.expectMsgClass(Worker.ValidationMessage.class);
+		assertEquals(subquery1.getRangeMin(), backup.getRangeMin());
+		assertEquals(subquery1.getRangeMax(), backup.getRangeMax());
+
+		// The first completion completes the query and cancels the straggler, whose late completion is ignored
+		strategy.finished(0, backup.getAttemptId(), worker2.getRef(), 0);
+		assertFalse(strategy.hasTasksInProgress());
+		Worker.CancelMessage cancellation = worker1.expectMsgClass(Worker.CancelMessage.class);
+		assertEquals(0, cancellation.getId());
+		assertEquals(subquery1.getAttemptId(), cancellation.getAttemptId());
+		strategy.finished(0, subquery1.getAttemptId(), worker1.getRef(), 0);
+		assertFalse(strategy.hasTasksInProgress());
+		worker1.expectNoMsg(Duration.create(100, "millis"));
+	}
+
+	@Test
+	public void shouldBackUpStragglersOnlyWithinQuota() throws InterruptedException {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit client = new TestKit(this.actorSystem);
+		TestKit worker1 = new TestKit(this.actorSystem);
+		TestKit worker2 = new TestKit(this.actorSystem);
+		ReactiveSchedulingStrategy strategy = new ReactiveSchedulingStrategy.Factory(1, 0.25).create(master.getRef());
+		strategy.addWorker(worker1.getRef());
+		strategy.addWorker(worker2.getRef());
+
+		// The only client gets both workers, even though its quota is one of them
+		strategy.schedule(0, 1, 2000, 0, client.getRef());
+		worker1.expectMsgClass(Worker.ValidationMessage.class);
+		worker2.expectMsgClass(Worker.ValidationMessage.class);
+
+		// The idle worker does not back up the straggler, which would exceed the quota again
+		strategy.finished(0, worker2.getRef());
+		Thread.sleep(500);
+		strategy.tick();
+		worker2.expectNoMsg(Duration.create(100, "millis"));
+		assertTrue(strategy.hasTasksInProgress());
+	}
+
+}
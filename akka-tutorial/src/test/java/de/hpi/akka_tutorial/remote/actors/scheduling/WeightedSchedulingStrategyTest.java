@@ -0,0 +1,170 @@
+package de.hpi.akka_tutorial.remote.actors.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import de.hpi.akka_tutorial.remote.actors.Worker;
+
+/**
+ * This class contains tests for the {@link WeightedSchedulingStrategy}.
+ */
+public class WeightedSchedulingStrategyTest {
+
+	/**
+	 * Loads the {@link WeightedSchedulingStrategy} and its package-private helpers anew with assertions disabled, as they
+	 * run in production; all other classes come from the parent class loader, so that the strategy can be used as a
+	 * {@link SchedulingStrategy}.
+	 */
+	private static class AssertionsDisabledClassLoader extends ClassLoader {
+
+		AssertionsDisabledClassLoader() {
+			super(WeightedSchedulingStrategyTest.class.getClassLoader());
+			this.setDefaultAssertionStatus(false);
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!name.startsWith(WeightedSchedulingStrategy.class.getPackage().getName() + ".") || name.startsWith(SchedulingStrategy.class.getName()))
+				return super.loadClass(name, resolve);
+			synchronized (this.getClassLoadingLock(name)) {
+				Class<?> loadedClass = this.findLoadedClass(name);
+				if (loadedClass == null) {
+					this.setClassAssertionStatus(name, false);
+					byte[] bytes = this.readClass(name);
+					loadedClass = this.defineClass(name, bytes, 0, bytes.length);
+				}
+				if (resolve)
+					this.resolveClass(loadedClass);
+				return loadedClass;
+			}
+		}
+
+		private byte[] readClass(String name) throws ClassNotFoundException {
+			try (InputStream in = this.getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+				if (in == null)
+					throw new ClassNotFoundException(name);
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				for (int numBytes; (numBytes = in.read(buffer)) != -1; )
+					out.write(buffer, 0, numBytes);
+				return out.toByteArray();
+			} catch (IOException e) {
+				throw new ClassNotFoundException(name, e);
+			}
+		}
+	}
+
+	private ActorSystem actorSystem;
+
+	@Before
+	public void setUp() {
+		this.actorSystem = ActorSystem.create();
+	}
+
+	@After
+	public void tearDown() {
+		TestKit.shutdownActorSystem(this.actorSystem);
+	}
+
+	@Test
+	public void shouldSplitByCapacityAndCost() {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker1 = new TestKit(this.actorSystem);
+		TestKit worker2 = new TestKit(this.actorSystem);
+		WeightedSchedulingStrategy strategy = new WeightedSchedulingStrategy(master.getRef());
+
+		// Without workers, the range waits
+		strategy.schedule(0, 1, 3_000_000);
+		assertTrue(strategy.hasTasksInProgress());
+		strategy.addWorker(worker1.getRef(), 1.0);
+		strategy.addWorker(worker2.getRef(), 0.5);
+		Worker.ValidationMessage segment = worker1.expectMsgClass(Worker.ValidationMessage.class);
+		assertEquals(1, segment.getRangeMin());
+		assertEquals(3_000_000, segment.getRangeMax());
+		strategy.finished(0, worker1.getRef());
+		assertFalse(strategy.hasTasksInProgress());
+
+		// The faster worker gets two thirds of the cost, which is a bit more than two thirds of the numbers
+		strategy.schedule(1, 1, 3_000_000);
+		Worker.ValidationMessage segment1 = worker1.expectMsgClass(Worker.ValidationMessage.class);
+		Worker.ValidationMessage segment2 = worker2.expectMsgClass(Worker.ValidationMessage.class);
+		assertEquals(1, segment1.getRangeMin());
+		assertEquals(segment1.getRangeMax() + 1, segment2.getRangeMin());
+		assertEquals(3_000_000, segment2.getRangeMax());
+		assertTrue(segment1.getRangeMax() > 2_000_000);
+		assertTrue(segment1.getRangeMax() < 2_100_000);
+	}
+
+	@Test
+	public void shouldRescheduleSegmentsOfRemovedWorkers() {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker1 = new TestKit(this.actorSystem);
+		TestKit worker2 = new TestKit(this.actorSystem);
+		WeightedSchedulingStrategy strategy = new WeightedSchedulingStrategy(master.getRef());
+		strategy.addWorker(worker1.getRef(), 1.0);
+		strategy.addWorker(worker2.getRef(), 1.0);
+		strategy.schedule(0, 1, 1_000_000);
+		worker1.expectMsgClass(Worker.ValidationMessage.class);
+		Worker.ValidationMessage segment2 = worker2.expectMsgClass(Worker.ValidationMessage.class);
+
+		// The remaining worker takes over the segment of the removed worker
+		strategy.removeWorker(worker2.getRef());
+		Worker.ValidationMessage takeover = worker1.expectMsgClass(Worker.ValidationMessage.class);
+		assertEquals(segment2.getRangeMin(), takeover.getRangeMin());
+		assertEquals(segment2.getRangeMax(), takeover.getRangeMax());
+
+		strategy.finished(0, worker1.getRef());
+		assertTrue(strategy.hasTasksInProgress());
+		strategy.finished(0, worker1.getRef());
+		assertFalse(strategy.hasTasksInProgress());
+	}
+
+	@Test
+	public void shouldMatchCompletionsByTaskIdWithAssertionsDisabled() throws Exception {
+		Class<?> strategyClass = new AssertionsDisabledClassLoader().loadClass(WeightedSchedulingStrategy.class.getName());
+		assertFalse(strategyClass.desiredAssertionStatus());
+
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker1 = new TestKit(this.actorSystem);
+		TestKit worker2 = new TestKit(this.actorSystem);
+		TestKit stranger = new TestKit(this.actorSystem);
+		SchedulingStrategy strategy = (SchedulingStrategy) strategyClass.getConstructor(ActorRef.class).newInstance(master.getRef());
+		strategy.addWorker(worker1.getRef(), 1.0);
+		strategy.schedule(0, 1, 1_000);
+		strategy.schedule(1, 1_001, 2_000);
+		Worker.ValidationMessage segment0 = worker1.expectMsgClass(Worker.ValidationMessage.class);
+		worker1.expectMsgClass(Worker.ValidationMessage.class);
+
+		// Completions that match no segment are ignored
+		strategy.finished(7, worker1.getRef());
+		strategy.finished(0, stranger.getRef());
+		assertTrue(strategy.hasTasksInProgress());
+
+		// A completion out of order completes its own task and leaves the other segment with the worker
+		strategy.finished(1, worker1.getRef());
+		assertTrue(strategy.hasTasksInProgress());
+		strategy.addWorker(worker2.getRef(), 1.0);
+		strategy.removeWorker(worker1.getRef());
+		Worker.ValidationMessage takeover = worker2.expectMsgClass(Worker.ValidationMessage.class);
+		assertEquals(segment0.getId(), takeover.getId());
+		assertEquals(segment0.getRangeMin(), takeover.getRangeMin());
+		assertEquals(segment0.getRangeMax(), takeover.getRangeMax());
+		worker2.expectNoMsg();
+
+		strategy.finished(0, worker2.getRef());
+		assertFalse(strategy.hasTasksInProgress());
+	}
+
+}
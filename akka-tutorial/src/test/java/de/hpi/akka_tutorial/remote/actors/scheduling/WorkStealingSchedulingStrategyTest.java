@@ -0,0 +1,106 @@
+package de.hpi.akka_tutorial.remote.actors.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import akka.actor.ActorSystem;
+import akka.testkit.javadsl.TestKit;
+import de.hpi.akka_tutorial.remote.actors.Worker;
+
+/**
+ * This class contains tests for the {@link WorkStealingSchedulingStrategy}.
+ */
+public class WorkStealingSchedulingStrategyTest {
+
+	private ActorSystem actorSystem;
+
+	@Before
+	public void setUp() {
+		this.actorSystem = ActorSystem.create();
+	}
+
+	@After
+	public void tearDown() {
+		TestKit.shutdownActorSystem(this.actorSystem);
+	}
+
+	private static void expectRange(TestKit worker, long rangeMin, long rangeMax) {
+		Worker.ValidationMessage message = worker.expectMsgClass(Worker.ValidationMessage.class);
+		assertEquals(rangeMin, message.getRangeMin());
+		assertEquals(rangeMax, message.getRangeMax());
+	}
+
+	@Test
+	public void shouldStealQueuedChunksAndThenTruncate() {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker1 = new TestKit(this.actorSystem);
+		TestKit worker2 = new TestKit(this.actorSystem);
+		WorkStealingSchedulingStrategy strategy = new WorkStealingSchedulingStrategy(master.getRef());
+
+		// The first worker owns four chunks
+		strategy.addWorker(worker1.getRef());
+		strategy.schedule(0, 1, 1 << 20);
+		expectRange(worker1, 1, 1 << 18);
+
+		// The second worker steals the last chunks of the first one
+		strategy.addWorker(worker2.getRef());
+		expectRange(worker2, 3 * (1 << 18) + 1, 1 << 20);
+		strategy.finished(0, worker2.getRef());
+		expectRange(worker2, 2 * (1 << 18) + 1, 3 * (1 << 18));
+
+		// The single queued chunk is split in halves as long as possible
+		strategy.finished(0, worker2.getRef());
+		expectRange(worker2, (1 << 18) + (1 << 17) + 1, 2 * (1 << 18));
+		strategy.finished(0, worker2.getRef());
+		expectRange(worker2, (1 << 18) + (1 << 16) + 1, (1 << 18) + (1 << 17));
+		strategy.finished(0, worker2.getRef());
+		expectRange(worker2, (1 << 18) + 1, (1 << 18) + (1 << 16));
+
+		// Finally, the running chunk is truncated
+		strategy.finished(0, worker2.getRef());
+		worker1.expectMsgClass(Worker.TruncateMessage.class);
+		strategy.truncated(0, worker1.getRef(), 1 << 17, 1 << 18);
+		expectRange(worker2, (1 << 17) + 1, 1 << 18);
+
+		strategy.finished(0, worker2.getRef());
+		strategy.finished(0, worker1.getRef());
+		assertFalse(strategy.hasTasksInProgress());
+	}
+
+	@Test
+	public void shouldFallBackToNextVictimIfTruncating() {
+		TestKit master = new TestKit(this.actorSystem);
+		TestKit worker1 = new TestKit(this.actorSystem);
+		TestKit worker2 = new TestKit(this.actorSystem);
+		TestKit worker3 = new TestKit(this.actorSystem);
+		TestKit worker4 = new TestKit(this.actorSystem);
+		WorkStealingSchedulingStrategy strategy = new WorkStealingSchedulingStrategy(master.getRef());
+
+		// The first worker owns four chunks, of which the second and third worker steal one each
+		strategy.addWorker(worker1.getRef());
+		strategy.schedule(0, 1, 1 << 20);
+		expectRange(worker1, 1, 1 << 18);
+		strategy.addWorker(worker2.getRef());
+		expectRange(worker2, 3 * (1 << 18) + 1, 1 << 20);
+		strategy.addWorker(worker3.getRef());
+		expectRange(worker3, 2 * (1 << 18) + 1, 3 * (1 << 18));
+		strategy.finished(0, worker1.getRef());
+		expectRange(worker1, (1 << 18) + 1, 2 * (1 << 18));
+
+		// Completions that do not match the running chunk are ignored
+		strategy.finished(1, worker1.getRef());
+		worker1.expectNoMsg();
+
+		// The fourth worker asks the first one to truncate, so that the second worker turns to the third one
+		strategy.addWorker(worker4.getRef());
+		worker1.expectMsgClass(Worker.TruncateMessage.class);
+		strategy.finished(0, worker2.getRef());
+		worker3.expectMsgClass(Worker.TruncateMessage.class);
+		worker1.expectNoMsg();
+	}
+
+}
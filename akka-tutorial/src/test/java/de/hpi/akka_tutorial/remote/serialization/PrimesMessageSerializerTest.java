@@ -0,0 +1,57 @@
+package de.hpi.akka_tutorial.remote.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import akka.actor.ActorSystem;
+import akka.serialization.Serialization;
+import akka.serialization.SerializationExtension;
+import akka.serialization.Serializer;
+import de.hpi.akka_tutorial.primes.PrimeBatch;
+import de.hpi.akka_tutorial.primes.SegmentedSieveEngine;
+import de.hpi.akka_tutorial.remote.actors.Master;
+import de.hpi.akka_tutorial.util.AkkaUtils;
+
+/**
+ * This class contains tests for the {@link PrimesMessageSerializer}.
+ */
+public class PrimesMessageSerializerTest {
+
+	private ActorSystem actorSystem;
+
+	@Before
+	public void setUp() {
+		this.actorSystem = ActorSystem.create("test", AkkaUtils.createRemoteAkkaConfig("localhost", 0));
+	}
+
+	@Test
+	public void shouldRoundTripCompactly() {
+		// Collect 1000 primes above one billion
+		PrimeBatch.Builder builder = new PrimeBatch.Builder(1_000_000_000L, 1000);
+		new SegmentedSieveEngine().discover(1_000_000_000L, 1_000_022_000L, builder::add);
+		PrimeBatch batch = builder.build(1_000_022_000L);
+		Master.PrimesMessage message = new Master.PrimesMessage(42, 7, 3, batch, true, 123_456_789);
+
+		// The configured serializer must be used and must restore the message
+		Serialization serialization = SerializationExtension.get(this.actorSystem);
+		Serializer serializer = serialization.findSerializerFor(message);
+		assertTrue(serializer instanceof PrimesMessageSerializer);
+		byte[] bytes = serializer.toBinary(message);
+		Master.PrimesMessage restoredMessage = (Master.PrimesMessage) serializer.fromBinary(bytes, Master.PrimesMessage.class);
+		assertEquals(message, restoredMessage);
+		assertEquals(message.getComputeNanos(), restoredMessage.getComputeNanos());
+
+		// Prime gaps at this magnitude fit into a single byte
+		assertTrue(bytes.length < 2 * batch.size());
+	}
+
+	@After
+	public void tearDown() {
+		this.actorSystem.terminate();
+	}
+
+}
@@ -0,0 +1,70 @@
+package de.hpi.akka_tutorial.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * This class contains tests for the {@link RangeIndex}.
+ */
+public class RangeIndexTest {
+
+	private static long[] gaps(RangeIndex index, long rangeMin, long rangeMax) {
+		List<Long> gaps = new ArrayList<>();
+		index.forEachGap(rangeMin, rangeMax, (min, max) -> {
+			gaps.add(min);
+			gaps.add(max);
+		});
+		return gaps.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	@Test
+	public void testMerging() {
+		RangeIndex index = new RangeIndex();
+		index.add(10, 20);
+		index.add(30, 40);
+		index.add(21, 25);
+		index.add(50, 60);
+		assertArrayEquals(new long[] {10, 25, 30, 40, 50, 60}, index.toArray());
+
+		// Bridge the gaps between several ranges at once
+		index.add(26, 55);
+		assertArrayEquals(new long[] {10, 60}, index.toArray());
+
+		// Ranges that are already contained do not change anything
+		index.add(12, 18);
+		assertArrayEquals(new long[] {10, 60}, index.toArray());
+	}
+
+	@Test
+	public void testGaps() {
+		RangeIndex index = new RangeIndex();
+		assertArrayEquals(new long[] {1, 100}, gaps(index, 1, 100));
+
+		index.add(10, 20);
+		index.add(30, 40);
+		assertArrayEquals(new long[] {1, 9, 21, 29, 41, 100}, gaps(index, 1, 100));
+		assertArrayEquals(new long[] {21, 29}, gaps(index, 15, 35));
+		assertArrayEquals(new long[] {}, gaps(index, 12, 18));
+		assertArrayEquals(new long[] {21, 25}, gaps(index, 21, 25));
+		assertEquals(22, index.count(1, 100));
+		assertEquals(12, index.count(15, 35));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testExtremes() {
+		RangeIndex index = new RangeIndex();
+		index.add(Long.MAX_VALUE - 10, Long.MAX_VALUE);
+		index.add(Long.MIN_VALUE, Long.MIN_VALUE + 10);
+		index.add(Long.MAX_VALUE - 20, Long.MAX_VALUE - 11);
+		assertArrayEquals(new long[] {Long.MIN_VALUE, Long.MIN_VALUE + 10, Long.MAX_VALUE - 20, Long.MAX_VALUE}, index.toArray());
+		assertArrayEquals(new long[] {0, Long.MAX_VALUE - 21}, gaps(index, 0, Long.MAX_VALUE));
+		assertEquals(21, index.count(0, Long.MAX_VALUE));
+	}
+
+}